@@ -0,0 +1,160 @@
+package com.example.api.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides, before a controller runs, whether an {@code /api} request is served:
+ * <ol>
+ *   <li>the caller's token bucket ({@code X-Client-Id}, else the remote address) and the
+ *       global bucket must each have a token, or the request gets 429 with
+ *       {@code Retry-After};</li>
+ *   <li>the {@link ConcurrencyLimiter} must have room, or the request gets 503. Paths
+ *       matching {@code api.load-shedding.excluded-paths}, such as the streaming bulk and
+ *       payload endpoints, skip this step: their latency follows the size of what they
+ *       stream, not the load, so they would only drag the limit down.</li>
+ * </ol>
+ * Rejections cost no servlet time beyond this check, which keeps latency bounded for the
+ * requests that are admitted.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final String STARTED = AdmissionInterceptor.class.getName() + ".started";
+
+    private final RateLimiter rateLimiter;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final boolean rateLimitEnabled;
+
+    private final double clientRate;
+
+    private final int clientBurst;
+
+    private final double globalRate;
+
+    private final int globalBurst;
+
+    private final boolean sheddingEnabled;
+
+    private final List<String> sheddingExcludedPaths;
+
+    private final PathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Counter admitted;
+
+    private final Counter clientLimited;
+
+    private final Counter globalLimited;
+
+    private final Counter shed;
+
+    public AdmissionInterceptor(RateLimiter rateLimiter,
+                                ConcurrencyLimiter concurrencyLimiter,
+                                MeterRegistry meterRegistry,
+                                @Value("${api.rate-limit.enabled:false}") boolean rateLimitEnabled,
+                                @Value("${api.rate-limit.client.rate-per-second:100}") double clientRate,
+                                @Value("${api.rate-limit.client.burst:200}") int clientBurst,
+                                @Value("${api.rate-limit.global.rate-per-second:5000}") double globalRate,
+                                @Value("${api.rate-limit.global.burst:10000}") int globalBurst,
+                                @Value("${api.load-shedding.enabled:false}") boolean sheddingEnabled,
+                                @Value("${api.load-shedding.excluded-paths:/api/requests/bulk,/api/request/*/payload}") List<String> sheddingExcludedPaths) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimitEnabled = rateLimitEnabled;
+        this.clientRate = clientRate;
+        this.clientBurst = clientBurst;
+        this.globalRate = globalRate;
+        this.globalBurst = globalBurst;
+        this.sheddingEnabled = sheddingEnabled;
+        this.sheddingExcludedPaths = sheddingExcludedPaths;
+        this.admitted = outcome(meterRegistry, "admitted", "none");
+        this.clientLimited = outcome(meterRegistry, "rejected", "client_rate");
+        this.globalLimited = outcome(meterRegistry, "rejected", "global_rate");
+        this.shed = outcome(meterRegistry, "rejected", "concurrency");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            // Async dispatch of a request that was already admitted
+            return true;
+        }
+        if (rateLimitEnabled) {
+            long retryAfterMs = rateLimiter.tryAcquire("client:" + clientId(request), clientRate, clientBurst);
+            if (retryAfterMs > 0) {
+                clientLimited.increment();
+                return reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterMs);
+            }
+            retryAfterMs = rateLimiter.tryAcquire("global", globalRate, globalBurst);
+            if (retryAfterMs > 0) {
+                globalLimited.increment();
+                return reject(response, HttpStatus.TOO_MANY_REQUESTS, retryAfterMs);
+            }
+        }
+        if (sheddingEnabled && !isExcludedFromShedding(request)) {
+            if (!concurrencyLimiter.tryAcquire()) {
+                shed.increment();
+                return reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1000);
+            }
+            request.setAttribute(STARTED, System.nanoTime());
+        }
+        admitted.increment();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        // Runs once the response is complete, after the async dispatch for Mono and streaming handlers
+        Object started = request.getAttribute(STARTED);
+        if (started == null) {
+            return;
+        }
+        request.removeAttribute(STARTED);
+        int status = response.getStatus();
+        boolean overloaded = ex != null || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.GATEWAY_TIMEOUT.value();
+        concurrencyLimiter.release(System.nanoTime() - (long) started, overloaded);
+    }
+
+    private boolean isExcludedFromShedding(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        return sheddingExcludedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private static String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+
+    private static boolean reject(HttpServletResponse response, HttpStatus status, long retryAfterMs) {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(retryAfterMs + 999))));
+        return false;
+    }
+
+    private static Counter outcome(MeterRegistry meterRegistry, String outcome, String reason) {
+        return Counter.builder("api.admission.requests")
+                .description("API requests by admission decision")
+                .tag("outcome", outcome)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.api.admission;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit on requests in flight (AIMD). Each request that completes within
+ * {@code api.load-shedding.latency-threshold-ms} while the limit is at least half used raises
+ * the limit by one; each slower or failed request multiplies it by
+ * {@code api.load-shedding.backoff-ratio}. The limit therefore settles near the concurrency
+ * the backends sustain at the target latency, and requests beyond it are turned away at once
+ * instead of queueing and slowing everyone else down.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /** Written under {@code this}; read without locking when admitting. */
+    private volatile double limit;
+
+    public ConcurrencyLimiter(MeterRegistry meterRegistry,
+                              @Value("${api.load-shedding.initial-limit:64}") int initialLimit,
+                              @Value("${api.load-shedding.min-limit:8}") int minLimit,
+                              @Value("${api.load-shedding.max-limit:1024}") int maxLimit,
+                              @Value("${api.load-shedding.latency-threshold-ms:250}") long latencyThresholdMs,
+                              @Value("${api.load-shedding.backoff-ratio:0.9}") double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        Gauge.builder("api.admission.concurrency.limit", this, ConcurrencyLimiter::limit)
+                .description("Current adaptive limit on requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("api.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Admitted requests currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request if fewer than {@link #limit()} are in flight. Every {@code true}
+     * must be followed by exactly one {@link #release}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends an admitted request that took {@code latencyNanos}; {@code failed} marks
+     * responses that signal overload, such as timeouts or an unavailable dependency.
+     */
+    public void release(long latencyNanos, boolean failed) {
+        int wasInFlight = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (failed || latencyNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (wasInFlight * 2 >= limit) {
+                // Only grow while the limit is actually being used, so an idle service does not drift upwards
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    public double limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.api.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Distributed token buckets kept in Redis and updated by one atomic Lua script. To avoid a
+ * Redis round trip per request, each call to the script leases up to
+ * {@code api.rate-limit.lease-size} tokens, which this node then hands out locally until
+ * they run out or {@code api.rate-limit.lease-ttl-ms} passes. Once half the lease is spent,
+ * one caller tops it up again while the others keep spending what is left, so callers only
+ * wait on Redis when the lease is empty. A denial is likewise remembered until the bucket
+ * is due to have a token again. Across the cluster a bucket can therefore over-admit by at
+ * most one lease per node.
+ *
+ * <p>If Redis cannot be reached the request is admitted: rate limiting protects the
+ * service, and should not take it down along with Redis. The bucket then admits without
+ * asking Redis for {@code api.rate-limit.fail-open-ms}, so an outage does not add a failed
+ * call to every request.
+ */
+@Component
+public class RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final String KEY_PREFIX = "ratelimit:";
+
+    static final RedisScript<List> TOKEN_BUCKET =
+            RedisScript.of(new ClassPathResource("scripts/token_bucket.lua"), List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final int leaseSize;
+
+    private final long leaseTtlNanos;
+
+    private final long failOpenNanos;
+
+    /** Local view of each bucket; idle clients are forgotten. */
+    private final Cache<String, Lease> leases;
+
+    public RateLimiter(StringRedisTemplate stringRedisTemplate,
+                       @Value("${api.rate-limit.lease-size:10}") int leaseSize,
+                       @Value("${api.rate-limit.lease-ttl-ms:1000}") long leaseTtlMs,
+                       @Value("${api.rate-limit.fail-open-ms:1000}") long failOpenMs,
+                       @Value("${api.rate-limit.max-tracked-buckets:100000}") long maxTrackedBuckets) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.leaseSize = leaseSize;
+        this.leaseTtlNanos = TimeUnit.MILLISECONDS.toNanos(leaseTtlMs);
+        this.failOpenNanos = TimeUnit.MILLISECONDS.toNanos(failOpenMs);
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxTrackedBuckets)
+                .expireAfterAccess(Duration.ofMillis(Math.max(leaseTtlMs, 1000) * 10))
+                .build();
+    }
+
+    /**
+     * Takes one token from bucket {@code name}.
+     *
+     * @return 0 if the request is admitted, otherwise how many milliseconds to wait
+     */
+    public long tryAcquire(String name, double ratePerSecond, int burst) {
+        Lease lease = leases.get(name, key -> new Lease());
+        int capacity = Math.min(leaseSize, burst);
+        boolean admitted;
+        int requested;
+        lease.lock.lock();
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                if (now - lease.failOpenUntil < 0) {
+                    return 0;
+                }
+                if (lease.tokens > 0 && now - lease.expiresAt < 0) {
+                    lease.tokens--;
+                    if (lease.refilling || lease.tokens >= capacity / 2 || now - lease.deniedUntil < 0) {
+                        return 0;
+                    }
+                    // Top the lease up while the rest of it is still being spent
+                    admitted = true;
+                    break;
+                }
+                if (now - lease.deniedUntil < 0) {
+                    return Math.max(1, TimeUnit.NANOSECONDS.toMillis(lease.deniedUntil - now));
+                }
+                if (!lease.refilling) {
+                    lease.tokens = 0;
+                    admitted = false;
+                    break;
+                }
+                // Another caller is already asking Redis; its answer covers this one too
+                lease.refilled.awaitUninterruptibly();
+            }
+            lease.refilling = true;
+            requested = capacity - (int) lease.tokens;
+        } finally {
+            lease.lock.unlock();
+        }
+
+        long[] reply = null;
+        try {
+            reply = takeFromRedis(name, ratePerSecond, burst, requested);
+        } finally {
+            lease.lock.lock();
+            try {
+                lease.refilling = false;
+                lease.refilled.signalAll();
+                long now = System.nanoTime();
+                if (reply == null) {
+                    lease.failOpenUntil = now + failOpenNanos;
+                } else if (reply[0] > 0) {
+                    lease.tokens += admitted ? reply[0] : reply[0] - 1;
+                    lease.expiresAt = now + leaseTtlNanos;
+                } else {
+                    lease.deniedUntil = now + TimeUnit.MILLISECONDS.toNanos(reply[1]);
+                }
+            } finally {
+                lease.lock.unlock();
+            }
+        }
+        return admitted || reply == null || reply[0] > 0 ? 0 : Math.max(1, reply[1]);
+    }
+
+    private long[] takeFromRedis(String name, double ratePerSecond, int burst, int requested) {
+        try {
+            List<?> reply = stringRedisTemplate.execute(TOKEN_BUCKET, List.of(KEY_PREFIX + name),
+                    Double.toString(ratePerSecond), Integer.toString(burst), Integer.toString(requested));
+            if (reply == null || reply.size() < 2) {
+                return null;
+            }
+            return new long[]{((Number) reply.get(0)).longValue(), ((Number) reply.get(1)).longValue()};
+        } catch (RuntimeException e) {
+            log.warn("Rate limit check for {} failed, admitting for {} ms: {}",
+                    name, TimeUnit.NANOSECONDS.toMillis(failOpenNanos), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Guarded by {@link #lock}, which is never held while Redis is called; a ReentrantLock
+     * so virtual threads waiting for a refill are not pinned.
+     */
+    private static final class Lease {
+
+        final ReentrantLock lock = new ReentrantLock();
+
+        final Condition refilled = lock.newCondition();
+
+        /** Whether a caller is asking Redis for tokens. */
+        boolean refilling;
+
+        long tokens;
+
+        long expiresAt;
+
+        long deniedUntil = System.nanoTime();
+
+        long failOpenUntil = System.nanoTime();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.api.blob;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage for request payloads too large to keep inline in DynamoDB, Kafka and Redis.
+ * Those stores then hold only the reference returned by {@link #write}.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams {@code content} into the store as a new payload of {@code requestId} and
+     * returns the reference to store in its place. Every call returns a new reference;
+     * earlier payloads of the same request stay readable until {@link #delete deleted}.
+     *
+     * @throws PayloadTooLargeException if {@code content} exceeds the store's size limit
+     */
+    String write(String requestId, InputStream content) throws IOException;
+
+    /**
+     * Opens a stored payload for streaming, or returns {@code null} if {@code ref} does not
+     * exist.
+     */
+    Resource open(String ref) throws IOException;
+
+    /**
+     * Removes a stored payload. Does nothing if {@code ref} does not exist.
+     */
+    void delete(String ref) throws IOException;
+}
@@ -0,0 +1,114 @@
+package com.example.api.blob;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * {@link BlobStore} on the local filesystem, standing in for an object store such as S3.
+ * Every write goes to a new path, the SHA-256 of the request ID followed by a random
+ * suffix, so rewriting a request never touches the file its stored version still points
+ * to; the caller deletes that one once the new reference is committed. Uploads are copied
+ * in chunks of {@code blob.store.chunk-bytes} into a temporary file, synced, then
+ * atomically moved into place, so readers only ever see complete payloads.
+ *
+ * <p>Every node must see the same {@code blob.store.dir} (a shared volume) for payloads
+ * written on one node to be readable on another.
+ */
+@Component
+public class LocalBlobStore implements BlobStore {
+
+    /** References written before the random suffix was added are still accepted. */
+    private static final Pattern REF = Pattern.compile("[0-9a-f]{64}(-[0-9a-f]{32})?");
+
+    private final Path directory;
+
+    private final long chunkBytes;
+
+    private final long maxBytes;
+
+    public LocalBlobStore(@Value("${blob.store.dir:data/blobs}") String directory,
+                          @Value("${blob.store.chunk-bytes:1048576}") long chunkBytes,
+                          @Value("${blob.store.max-bytes:1073741824}") long maxBytes) throws IOException {
+        this.directory = Path.of(directory);
+        this.chunkBytes = chunkBytes;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(this.directory);
+    }
+
+    @Override
+    public String write(String requestId, InputStream content) throws IOException {
+        String ref = ref(requestId);
+        Path target = path(ref);
+        Files.createDirectories(target.getParent());
+        Path upload = Files.createTempFile(directory, "upload-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(upload, StandardOpenOption.WRITE);
+                 ReadableByteChannel in = Channels.newChannel(content)) {
+                long position = 0;
+                while (true) {
+                    // Reads from a blocking stream only return 0 at end of input
+                    long copied = out.transferFrom(in, position, chunkBytes);
+                    if (copied == 0) {
+                        break;
+                    }
+                    position += copied;
+                    if (position > maxBytes) {
+                        throw new PayloadTooLargeException("Payload of " + requestId + " exceeds " + maxBytes + " bytes");
+                    }
+                }
+                out.force(false);
+            }
+            Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+        return ref;
+    }
+
+    @Override
+    public Resource open(String ref) {
+        Path path = path(ref);
+        return Files.exists(path) ? new FileSystemResource(path) : null;
+    }
+
+    @Override
+    public void delete(String ref) throws IOException {
+        Files.deleteIfExists(path(ref));
+    }
+
+    private Path path(String ref) {
+        if (!REF.matcher(ref).matches()) {
+            throw new IllegalArgumentException("Malformed payload reference: " + ref);
+        }
+        // Fan out over 256 subdirectories so no single directory grows too large
+        return directory.resolve(ref.substring(0, 2)).resolve(ref);
+    }
+
+    private static String ref(String requestId) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha256.digest(requestId.getBytes(StandardCharsets.UTF_8)))
+                    + "-" + UUID.randomUUID().toString().replace("-", "");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.api.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Thread-safe count-min sketch over string keys. {@link #estimate} never under-counts a
+ * key; it over-counts by at most about {@code e / width} of all increments, with
+ * probability {@code 1 - e^-depth}. Memory is fixed at {@code width * depth} ints however
+ * many distinct keys are seen.
+ */
+final class CountMinSketch {
+
+    private final AtomicIntegerArray counters;
+
+    private final int width;
+
+    private final int depth;
+
+    CountMinSketch(int width, int depth) {
+        this.width = Math.max(1, width);
+        this.depth = Math.max(1, depth);
+        this.counters = new AtomicIntegerArray(this.width * this.depth);
+    }
+
+    /**
+     * Counts one occurrence of {@code key} and returns its new estimate.
+     */
+    int add(String key) {
+        long hash = BloomFilter.hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(h1, h2, row)));
+        }
+        return estimate;
+    }
+
+    int estimate(String key) {
+        long hash = BloomFilter.hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(h1, h2, row)));
+        }
+        return estimate;
+    }
+
+    void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    /** Column in {@code row}, derived from two halves of one hash as in {@link BloomFilter}. */
+    private int index(int h1, int h2, int row) {
+        int combined = h1 + (row + 1) * h2;
+        return row * width + (combined & Integer.MAX_VALUE) % width;
+    }
+}
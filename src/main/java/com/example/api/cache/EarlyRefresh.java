@@ -0,0 +1,67 @@
+package com.example.api.cache;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Probabilistic early expiration ("XFetch"): an entry is refreshed before its TTL
+ * runs out with a probability that grows as expiry approaches and as the cost of
+ * recomputing it grows, so hot keys are reloaded by one caller instead of expiring
+ * for everyone at once.
+ */
+@Component
+public class EarlyRefresh {
+
+    private final boolean enabled;
+
+    private final double beta;
+
+    /** Moving average of how long a reload from the backing store takes. */
+    private final AtomicLong recomputeNanos = new AtomicLong();
+
+    private final ThreadPoolExecutor executor;
+
+    public EarlyRefresh(@Value("${cache.early-refresh.enabled:false}") boolean enabled,
+                        @Value("${cache.early-refresh.beta:1.0}") double beta,
+                        @Value("${cache.early-refresh.threads:2}") int threads) {
+        this.enabled = enabled;
+        this.beta = beta;
+        // Refreshes are best effort: when the queue is full the entry simply expires as usual
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1024), runnable -> {
+                    Thread thread = new Thread(runnable, "early-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    public boolean shouldRefresh(long ageMillis, long ttlMillis) {
+        if (!enabled || ageMillis < 0 || ttlMillis <= 0) {
+            return false;
+        }
+        double deltaMillis = recomputeNanos.get() / 1_000_000.0;
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        return ageMillis - deltaMillis * beta * Math.log(random) >= ttlMillis;
+    }
+
+    public void recordRecompute(long nanos) {
+        recomputeNanos.updateAndGet(current -> current == 0 ? nanos : current + (nanos - current) / 8);
+    }
+
+    public void submit(Runnable refresh) {
+        executor.execute(refresh);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.api.cache;
+
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.model.ApiRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the request IDs that receive a disproportionate share of reads and pins them in
+ * memory, so a single viral ID is answered locally instead of hammering one Redis key and
+ * one DynamoDB partition.
+ *
+ * <p>Reads are counted in a pair of count-min sketches covering the current and previous
+ * {@code cache.hot-keys.window-ms}, so memory stays fixed however many IDs are read. An ID
+ * with at least {@code cache.hot-keys.threshold} reads over that sliding window joins the
+ * hot set, which holds the {@code cache.hot-keys.top-k} hottest such IDs and drops those
+ * that cool down at the end of each window.
+ *
+ * <p>Hot IDs are pinned: unlike near cache entries they are never evicted for size and
+ * never expire on the read path. Once a pinned copy is {@code cache.hot-keys.pin.refresh-ms}
+ * old, one reader per node is told to reload it in the background while every reader keeps
+ * getting the pinned copy. Writes replace or drop pinned copies through the near cache's
+ * invalidation channel, so pinning is only used when the near cache is enabled.
+ */
+@Component
+public class HotKeyCache {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeyCache.class);
+
+    /**
+     * A hot ID with its estimated reads over the sliding window.
+     */
+    public record HotKey(String requestId, long reads, boolean pinned) {
+    }
+
+    private static final class Pinned {
+
+        final ApiRequest apiRequest;
+
+        /** When this copy was loaded, or last handed out for refreshing. */
+        final AtomicLong refreshedAtNanos = new AtomicLong(System.nanoTime());
+
+        Pinned(ApiRequest apiRequest) {
+            this.apiRequest = apiRequest;
+        }
+    }
+
+    private final NearCache nearCache;
+
+    private final boolean enabled;
+
+    private final boolean pinEnabled;
+
+    private final long windowMs;
+
+    private final int threshold;
+
+    private final int topK;
+
+    private final long refreshNanos;
+
+    private volatile CountMinSketch current;
+
+    private volatile CountMinSketch previous;
+
+    private final Set<String> hot = ConcurrentHashMap.newKeySet();
+
+    /** Reads of the coldest hot ID when last checked; IDs at or below it need not take the lock. */
+    private volatile int coldestHotReads;
+
+    private final ReentrantLock admission = new ReentrantLock();
+
+    private final Cache<String, Pinned> pinned;
+
+    private final Counter pinnedHits;
+
+    private final ScheduledExecutorService windows = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-key-window");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotKeyCache(NearCache nearCache,
+                       MeterRegistry meterRegistry,
+                       @Value("${cache.hot-keys.enabled:true}") boolean enabled,
+                       @Value("${cache.hot-keys.window-ms:10000}") long windowMs,
+                       @Value("${cache.hot-keys.threshold:1000}") int threshold,
+                       @Value("${cache.hot-keys.top-k:32}") int topK,
+                       @Value("${cache.hot-keys.sketch-width:8192}") int sketchWidth,
+                       @Value("${cache.hot-keys.sketch-depth:4}") int sketchDepth,
+                       @Value("${cache.hot-keys.pin.enabled:true}") boolean pinEnabled,
+                       @Value("${cache.hot-keys.pin.refresh-ms:5000}") long refreshMs,
+                       @Value("${cache.hot-keys.pin.max-age-ms:60000}") long maxAgeMs) {
+        this.nearCache = nearCache;
+        this.enabled = enabled;
+        if (enabled && pinEnabled && !nearCache.broadcastsInvalidations()) {
+            log.warn("cache.hot-keys.pin.enabled ignored: pinned copies need the near cache's invalidation channel");
+        }
+        this.pinEnabled = enabled && pinEnabled && nearCache.broadcastsInvalidations();
+        this.windowMs = windowMs;
+        this.threshold = Math.max(1, threshold);
+        this.topK = topK;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMs);
+        this.current = new CountMinSketch(sketchWidth, sketchDepth);
+        this.previous = new CountMinSketch(sketchWidth, sketchDepth);
+        // A pinned copy whose refreshes keep failing is dropped after max-age-ms
+        this.pinned = Caffeine.newBuilder()
+                .maximumSize(Math.max(topK, 1))
+                .expireAfterWrite(Duration.ofMillis(maxAgeMs))
+                .build();
+
+        this.pinnedHits = Counter.builder(DependencyMetrics.CACHE_LOOKUPS)
+                .description("Cache lookups by tier and outcome")
+                .tag("tier", "pinned")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        Gauge.builder("api.cache.hot.keys", hot, Set::size)
+                .description("Request IDs currently read often enough to count as hot")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        windows.scheduleAtFixedRate(this::rotate, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        if (pinEnabled) {
+            // Written on another node: drop the copy, and the next read pins the new one
+            nearCache.addInvalidationListener(pinned::invalidate);
+        }
+    }
+
+    /**
+     * Counts a read of {@code requestId} and returns its pinned copy if it is hot and has
+     * one, otherwise {@code null}.
+     */
+    public ApiRequest get(String requestId) {
+        if (!enabled || !record(requestId) || !pinEnabled) {
+            return null;
+        }
+        Pinned entry = pinned.getIfPresent(requestId);
+        if (entry == null) {
+            return null;
+        }
+        pinnedHits.increment();
+        return entry.apiRequest;
+    }
+
+    /**
+     * Whether the caller should reload the pinned copy of {@code requestId}. Returns
+     * {@code true} to one caller per {@code cache.hot-keys.pin.refresh-ms}.
+     */
+    public boolean claimRefresh(String requestId) {
+        Pinned entry = pinned.getIfPresent(requestId);
+        if (entry == null) {
+            return false;
+        }
+        long now = System.nanoTime();
+        long refreshedAt = entry.refreshedAtNanos.get();
+        return now - refreshedAt >= refreshNanos && entry.refreshedAtNanos.compareAndSet(refreshedAt, now);
+    }
+
+    /**
+     * Pins {@code apiRequest}, replacing any older copy, if its ID is hot. Call with every
+     * value freshly loaded or written.
+     */
+    public void pin(ApiRequest apiRequest) {
+        if (pinEnabled && hot.contains(apiRequest.getId())) {
+            pinned.put(apiRequest.getId(), new Pinned(apiRequest));
+        }
+    }
+
+    /**
+     * The hot IDs, hottest first.
+     */
+    public List<HotKey> topKeys() {
+        return hot.stream()
+                .map(requestId -> new HotKey(requestId, reads(requestId), pinned.getIfPresent(requestId) != null))
+                .sorted(Comparator.comparingLong(HotKey::reads).reversed())
+                .toList();
+    }
+
+    private boolean record(String requestId) {
+        int reads = current.add(requestId) + previous.estimate(requestId);
+        if (hot.contains(requestId)) {
+            return true;
+        }
+        if (reads < threshold || (hot.size() >= topK && reads <= coldestHotReads)) {
+            return false;
+        }
+        return admit(requestId, reads);
+    }
+
+    private boolean admit(String requestId, int reads) {
+        admission.lock();
+        try {
+            if (hot.contains(requestId)) {
+                return true;
+            }
+            if (hot.size() >= topK) {
+                String coldest = null;
+                int coldestReads = Integer.MAX_VALUE;
+                for (String hotId : hot) {
+                    int hotReads = reads(hotId);
+                    if (hotReads < coldestReads) {
+                        coldest = hotId;
+                        coldestReads = hotReads;
+                    }
+                }
+                coldestHotReads = coldestReads;
+                if (coldest == null || coldestReads >= reads) {
+                    return false;
+                }
+                remove(coldest);
+            }
+            hot.add(requestId);
+            log.debug("Request {} is hot with about {} reads in the last {} ms", requestId, reads, 2 * windowMs);
+            return true;
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    /**
+     * Starts a new window. The oldest sketch is cleared and reused, and hot IDs whose reads
+     * over the window just ended fell below the threshold are dropped.
+     */
+    void rotate() {
+        CountMinSketch expired = previous;
+        expired.clear();
+        previous = current;
+        current = expired;
+
+        admission.lock();
+        try {
+            int coldestReads = Integer.MAX_VALUE;
+            for (String hotId : hot) {
+                int hotReads = reads(hotId);
+                if (hotReads < threshold) {
+                    remove(hotId);
+                } else {
+                    coldestReads = Math.min(coldestReads, hotReads);
+                }
+            }
+            coldestHotReads = hot.isEmpty() ? 0 : coldestReads;
+        } finally {
+            admission.unlock();
+        }
+    }
+
+    private int reads(String requestId) {
+        return current.estimate(requestId) + previous.estimate(requestId);
+    }
+
+    private void remove(String requestId) {
+        hot.remove(requestId);
+        pinned.invalidate(requestId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        windows.shutdownNow();
+    }
+}
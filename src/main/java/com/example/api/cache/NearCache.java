@@ -0,0 +1,223 @@
+package com.example.api.cache;
+
+import com.example.api.model.ApiRequest;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Bounded in-process cache that sits in front of Redis for hot {@link ApiRequest}s.
+ * Entries are evicted by size (W-TinyLFU admission) and by age; writes on any node
+ * are broadcast over a Redis pub/sub channel so every other node drops its copy.
+ * Entries that age out or are evicted for size are kept a while longer as a stale copy,
+ * to answer reads while the backing stores are failing.
+ */
+@Component
+public class NearCache implements MessageListener {
+
+    private static final String SEPARATOR = "|";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final boolean enabled;
+
+    private final String channel;
+
+    private final long expireAfterWriteMs;
+
+    private final Cache<String, ApiRequest> cache;
+
+    private final Cache<String, ApiRequest> stale;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final List<Consumer<String>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    public NearCache(StringRedisTemplate stringRedisTemplate,
+                     RedisMessageListenerContainer listenerContainer,
+                     MeterRegistry meterRegistry,
+                     @Value("${cache.near.enabled:true}") boolean enabled,
+                     @Value("${cache.near.maximum-size:10000}") long maximumSize,
+                     @Value("${cache.near.expire-after-write-ms:30000}") long expireAfterWriteMs,
+                     @Value("${cache.near.stale-ttl-ms:600000}") long staleTtlMs,
+                     @Value("${cache.near.invalidation-channel:api-request-invalidations}") String channel) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.enabled = enabled;
+        this.channel = channel;
+        this.expireAfterWriteMs = expireAfterWriteMs;
+        this.stale = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(staleTtlMs))
+                .build();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .evictionListener((String requestId, ApiRequest apiRequest, RemovalCause cause) -> {
+                    if (requestId != null && apiRequest != null
+                            && (cause == RemovalCause.EXPIRED || cause == RemovalCause.SIZE)) {
+                        stale.put(requestId, apiRequest);
+                    }
+                })
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "apiRequestNearCache");
+        if (enabled) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+        }
+    }
+
+    public ApiRequest get(String requestId) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(requestId);
+    }
+
+    public void put(String requestId, ApiRequest apiRequest) {
+        if (enabled) {
+            cache.put(requestId, apiRequest);
+        }
+    }
+
+    public void invalidate(String requestId) {
+        cache.invalidate(requestId);
+        // Another node wrote a newer value, so the old one is no longer a safe fallback
+        stale.invalidate(requestId);
+    }
+
+    /**
+     * The last value this node held for {@code requestId}, even if it has expired, or
+     * {@code null}. Only for use when the current value cannot be loaded.
+     */
+    public ApiRequest getStale(String requestId) {
+        if (!enabled) {
+            return null;
+        }
+        ApiRequest apiRequest = cache.getIfPresent(requestId);
+        if (apiRequest != null) {
+            return apiRequest;
+        }
+        // Expired entries reach the stale copy when Caffeine next runs its maintenance
+        cache.cleanUp();
+        return stale.getIfPresent(requestId);
+    }
+
+    /**
+     * Tells every other node that {@code requestId} changed. The local entry is kept,
+     * since the caller has just written the current value.
+     */
+    public void publishInvalidation(String requestId) {
+        if (enabled) {
+            stringRedisTemplate.convertAndSend(channel, nodeId + SEPARATOR + requestId);
+        }
+    }
+
+    /**
+     * Same as {@link #publishInvalidation(String)} for many keys, sent in one pipeline.
+     */
+    public void publishInvalidations(Collection<String> requestIds) {
+        if (!enabled || requestIds.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String requestId : requestIds) {
+                stringConnection.publish(channel, nodeId + SEPARATOR + requestId);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drops {@code requestIds} on this node and every other, for requests changed outside
+     * the service's own write path. Unlike {@link #publishInvalidations}, the local entries
+     * go too and local listeners are told, since this node holds no newer value either.
+     */
+    public void invalidateEverywhere(Collection<String> requestIds) {
+        requestIds.forEach(this::changed);
+        publishInvalidations(requestIds);
+    }
+
+    private void changed(String requestId) {
+        invalidate(requestId);
+        invalidationListeners.forEach(listener -> listener.accept(requestId));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return;
+        }
+        if (!body.substring(0, separator).equals(nodeId)) {
+            changed(body.substring(separator + 1));
+        }
+    }
+
+    /**
+     * Registers {@code listener} to be told the ID of every request written on another node.
+     * Only called when {@link #broadcastsInvalidations()} is {@code true}.
+     */
+    public void addInvalidationListener(Consumer<String> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    /**
+     * Whether writes are broadcast to, and received from, the other nodes.
+     */
+    public boolean broadcastsInvalidations() {
+        return enabled;
+    }
+
+    /**
+     * Milliseconds since {@code requestId} was written, or -1 when it is not cached.
+     */
+    public long ageMillis(String requestId) {
+        return cache.policy().expireAfterWrite()
+                .map(expiration -> expiration.ageOf(requestId, TimeUnit.MILLISECONDS).orElse(-1L))
+                .orElse(-1L);
+    }
+
+    public long ttlMillis() {
+        return expireAfterWriteMs;
+    }
+
+    /**
+     * Up to {@code limit} cached IDs, most frequently read first, going by the cache's own
+     * frequency sketch. Used to snapshot the hot set for warming up the next start.
+     */
+    public List<String> hottestIds(int limit) {
+        if (!enabled) {
+            return List.of();
+        }
+        return cache.policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).keySet()))
+                .orElse(List.of());
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.api.cache;
+
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.repository.ApiRequestRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers IDs that DynamoDB recently reported as missing, so repeated lookups for them
+ * (retrying clients, scanners) are answered in memory instead of costing a read each.
+ * Entries live for {@code cache.negative.ttl-ms} and are dropped as soon as the ID is
+ * written on this node or, through {@link NearCache}'s invalidation channel, on another.
+ *
+ * <p>With {@code cache.negative.bloom.enabled=true} a Bloom filter of every stored ID is
+ * also kept, built by scanning the table and rebuilt periodically. The filter never
+ * answers a lookup by itself, since an ID written on another node reaches it only when
+ * the invalidation arrives, if ever. It decides which misses are cached instead: a miss
+ * for an ID the filter has seen (a write this node heard about, or an eventually
+ * consistent read that lagged a write) is not remembered, so the next lookup reads
+ * DynamoDB again. The filter is fed by the invalidation channel, so it is only used when
+ * the near cache is enabled.
+ */
+@Component
+public class NegativeCache {
+
+    private static final Logger log = LoggerFactory.getLogger(NegativeCache.class);
+
+    private static final int WRITE_STRIPES = 64;
+
+    private final boolean enabled;
+
+    private final boolean bloomEnabled;
+
+    private final long bloomExpectedIds;
+
+    private final double bloomFalsePositiveProbability;
+
+    private final long bloomRebuildIntervalMs;
+
+    private final Cache<String, Boolean> absent;
+
+    /**
+     * Write counters per ID stripe. A lookup that saw no item only caches the absence if no
+     * write to its stripe happened meanwhile, so a racing save is never masked.
+     */
+    private final AtomicLongArray writes = new AtomicLongArray(WRITE_STRIPES);
+
+    /** Filter being answered from; {@code null} until the first scan completes. */
+    private volatile BloomFilter bloom;
+
+    /** Filter being built by a scan in progress, which must also see concurrent writes. */
+    private volatile BloomFilter building;
+
+    private final ApiRequestRepository apiRequestRepository;
+
+    private final NearCache nearCache;
+
+    private final ScheduledExecutorService rebuilder;
+
+    private final Counter cacheHits;
+
+    private final Counter bloomAbsent;
+
+    private final Counter bloomPresent;
+
+    public NegativeCache(ApiRequestRepository apiRequestRepository,
+                         NearCache nearCache,
+                         MeterRegistry meterRegistry,
+                         @Value("${cache.negative.enabled:true}") boolean enabled,
+                         @Value("${cache.negative.ttl-ms:5000}") long ttlMs,
+                         @Value("${cache.negative.maximum-size:100000}") long maximumSize,
+                         @Value("${cache.negative.bloom.enabled:false}") boolean bloomEnabled,
+                         @Value("${cache.negative.bloom.expected-ids:1000000}") long bloomExpectedIds,
+                         @Value("${cache.negative.bloom.false-positive-probability:0.01}") double bloomFalsePositiveProbability,
+                         @Value("${cache.negative.bloom.rebuild-interval-ms:3600000}") long bloomRebuildIntervalMs) {
+        this.apiRequestRepository = apiRequestRepository;
+        this.nearCache = nearCache;
+        this.enabled = enabled;
+        if (enabled && bloomEnabled && !nearCache.broadcastsInvalidations()) {
+            log.warn("cache.negative.bloom.enabled ignored: the Bloom filter needs the near cache's invalidation channel");
+        }
+        this.bloomEnabled = enabled && bloomEnabled && nearCache.broadcastsInvalidations();
+        this.bloomExpectedIds = bloomExpectedIds;
+        this.bloomFalsePositiveProbability = bloomFalsePositiveProbability;
+        this.bloomRebuildIntervalMs = bloomRebuildIntervalMs;
+        this.absent = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.rebuilder = !this.bloomEnabled ? null : Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bloom-filter-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CaffeineCacheMetrics.monitor(meterRegistry, absent, "apiRequestNegativeCache");
+        this.cacheHits = lookups(meterRegistry, "negative", "hit");
+        this.bloomAbsent = lookups(meterRegistry, "bloom", "absent");
+        this.bloomPresent = lookups(meterRegistry, "bloom", "present");
+        Gauge.builder("api.cache.bloom.ready", this, negativeCache -> negativeCache.bloom != null ? 1 : 0)
+                .description("1 once the Bloom filter of stored IDs has been built")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            nearCache.addInvalidationListener(this::recordPresent);
+        }
+        if (bloomEnabled) {
+            rebuilder.scheduleWithFixedDelay(this::rebuildBloomFilter, 0, bloomRebuildIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Whether {@code requestId} is known not to exist, so the lookup can be skipped.
+     */
+    public boolean isKnownAbsent(String requestId) {
+        if (!enabled) {
+            return false;
+        }
+        if (absent.getIfPresent(requestId) != null) {
+            cacheHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Token to take before looking {@code requestId} up and pass to
+     * {@link #recordAbsent(String, long)} if the lookup found nothing.
+     */
+    public long lookupToken(String requestId) {
+        return writes.get(stripe(requestId));
+    }
+
+    /**
+     * Remembers that a lookup which started at {@code token} found no item, unless
+     * {@code requestId} was written since or the Bloom filter has seen it stored.
+     */
+    public void recordAbsent(String requestId, long token) {
+        if (!enabled || writes.get(stripe(requestId)) != token) {
+            return;
+        }
+        BloomFilter filter = bloom;
+        if (filter != null) {
+            if (filter.mightContain(requestId)) {
+                bloomPresent.increment();
+                return;
+            }
+            bloomAbsent.increment();
+        }
+        absent.put(requestId, Boolean.TRUE);
+    }
+
+    /**
+     * Records that {@code requestId} now exists. Call after the item is stored.
+     */
+    public void recordPresent(String requestId) {
+        if (!enabled) {
+            return;
+        }
+        writes.incrementAndGet(stripe(requestId));
+        BloomFilter inProgress = building;
+        if (inProgress != null) {
+            inProgress.put(requestId);
+        }
+        BloomFilter filter = bloom;
+        if (filter != null) {
+            filter.put(requestId);
+        }
+        absent.invalidate(requestId);
+    }
+
+    void rebuildBloomFilter() {
+        BloomFilter filter = new BloomFilter(bloomExpectedIds, bloomFalsePositiveProbability);
+        // Writes from here on go to the new filter as well, so none are lost while scanning
+        building = filter;
+        long start = System.nanoTime();
+        long[] count = new long[1];
+        try {
+            apiRequestRepository.scanIds(requestId -> {
+                filter.put(requestId);
+                count[0]++;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Bloom filter rebuild failed, keeping the previous filter: {}", e.getMessage());
+            return;
+        } finally {
+            building = null;
+        }
+        if (count[0] > bloomExpectedIds) {
+            log.warn("Table holds {} IDs, more than cache.negative.bloom.expected-ids={}; false positives will exceed {}",
+                    count[0], bloomExpectedIds, bloomFalsePositiveProbability);
+        }
+        bloom = filter;
+        log.info("Built Bloom filter of {} IDs ({} KiB) in {} ms", count[0], filter.sizeInBytes() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static int stripe(String requestId) {
+        return (requestId.hashCode() & Integer.MAX_VALUE) % WRITE_STRIPES;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder(DependencyMetrics.CACHE_LOOKUPS)
+                .description("Cache lookups by tier and outcome")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.api.cache;
+
+import com.example.api.model.ApiRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Multi-key Redis reads and writes in one round trip. Keys are split into chunks of
+ * {@code redis.batch.size} so no single MGET holds the Redis event loop for long, and the
+ * chunks are sent in one pipeline, which the connection factory flushes in batches.
+ */
+@Component
+public class RedisBatchExecutor {
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisCachePolicy cachePolicy;
+
+    private final int batchSize;
+
+    public RedisBatchExecutor(RedisTemplate<String, Object> redisTemplate,
+                              RedisCachePolicy cachePolicy,
+                              @Value("${redis.batch.size:500}") int batchSize) {
+        this.redisTemplate = redisTemplate;
+        this.cachePolicy = cachePolicy;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Values for {@code keys}, in the same order, with {@code null} for keys that are not
+     * cached.
+     */
+    public List<Object> getAll(List<String> keys) {
+        if (keys.size() <= batchSize) {
+            List<Object> values = redisTemplate.opsForValue().multiGet(keys);
+            return values == null ? nulls(keys.size()) : values;
+        }
+
+        List<Object> chunks = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                for (int from = 0; from < keys.size(); from += batchSize) {
+                    redisOperations.opsForValue().multiGet(keys.subList(from, Math.min(from + batchSize, keys.size())));
+                }
+                return null;
+            }
+        });
+
+        List<Object> values = new ArrayList<>(keys.size());
+        for (Object chunk : chunks) {
+            values.addAll((List<?>) chunk);
+        }
+        return values;
+    }
+
+    /**
+     * Writes every request under its ID in one pipeline, following {@link RedisCachePolicy}.
+     */
+    public void setAll(Collection<ApiRequest> apiRequests) {
+        if (apiRequests.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                for (ApiRequest apiRequest : apiRequests) {
+                    cachePolicy.write(redisOperations, apiRequest);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * The first {@code length} bytes of each key's value, in the same order, with an empty
+     * array for keys that are not cached. Sent as GETRANGEs in one pipeline, so entries'
+     * headers can be checked without transferring their payloads.
+     */
+    public List<byte[]> getPrefixes(List<String> keys, int length) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.stringCommands().getRange(redisTemplate.getStringSerializer().serialize(key), 0, length - 1);
+            }
+            return null;
+        }, null);
+        List<byte[]> prefixes = new ArrayList<>(keys.size());
+        for (Object reply : replies) {
+            prefixes.add(reply instanceof byte[] bytes ? bytes : new byte[0]);
+        }
+        return prefixes;
+    }
+
+    /**
+     * Deletes {@code keys}, {@code redis.batch.size} per DEL, in one pipeline.
+     */
+    public void deleteAll(List<String> keys) {
+        if (keys.size() <= batchSize) {
+            if (!keys.isEmpty()) {
+                redisTemplate.delete(keys);
+            }
+            return;
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> redisOperations = (RedisOperations<String, Object>) operations;
+                for (int from = 0; from < keys.size(); from += batchSize) {
+                    redisOperations.delete(keys.subList(from, Math.min(from + batchSize, keys.size())));
+                }
+                return null;
+            }
+        });
+    }
+
+    private static List<Object> nulls(int size) {
+        List<Object> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            values.add(null);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.api.cache;
+
+import com.example.api.model.ApiRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How {@link ApiRequest}s are kept in Redis. Every entry expires after
+ * {@code cache.redis.ttl-ms}, spread by up to {@code cache.redis.ttl-jitter} either way so
+ * entries written together do not all expire together. Requests whose payload exceeds
+ * {@code cache.redis.max-payload-bytes} are not cached, so a few large values cannot crowd
+ * out many small ones. With {@code cache.redis.sliding-expiration=true}, single-key reads
+ * also push the entry's expiry back, keeping hot keys cached while cold ones age out.
+ */
+@Component
+public class RedisCachePolicy {
+
+    private final long ttlMs;
+
+    private final double ttlJitter;
+
+    private final int maxPayloadBytes;
+
+    private final boolean slidingExpiration;
+
+    private final Counter oversized;
+
+    public RedisCachePolicy(MeterRegistry meterRegistry,
+                            @Value("${cache.redis.ttl-ms:3600000}") long ttlMs,
+                            @Value("${cache.redis.ttl-jitter:0.1}") double ttlJitter,
+                            @Value("${cache.redis.max-payload-bytes:65536}") int maxPayloadBytes,
+                            @Value("${cache.redis.sliding-expiration:false}") boolean slidingExpiration) {
+        if (ttlJitter < 0 || ttlJitter >= 1) {
+            throw new IllegalArgumentException("cache.redis.ttl-jitter must be in [0, 1): " + ttlJitter);
+        }
+        this.ttlMs = ttlMs;
+        this.ttlJitter = ttlJitter;
+        this.maxPayloadBytes = maxPayloadBytes;
+        this.slidingExpiration = slidingExpiration;
+        this.oversized = Counter.builder("api.cache.redis.oversized")
+                .description("Writes not cached in Redis because the payload exceeded cache.redis.max-payload-bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Expiry for an entry written now, or {@code null} if entries do not expire.
+     */
+    public Duration ttl() {
+        if (ttlMs <= 0) {
+            return null;
+        }
+        long spread = (long) (ttlMs * ttlJitter);
+        long jitter = spread == 0 ? 0 : ThreadLocalRandom.current().nextLong(-spread, spread + 1);
+        return Duration.ofMillis(ttlMs + jitter);
+    }
+
+    /**
+     * Whether {@code apiRequest} is small enough to cache. Counts the ones that are not.
+     */
+    public boolean isCacheable(ApiRequest apiRequest) {
+        if (maxPayloadBytes <= 0 || apiRequest.getPayload() == null
+                || utf8Length(apiRequest.getPayload()) <= maxPayloadBytes) {
+            return true;
+        }
+        oversized.increment();
+        return false;
+    }
+
+    public boolean slidingExpiration() {
+        return slidingExpiration;
+    }
+
+    /**
+     * Reads {@code requestId}, refreshing its expiry when sliding expiration is on.
+     */
+    public Object read(RedisOperations<String, Object> operations, String requestId) {
+        Duration ttl = slidingExpiration ? ttl() : null;
+        return ttl != null
+                ? operations.opsForValue().getAndExpire(requestId, ttl)
+                : operations.opsForValue().get(requestId);
+    }
+
+    /**
+     * Caches {@code apiRequest} under its ID with a jittered expiry. An oversized request
+     * deletes the key instead, so an older, smaller version is not left behind.
+     */
+    public void write(RedisOperations<String, Object> operations, ApiRequest apiRequest) {
+        if (!isCacheable(apiRequest)) {
+            operations.delete(apiRequest.getId());
+            return;
+        }
+        Duration ttl = ttl();
+        if (ttl != null) {
+            operations.opsForValue().set(apiRequest.getId(), apiRequest, ttl);
+        } else {
+            operations.opsForValue().set(apiRequest.getId(), apiRequest);
+        }
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x800 && !Character.isSurrogate(c)) {
+                length += 2;
+            } else if (c >= 0x80) {
+                // Two-byte chars and each half of a surrogate pair (4 bytes per pair)
+                length += 1;
+            }
+        }
+        return length;
+    }
+}
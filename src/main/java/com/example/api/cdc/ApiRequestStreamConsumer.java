@@ -0,0 +1,410 @@
+package com.example.api.cdc;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestSchema;
+import com.example.api.repository.ShardedKeys;
+import com.example.api.service.ApiService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.ExpiredIteratorException;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.model.TrimmedDataAccessException;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tails the DynamoDB stream of {@code dynamodb.table-name}, or of
+ * {@code dynamodb.sharded.table-name} with {@code dynamodb.layout=sharded}, and evicts the
+ * cached copy of every request changed there, so writes that bypass {@link ApiService},
+ * such as other producers or manual fixes, no longer linger in Redis and near caches until
+ * their TTL.
+ *
+ * <p>Only the node holding the {@link LeaderLease} reads the stream. Shards are read in
+ * order, a child only after its parent is finished, so changes to one item are applied in
+ * the order they were made. Each page of up to {@code cache.cdc.batch-size} records is
+ * evicted with {@link ApiService#evictChanged} in one batch, and only then checkpointed in
+ * {@link StreamCheckpoints}; after a crash or a lease change the last page is applied
+ * again, which evicting makes harmless.
+ *
+ * <p>Entries are evicted rather than rewritten from the stream image, since an image read
+ * late could overwrite a newer value the service has cached since. Redis entries already
+ * at the image's version are left alone, so the service's own writes cost no extra miss.
+ * A version is only trusted when the stream's old image, if it has one, carries a
+ * different version: a writer that changes an item without a new version is still caught.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.cdc.enabled", havingValue = "true")
+public class ApiRequestStreamConsumer {
+
+    private static final Logger log = LoggerFactory.getLogger(ApiRequestStreamConsumer.class);
+
+    /** Reads per shard are capped by DynamoDB Streams; stay under five a second. */
+    private static final long BUSY_READ_INTERVAL_MS = 250;
+
+    /** Position within one shard; only touched by the stream thread. */
+    static final class ShardState {
+
+        final String shardId;
+
+        final String parentShardId;
+
+        /** Read from the shard's start rather than {@code cache.cdc.initial-position}. */
+        boolean fromStart;
+
+        String checkpoint;
+
+        String iterator;
+
+        long nextReadNanos = System.nanoTime();
+
+        ShardState(String shardId, String parentShardId) {
+            this.shardId = shardId;
+            this.parentShardId = parentShardId;
+        }
+
+        boolean finished() {
+            return StreamCheckpoints.SHARD_END.equals(checkpoint);
+        }
+    }
+
+    private final DynamoDbStreamsClient streamsClient;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    private final ApiService apiService;
+
+    private final LeaderLease lease;
+
+    private final StreamCheckpoints checkpoints;
+
+    private final String tableName;
+
+    private volatile String streamArn;
+
+    private final ShardIteratorType initialPosition;
+
+    private final int batchSize;
+
+    private final long pollIntervalMs;
+
+    private final long shardRefreshNanos;
+
+    /** Shards in the order DynamoDB lists them, which puts parents before their children. */
+    private final Map<String, ShardState> shards = new LinkedHashMap<>();
+
+    private long shardsRefreshedAtNanos;
+
+    private final Counter records;
+
+    private final Counter evictions;
+
+    private final AtomicLong lagMs = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    private final Thread thread = new Thread(this::run, "dynamodb-stream");
+
+    public ApiRequestStreamConsumer(DynamoDbStreamsClient streamsClient,
+                                    DynamoDbClient dynamoDbClient,
+                                    ApiService apiService,
+                                    LeaderLease lease,
+                                    StreamCheckpoints checkpoints,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${dynamodb.table-name}") String tableName,
+                                    @Value("${dynamodb.layout:single}") String layout,
+                                    @Value("${dynamodb.sharded.table-name:ApiRequestShardedTable}") String shardedTableName,
+                                    @Value("${cache.cdc.stream-arn:}") String streamArn,
+                                    @Value("${cache.cdc.initial-position:LATEST}") String initialPosition,
+                                    @Value("${cache.cdc.batch-size:1000}") int batchSize,
+                                    @Value("${cache.cdc.poll-interval-ms:1000}") long pollIntervalMs,
+                                    @Value("${cache.cdc.shard-refresh-ms:60000}") long shardRefreshMs) {
+        this.streamsClient = streamsClient;
+        this.dynamoDbClient = dynamoDbClient;
+        this.apiService = apiService;
+        this.lease = lease;
+        this.checkpoints = checkpoints;
+        this.tableName = "sharded".equals(layout) ? shardedTableName : tableName;
+        this.streamArn = streamArn.isBlank() ? null : streamArn;
+        this.initialPosition = ShardIteratorType.fromValue(initialPosition);
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.shardRefreshNanos = TimeUnit.MILLISECONDS.toNanos(shardRefreshMs);
+        this.thread.setDaemon(true);
+
+        this.records = Counter.builder("api.cdc.records")
+                .description("Stream records applied to the caches")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("api.cdc.evictions")
+                .description("Cached requests evicted because the stream reported a change")
+                .register(meterRegistry);
+        Gauge.builder("api.cdc.lag", lagMs, AtomicLong::get)
+                .description("Milliseconds between a change and its eviction, for the last page read")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("api.cdc.leader", lease, leaderLease -> leaderLease.isHeld() ? 1 : 0)
+                .description("1 while this node holds the stream lease and applies changes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        thread.start();
+    }
+
+    private void run() {
+        while (running) {
+            long waitMs;
+            try {
+                waitMs = poll();
+            } catch (RuntimeException e) {
+                log.warn("Reading the stream of {} failed, retrying: {}", tableName, e.getMessage());
+                waitMs = pollIntervalMs;
+            }
+            try {
+                Thread.sleep(waitMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the next page of every shard that is due, if this node holds the lease.
+     *
+     * @return milliseconds until a shard is next due
+     */
+    long poll() {
+        if (!lease.tryAcquire()) {
+            // Whoever holds the lease now moves the checkpoints; start over from them if it comes back
+            shards.clear();
+            return pollIntervalMs;
+        }
+        if (shards.isEmpty() || System.nanoTime() - shardsRefreshedAtNanos >= shardRefreshNanos) {
+            refreshShards();
+        }
+
+        long waitNanos = TimeUnit.MILLISECONDS.toNanos(pollIntervalMs);
+        for (ShardState shard : List.copyOf(shards.values())) {
+            if (!isReady(shard)) {
+                continue;
+            }
+            long dueInNanos = shard.nextReadNanos - System.nanoTime();
+            if (dueInNanos <= 0) {
+                if (!lease.tryAcquire() || !read(shard)) {
+                    shards.clear();
+                    return pollIntervalMs;
+                }
+                dueInNanos = shard.nextReadNanos - System.nanoTime();
+            }
+            waitNanos = Math.min(waitNanos, dueInNanos);
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    /**
+     * Lists the stream's shards, picking up shards created by splits and dropping those
+     * that have aged out, along with their checkpoints.
+     */
+    void refreshShards() {
+        boolean initial = shards.isEmpty();
+        Map<String, String> saved = checkpoints.load();
+        Set<String> listed = new HashSet<>();
+        String exclusiveStartShardId = null;
+        do {
+            String startShardId = exclusiveStartShardId;
+            DescribeStreamResponse response = streamsClient.describeStream(request -> request
+                    .streamArn(streamArn())
+                    .exclusiveStartShardId(startShardId));
+            for (Shard shard : response.streamDescription().shards()) {
+                listed.add(shard.shardId());
+                if (!shards.containsKey(shard.shardId())) {
+                    ShardState state = new ShardState(shard.shardId(), shard.parentShardId());
+                    state.checkpoint = saved.get(shard.shardId());
+                    // A shard appearing after the first listing, or whose parent is read here, is read in full
+                    state.fromStart = !initial || (state.parentShardId != null && shards.containsKey(state.parentShardId));
+                    shards.put(shard.shardId(), state);
+                }
+            }
+            exclusiveStartShardId = response.streamDescription().lastEvaluatedShardId();
+        } while (exclusiveStartShardId != null);
+
+        shards.keySet().retainAll(listed);
+        for (String shardId : saved.keySet()) {
+            if (!listed.contains(shardId)) {
+                checkpoints.remove(shardId);
+            }
+        }
+        shardsRefreshedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * A shard may be read once its parent is finished or no longer in the stream.
+     */
+    private boolean isReady(ShardState shard) {
+        if (shard.finished()) {
+            return false;
+        }
+        ShardState parent = shard.parentShardId == null ? null : shards.get(shard.parentShardId);
+        return parent == null || parent.finished();
+    }
+
+    /**
+     * Reads and applies one page of {@code shard}.
+     *
+     * @return {@code false} if the lease was lost while checkpointing
+     */
+    boolean read(ShardState shard) {
+        GetRecordsResponse response;
+        try {
+            if (shard.iterator == null) {
+                shard.iterator = streamsClient.getShardIterator(iteratorRequest(shard)).shardIterator();
+            }
+            String iterator = shard.iterator;
+            response = streamsClient.getRecords(request -> request.shardIterator(iterator).limit(batchSize));
+        } catch (ExpiredIteratorException e) {
+            shard.iterator = null;
+            return true;
+        } catch (TrimmedDataAccessException e) {
+            log.warn("Shard {} of {} was trimmed past its checkpoint; changes in between were not evicted",
+                    shard.shardId, tableName);
+            shard.checkpoint = null;
+            shard.fromStart = true;
+            shard.iterator = null;
+            return true;
+        }
+
+        List<Record> page = response.records();
+        if (page.isEmpty()) {
+            lagMs.set(0);
+        } else {
+            evictions.increment(apiService.evictChanged(changes(page), removed(page)));
+            records.increment(page.size());
+            StreamRecord last = page.get(page.size() - 1).dynamodb();
+            if (last.approximateCreationDateTime() != null) {
+                lagMs.set(Math.max(0, System.currentTimeMillis() - last.approximateCreationDateTime().toEpochMilli()));
+            }
+            if (!checkpoints.save(shard.shardId, last.sequenceNumber())) {
+                return false;
+            }
+            shard.checkpoint = last.sequenceNumber();
+        }
+
+        shard.iterator = response.nextShardIterator();
+        if (shard.iterator == null) {
+            if (!checkpoints.save(shard.shardId, StreamCheckpoints.SHARD_END)) {
+                return false;
+            }
+            shard.checkpoint = StreamCheckpoints.SHARD_END;
+            log.debug("Finished shard {} of {}", shard.shardId, tableName);
+        }
+        shard.nextReadNanos = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(page.isEmpty() ? pollIntervalMs : BUSY_READ_INTERVAL_MS);
+        return true;
+    }
+
+    private GetShardIteratorRequest iteratorRequest(ShardState shard) {
+        GetShardIteratorRequest.Builder request = GetShardIteratorRequest.builder()
+                .streamArn(streamArn())
+                .shardId(shard.shardId);
+        if (shard.checkpoint != null) {
+            return request.shardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER)
+                    .sequenceNumber(shard.checkpoint)
+                    .build();
+        }
+        return request.shardIteratorType(shard.fromStart ? ShardIteratorType.TRIM_HORIZON : initialPosition).build();
+    }
+
+    /**
+     * The IDs changed in {@code page}, each with the version its last change left it at,
+     * or {@code null} if it was deleted or the version cannot be trusted.
+     */
+    static Map<String, Long> changes(List<Record> page) {
+        Map<String, Long> changes = new LinkedHashMap<>();
+        for (Record record : page) {
+            StreamRecord change = record.dynamodb();
+            String requestId = ShardedKeys.requestId(change.keys());
+            changes.remove(requestId);
+            changes.put(requestId, record.eventName() == OperationType.REMOVE ? null : newVersion(change));
+        }
+        return changes;
+    }
+
+    /** The IDs whose last change in {@code page} deleted them. */
+    static Set<String> removed(List<Record> page) {
+        Set<String> removed = new HashSet<>();
+        for (Record record : page) {
+            String requestId = ShardedKeys.requestId(record.dynamodb().keys());
+            if (record.eventName() == OperationType.REMOVE) {
+                removed.add(requestId);
+            } else {
+                removed.remove(requestId);
+            }
+        }
+        return removed;
+    }
+
+    private static Long newVersion(StreamRecord change) {
+        Long version = version(change.newImage());
+        if (version == null || (change.hasOldImage() && Objects.equals(version, version(change.oldImage())))) {
+            return null;
+        }
+        return version;
+    }
+
+    private static Long version(Map<String, AttributeValue> image) {
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+        ApiRequest apiRequest = ApiRequestSchema.TABLE_SCHEMA.mapToItem(image);
+        return apiRequest.getVersion();
+    }
+
+    private String streamArn() {
+        if (streamArn == null) {
+            String latest = dynamoDbClient.describeTable(request -> request.tableName(tableName)).table().latestStreamArn();
+            if (latest == null) {
+                throw new IllegalStateException("Table " + tableName + " has no stream; enable one with StreamViewType NEW_AND_OLD_IMAGES");
+            }
+            streamArn = latest;
+        }
+        return streamArn;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lease.release();
+    }
+}
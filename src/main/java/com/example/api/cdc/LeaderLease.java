@@ -0,0 +1,134 @@
+package com.example.api.cdc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis lease electing the one node that reads the table's stream. The lease is a key
+ * holding this node's random ID that expires after {@code cache.cdc.lease-ms}; the holder
+ * extends it every third of that, and another node takes over once it lapses. Checkpoints
+ * are written through {@link StreamCheckpoints}, which checks the lease in the same script,
+ * so a holder that stalled past its lease cannot move the position back.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.cdc.enabled", havingValue = "true")
+public class LeaderLease {
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderLease.class);
+
+    private static final String KEY_PREFIX = "cdc:leader:";
+
+    private static final RedisScript<Long> ACQUIRE =
+            RedisScript.of(new ClassPathResource("scripts/lease_acquire.lua"), Long.class);
+
+    private static final RedisScript<Long> RELEASE =
+            RedisScript.of(new ClassPathResource("scripts/lease_release.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final String key;
+
+    private final String holder = UUID.randomUUID().toString();
+
+    private final long leaseMs;
+
+    private final long leaseNanos;
+
+    /** Until when the lease is held for certain; only the stream thread writes these. */
+    private volatile long validUntilNanos = System.nanoTime();
+
+    private volatile long renewAtNanos = System.nanoTime();
+
+    private volatile boolean held;
+
+    public LeaderLease(StringRedisTemplate stringRedisTemplate,
+                       @Value("${dynamodb.table-name}") String tableName,
+                       @Value("${cache.cdc.lease-ms:30000}") long leaseMs) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.key = KEY_PREFIX + tableName;
+        this.leaseMs = leaseMs;
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMs);
+    }
+
+    /**
+     * Takes the lease if it is free, or extends it if this node holds it. Only goes to
+     * Redis once a third of the lease has passed since the last extension.
+     *
+     * @return whether this node holds the lease
+     */
+    public boolean tryAcquire() {
+        long now = System.nanoTime();
+        if (held && now - renewAtNanos < 0) {
+            return true;
+        }
+        Long reply;
+        try {
+            reply = stringRedisTemplate.execute(ACQUIRE, List.of(key), holder, Long.toString(leaseMs));
+        } catch (RuntimeException e) {
+            // Keep going while the lease cannot have lapsed yet; Redis may be back by then
+            log.warn("Could not extend stream lease {}: {}", key, e.getMessage());
+            held = held && now - validUntilNanos < 0;
+            return held;
+        }
+        boolean acquired = reply != null && reply == 1;
+        if (acquired) {
+            validUntilNanos = now + leaseNanos;
+            renewAtNanos = now + leaseNanos / 3;
+        }
+        if (acquired != held) {
+            log.info(acquired ? "Took stream lease {}" : "Lost stream lease {}", key);
+        }
+        held = acquired;
+        return acquired;
+    }
+
+    /**
+     * Whether this node held the lease when last checked.
+     */
+    public boolean isHeld() {
+        return held;
+    }
+
+    /**
+     * Forgets the lease locally, for when a fenced write found it taken.
+     */
+    void lost() {
+        if (held) {
+            log.info("Lost stream lease {}", key);
+        }
+        held = false;
+    }
+
+    /**
+     * Gives the lease up so another node can take over without waiting for it to lapse.
+     */
+    public void release() {
+        if (!held) {
+            return;
+        }
+        held = false;
+        try {
+            stringRedisTemplate.execute(RELEASE, List.of(key), holder);
+        } catch (RuntimeException e) {
+            log.warn("Could not release stream lease {}: {}", key, e.getMessage());
+        }
+    }
+
+    String key() {
+        return key;
+    }
+
+    String holder() {
+        return holder;
+    }
+}
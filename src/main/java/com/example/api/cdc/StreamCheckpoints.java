@@ -0,0 +1,81 @@
+package com.example.api.cdc;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Position reached in each stream shard, kept in one Redis hash so the next lease holder
+ * resumes where the last one stopped. A shard's field holds the sequence number of the
+ * last record whose changes were applied, or {@link #SHARD_END} once the shard is closed
+ * and fully read. Writes only succeed while this node holds the {@link LeaderLease}.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.cdc.enabled", havingValue = "true")
+public class StreamCheckpoints {
+
+    static final String SHARD_END = "SHARD_END";
+
+    private static final String KEY_PREFIX = "cdc:checkpoints:";
+
+    private static final RedisScript<Long> FENCED_HSET =
+            RedisScript.of(new ClassPathResource("scripts/fenced_hset.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final LeaderLease lease;
+
+    private final String key;
+
+    public StreamCheckpoints(StringRedisTemplate stringRedisTemplate,
+                             LeaderLease lease,
+                             @Value("${dynamodb.table-name}") String tableName) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.lease = lease;
+        this.key = KEY_PREFIX + tableName;
+    }
+
+    /**
+     * Every shard's checkpoint, by shard ID.
+     */
+    public Map<String, String> load() {
+        Map<String, String> checkpoints = new HashMap<>();
+        stringRedisTemplate.<String, String>opsForHash().entries(key).forEach(checkpoints::put);
+        return checkpoints;
+    }
+
+    /**
+     * Records that {@code shardId} has been applied up to {@code position}, a sequence
+     * number or {@link #SHARD_END}.
+     *
+     * @return {@code false} if the lease has passed to another node and nothing was written
+     */
+    public boolean save(String shardId, String position) {
+        return fencedSet(shardId, position);
+    }
+
+    /**
+     * Drops the checkpoint of a shard that has aged out of the stream.
+     *
+     * @return {@code false} if the lease has passed to another node and nothing was written
+     */
+    public boolean remove(String shardId) {
+        return fencedSet(shardId, "");
+    }
+
+    private boolean fencedSet(String shardId, String value) {
+        Long reply = stringRedisTemplate.execute(FENCED_HSET, List.of(lease.key(), key), lease.holder(), shardId, value);
+        if (reply == null || reply != 1) {
+            lease.lost();
+            return false;
+        }
+        return true;
+    }
+}
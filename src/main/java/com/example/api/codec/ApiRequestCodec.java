@@ -0,0 +1,27 @@
+package com.example.api.codec;
+
+import com.example.api.model.ApiRequest;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * Wire format for {@link ApiRequest} values cached in Redis. Selected with
+ * {@code redis.codec.format}; see {@link BinaryApiRequestCodec} and {@link JsonApiRequestCodec}.
+ */
+public interface ApiRequestCodec extends RedisSerializer<ApiRequest> {
+
+    /**
+     * Number of leading bytes {@link #readVersion} needs, or 0 if this format can only give
+     * the version by decoding the whole value.
+     */
+    default int versionPrefixLength() {
+        return 0;
+    }
+
+    /**
+     * Version of the request encoded in {@code prefix}, the first {@link #versionPrefixLength()}
+     * bytes of a value, or {@code null} if the value does not record one where it can be read.
+     */
+    default Long readVersion(byte[] prefix) {
+        return null;
+    }
+}
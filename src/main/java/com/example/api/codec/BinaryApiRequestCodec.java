@@ -0,0 +1,246 @@
+package com.example.api.codec;
+
+import com.example.api.model.ApiRequest;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary encoding for cached {@link ApiRequest}s:
+ * <pre>
+ * byte    format version (1, or 2 when the request has a version)
+ * byte    flags (bit 0: body is LZ4 compressed, bit 1: body ends with a payload reference)
+ * [long   request version, only in format 2]
+ * [int    uncompressed body length, only when compressed]
+ * body    id, payload[, payloadRef]; each as varint(length + 1) followed by UTF-8 bytes,
+ *         0 meaning null
+ * </pre>
+ * Bodies of at least {@code compressionThreshold} bytes are LZ4 compressed when that
+ * makes them smaller. The request version sits uncompressed in the header, so
+ * {@link #readVersion} can answer conditional reads from a short {@code GETRANGE} without
+ * fetching or decoding the payload. Values that start with '{' are legacy JSON entries and are decoded
+ * with {@link JsonApiRequestCodec}, so existing cache contents stay readable.
+ */
+public class BinaryApiRequestCodec implements ApiRequestCodec {
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte VERSIONED_FORMAT_VERSION = 2;
+
+    private static final byte FLAG_LZ4 = 1;
+
+    private static final byte FLAG_PAYLOAD_REF = 2;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private static final int VERSIONED_HEADER_LENGTH = HEADER_LENGTH + Long.BYTES;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final LZ4Compressor compressor = LZ4.fastCompressor();
+
+    private final LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+
+    private final JsonApiRequestCodec legacyCodec = new JsonApiRequestCodec();
+
+    private final int compressionThreshold;
+
+    public BinaryApiRequestCodec(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(ApiRequest value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        byte[] id = utf8(value.getId());
+        byte[] payload = utf8(value.getPayload());
+        byte[] payloadRef = utf8(value.getPayloadRef());
+        // Only written when present, so entries stay readable by nodes that predate the field
+        byte flags = payloadRef != null ? FLAG_PAYLOAD_REF : 0;
+        int bodyLength = fieldLength(id) + fieldLength(payload) + (payloadRef != null ? fieldLength(payloadRef) : 0);
+        Long version = value.getVersion();
+        int headerLength = version != null ? VERSIONED_HEADER_LENGTH : HEADER_LENGTH;
+        int compressedHeaderLength = headerLength + Integer.BYTES;
+
+        if (bodyLength < compressionThreshold) {
+            byte[] encoded = new byte[headerLength + bodyLength];
+            writeHeader(encoded, flags, version);
+            writeFields(encoded, headerLength, id, payload, payloadRef);
+            return encoded;
+        }
+
+        byte[] body = new byte[bodyLength];
+        writeFields(body, 0, id, payload, payloadRef);
+        int maxCompressedLength = compressor.maxCompressedLength(bodyLength);
+        byte[] encoded = new byte[compressedHeaderLength + Math.max(maxCompressedLength, bodyLength)];
+        int compressedLength = compressor.compress(body, 0, bodyLength, encoded, compressedHeaderLength, maxCompressedLength);
+
+        writeHeader(encoded, flags, version);
+        if (compressedHeaderLength + compressedLength < headerLength + bodyLength) {
+            encoded[1] |= FLAG_LZ4;
+            writeInt(encoded, headerLength, bodyLength);
+            return Arrays.copyOf(encoded, compressedHeaderLength + compressedLength);
+        }
+        // Incompressible: store the body as is
+        System.arraycopy(body, 0, encoded, headerLength, bodyLength);
+        return Arrays.copyOf(encoded, headerLength + bodyLength);
+    }
+
+    @Override
+    public ApiRequest deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == '{') {
+            return legacyCodec.deserialize(bytes);
+        }
+        int headerLength = switch (bytes[0]) {
+            case FORMAT_VERSION -> HEADER_LENGTH;
+            case VERSIONED_FORMAT_VERSION -> VERSIONED_HEADER_LENGTH;
+            default -> throw new SerializationException("Unsupported ApiRequest format version " + bytes[0]);
+        };
+        if (bytes.length < headerLength) {
+            throw new SerializationException("Truncated ApiRequest value");
+        }
+
+        byte[] body = bytes;
+        int[] position = {headerLength};
+        if ((bytes[1] & FLAG_LZ4) != 0) {
+            body = decompressor.decompress(bytes, headerLength + Integer.BYTES, readInt(bytes, headerLength));
+            position[0] = 0;
+        }
+
+        ApiRequest apiRequest = new ApiRequest();
+        if (bytes[0] == VERSIONED_FORMAT_VERSION) {
+            apiRequest.setVersion(readLong(bytes, HEADER_LENGTH));
+        }
+        apiRequest.setId(readField(body, position));
+        apiRequest.setPayload(readField(body, position));
+        if ((bytes[1] & FLAG_PAYLOAD_REF) != 0) {
+            apiRequest.setPayloadRef(readField(body, position));
+        }
+        return apiRequest;
+    }
+
+    @Override
+    public int versionPrefixLength() {
+        return VERSIONED_HEADER_LENGTH;
+    }
+
+    @Override
+    public Long readVersion(byte[] prefix) {
+        if (prefix == null || prefix.length < VERSIONED_HEADER_LENGTH || prefix[0] != VERSIONED_FORMAT_VERSION) {
+            return null;
+        }
+        return readLong(prefix, HEADER_LENGTH);
+    }
+
+    private static void writeHeader(byte[] target, byte flags, Long version) {
+        if (version == null) {
+            target[0] = FORMAT_VERSION;
+        } else {
+            target[0] = VERSIONED_FORMAT_VERSION;
+            writeLong(target, HEADER_LENGTH, version);
+        }
+        target[1] = flags;
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int fieldLength(byte[] field) {
+        int length = field == null ? 0 : field.length;
+        return varintLength(length + 1) + length;
+    }
+
+    private static void writeFields(byte[] target, int offset, byte[] id, byte[] payload, byte[] payloadRef) {
+        offset = writeField(target, offset, id);
+        offset = writeField(target, offset, payload);
+        if (payloadRef != null) {
+            writeField(target, offset, payloadRef);
+        }
+    }
+
+    private static int writeField(byte[] target, int offset, byte[] field) {
+        if (field == null) {
+            return writeVarint(target, offset, 0);
+        }
+        offset = writeVarint(target, offset, field.length + 1);
+        System.arraycopy(field, 0, target, offset, field.length);
+        return offset + field.length;
+    }
+
+    private static String readField(byte[] source, int[] position) {
+        int length = readVarint(source, position) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (position[0] + length > source.length) {
+            throw new SerializationException("Truncated ApiRequest value");
+        }
+        String value = new String(source, position[0], length, StandardCharsets.UTF_8);
+        position[0] += length;
+        return value;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(byte[] target, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static int readVarint(byte[] source, int[] position) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (position[0] >= source.length) {
+                throw new SerializationException("Truncated ApiRequest value");
+            }
+            byte b = source[position[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed length in ApiRequest value");
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return ((source[offset] & 0xFF) << 24) | ((source[offset + 1] & 0xFF) << 16)
+                | ((source[offset + 2] & 0xFF) << 8) | (source[offset + 3] & 0xFF);
+    }
+
+    private static void writeLong(byte[] target, int offset, long value) {
+        writeInt(target, offset, (int) (value >>> 32));
+        writeInt(target, offset + Integer.BYTES, (int) value);
+    }
+
+    private static long readLong(byte[] source, int offset) {
+        return ((long) readInt(source, offset) << 32) | (readInt(source, offset + Integer.BYTES) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.api.codec;
+
+import com.example.api.model.ApiRequest;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+/**
+ * Plain JSON encoding, readable with redis-cli and compatible with entries written
+ * before the binary codec existed.
+ */
+public class JsonApiRequestCodec implements ApiRequestCodec {
+
+    private final Jackson2JsonRedisSerializer<ApiRequest> serializer = new Jackson2JsonRedisSerializer<>(ApiRequest.class);
+
+    @Override
+    public byte[] serialize(ApiRequest value) throws SerializationException {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    public ApiRequest deserialize(byte[] bytes) throws SerializationException {
+        return serializer.deserialize(bytes);
+    }
+}
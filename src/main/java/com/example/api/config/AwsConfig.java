@@ -1,15 +1,21 @@
 package com.example.api.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClientBuilder;
 import software.amazon.awssdk.regions.Region;
 import org.springframework.context.annotation.PropertySource;
 
+import java.net.URI;
+
 @Configuration
 @PropertySource("classpath:application.properties")
 public class AwsConfig {
@@ -23,8 +29,43 @@ public class AwsConfig {
     @Value("${aws.region}")
     private String awsRegion;
 
+    @Value("${dynamodb.streams.endpoint:}")
+    private String streamsEndpoint;
+
     @Bean
     public DynamoDbClient dynamoDbClient() {
+        return DynamoDbClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(credentialsProvider())
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "api.execution-mode", havingValue = "async")
+    public DynamoDbAsyncClient dynamoDbAsyncClient() {
+        return DynamoDbAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(credentialsProvider())
+                .build();
+    }
+
+    /**
+     * Reads the table's change stream for {@code cache.cdc.enabled}. Point
+     * {@code dynamodb.streams.endpoint} at DynamoDB Local to test against its streams.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "cache.cdc.enabled", havingValue = "true")
+    public DynamoDbStreamsClient dynamoDbStreamsClient() {
+        DynamoDbStreamsClientBuilder builder = DynamoDbStreamsClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(credentialsProvider());
+        if (!streamsEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(streamsEndpoint));
+        }
+        return builder.build();
+    }
+
+    private AwsCredentialsProvider credentialsProvider() {
         AwsCredentials credentials = new AwsCredentials() {
             @Override
             public String accessKeyId() {
@@ -37,11 +78,6 @@ public class AwsConfig {
             }
         };
 
-        AwsCredentialsProvider credentialsProvider = StaticCredentialsProvider.create(credentials);
-
-        return DynamoDbClient.builder()
-                .region(Region.of(awsRegion))
-                .credentialsProvider(credentialsProvider)
-                .build();
+        return StaticCredentialsProvider.create(credentials);
     }
 }
@@ -7,16 +7,23 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.core.MicrometerProducerListener;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 @Configuration
 @EnableKafka
@@ -29,18 +36,76 @@ public class KafkaConfig {
     @Value("${kafka.apigroup}")
     private String apiGroup;
 
+    @Value("${kafka.producer.acks:all}")
+    private String producerAcks;
+
+    @Value("${kafka.producer.enable-idempotence:true}")
+    private boolean producerIdempotence;
+
+    @Value("${kafka.producer.max-in-flight:5}")
+    private int producerMaxInFlight;
+
+    @Value("${kafka.producer.linger-ms:5}")
+    private int producerLingerMs;
+
+    @Value("${kafka.producer.batch-size:65536}")
+    private int producerBatchSize;
+
+    @Value("${kafka.producer.compression-type:lz4}")
+    private String producerCompressionType;
+
+    @Value("${kafka.producer.buffer-memory:33554432}")
+    private long producerBufferMemory;
+
+    @Value("${kafka.producer.delivery-timeout-ms:120000}")
+    private int producerDeliveryTimeoutMs;
+
+    /** Consumer threads per instance; more than the topic's partition count leaves some idle. */
+    @Value("${kafka.consumer.concurrency:3}")
+    private int consumerConcurrency;
+
+    @Value("${kafka.consumer.max-poll-records:500}")
+    private int consumerMaxPollRecords;
+
+    @Value("${kafka.consumer.fetch-min-bytes:65536}")
+    private int consumerFetchMinBytes;
+
+    @Value("${kafka.consumer.fetch-max-wait-ms:100}")
+    private int consumerFetchMaxWaitMs;
+
+    @Value("${kafka.consumer.max-partition-fetch-bytes:1048576}")
+    private int consumerMaxPartitionFetchBytes;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Bean
     public Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaServer);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Idempotence needs acks=all and at most 5 in-flight requests; retries then keep per-partition order
+        props.put(ProducerConfig.ACKS_CONFIG, producerAcks);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, producerIdempotence);
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, producerMaxInFlight);
+        // Wait briefly so sends from concurrent requests share one compressed batch
+        props.put(ProducerConfig.LINGER_MS_CONFIG, producerLingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, producerBatchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, producerCompressionType);
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, producerBufferMemory);
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, producerDeliveryTimeoutMs);
         return props;
     }
 
     @Bean
     public ProducerFactory<String, String> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(producerConfigs());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
@@ -55,11 +120,55 @@ public class KafkaConfig {
         props.put(ConsumerConfig.GROUP_ID_CONFIG, apiGroup);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Offsets are committed by the listener container, never by the consumer's timer
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Larger, fuller fetches: the broker holds a fetch until fetch.min.bytes are ready or fetch.max.wait.ms passes
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, consumerMaxPollRecords);
+        props.put(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, consumerFetchMinBytes);
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, consumerFetchMaxWaitMs);
+        props.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, consumerMaxPartitionFetchBytes);
         return props;
     }
 
     @Bean
     public ConsumerFactory<String, String> consumerFactory() {
-        return new DefaultKafkaConsumerFactory<>(consumerConfigs());
+        DefaultKafkaConsumerFactory<String, String> factory = new DefaultKafkaConsumerFactory<>(consumerConfigs());
+        // Binds the Kafka client metrics, including kafka.consumer.fetch.manager.records.lag(.max)
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(consumerConcurrency);
+        configureListenerExecutor(factory);
+        return factory;
+    }
+
+    /**
+     * Delivers each poll as a {@code List<ConsumerRecord>}; the listener acknowledges
+     * the batch itself once it has been persisted.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(consumerConcurrency);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        configureListenerExecutor(factory);
+        return factory;
+    }
+
+    private void configureListenerExecutor(ConcurrentKafkaListenerContainerFactory<String, String> factory) {
+        if (virtualThreads) {
+            // Each consumer polls on its own virtual thread, so listeners blocked on
+            // DynamoDB or Redis I/O do not hold a platform thread
+            SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            listenerExecutor.setVirtualThreads(true);
+            factory.getContainerProperties().setListenerTaskExecutor(listenerExecutor);
+        }
     }
 }
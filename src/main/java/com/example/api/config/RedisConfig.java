@@ -1,14 +1,39 @@
 package com.example.api.config;
 
+import com.example.api.codec.ApiRequestCodec;
+import com.example.api.codec.BinaryApiRequestCodec;
+import com.example.api.codec.JsonApiRequestCodec;
+import com.example.api.model.ApiRequest;
+import com.example.api.resilience.DependencyGuard;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.protocol.CommandType;
+import io.lettuce.core.protocol.RedisCommand;
+import io.lettuce.core.resource.ClientResources;
+import io.lettuce.core.resource.DefaultClientResources;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisSentinelConfiguration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnection;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.time.Duration;
+
 @Configuration
 public class RedisConfig {
 
@@ -30,9 +55,65 @@ public class RedisConfig {
     @Value("${spring.redis.sentinel.nodes:}")
     private String sentinelNodes;
 
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /** {@code shared}: one multiplexed connection for all threads; {@code pooled}: a connection per borrowing thread. */
+    @Value("${redis.client.connection-mode:shared}")
+    private String connectionMode;
+
+    @Value("${redis.client.pool.max-total:16}")
+    private int poolMaxTotal;
+
+    @Value("${redis.client.pool.max-idle:16}")
+    private int poolMaxIdle;
+
+    @Value("${redis.client.pool.min-idle:2}")
+    private int poolMinIdle;
+
+    @Value("${redis.client.io-threads:4}")
+    private int ioThreads;
+
+    @Value("${redis.client.computation-threads:4}")
+    private int computationThreads;
+
+    @Value("${redis.client.connect-timeout-ms:2000}")
+    private long connectTimeoutMs;
+
+    @Value("${redis.client.read-from:upstream}")
+    private String readFrom;
+
+    @Value("${redis.client.pipeline-flush-threshold:64}")
+    private int pipelineFlushThreshold;
+
+    @Autowired
+    private DependencyGuard dependencyGuard;
+
+    @Value("${redis.codec.format:binary}")
+    private String codecFormat;
+
+    @Value("${redis.codec.compression-threshold-bytes:1024}")
+    private int compressionThreshold;
+
+    /**
+     * Event loop and computation threads shared by every Lettuce client in the application,
+     * sized explicitly rather than defaulting to one per core each.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources() {
+        return DefaultClientResources.builder()
+                .ioThreadPoolSize(ioThreads)
+                .computationThreadPoolSize(computationThreads)
+                .build();
+    }
+
     @Bean
-    public LettuceConnectionFactory redisConnectionFactory() {
-        if (!sentinelMaster.isEmpty() && !sentinelNodes.isEmpty()) {
+    public LettuceConnectionFactory redisConnectionFactory(ClientResources lettuceClientResources) {
+        boolean sentinel = !sentinelMaster.isEmpty() && !sentinelNodes.isEmpty();
+        LettuceClientConfiguration clientConfig = clientConfiguration(lettuceClientResources, sentinel);
+
+        LettuceConnectionFactory factory;
+        if (sentinel) {
             // Configure Redis Sentinel
             RedisSentinelConfiguration sentinelConfig = new RedisSentinelConfiguration()
                     .master(sentinelMaster);
@@ -42,20 +123,137 @@ public class RedisConfig {
                 String[] parts = node.split(":");
                 sentinelConfig.sentinel(parts[0], Integer.parseInt(parts[1]));
             }
-
-            return new LettuceConnectionFactory(sentinelConfig, LettucePoolingClientConfiguration.defaultConfiguration());
+            sentinelConfig.setPassword(redisPassword);
+            factory = new LettuceConnectionFactory(sentinelConfig, clientConfig);
         } else {
             // Configure Standalone Redis
-            return new LettuceConnectionFactory(redisHost, redisPort);
+            RedisStandaloneConfiguration standaloneConfig = new RedisStandaloneConfiguration(redisHost, redisPort);
+            standaloneConfig.setPassword(redisPassword);
+            factory = new LettuceConnectionFactory(standaloneConfig, clientConfig);
+        }
+
+        // Non-blocking commands use the shared connection unless we explicitly want pooling
+        factory.setShareNativeConnection(!usePool());
+        // Pipelines write buffered commands in batches instead of one flush per command
+        factory.setPipeliningFlushPolicy(pipelineFlushThreshold > 1
+                ? LettuceConnection.PipeliningFlushPolicy.buffered(pipelineFlushThreshold)
+                : LettuceConnection.PipeliningFlushPolicy.flushEachCommand());
+        return factory;
+    }
+
+    private LettuceClientConfiguration clientConfiguration(ClientResources clientResources, boolean sentinel) {
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder builder;
+        if (usePool()) {
+            GenericObjectPoolConfig<Object> poolConfig = new GenericObjectPoolConfig<>();
+            poolConfig.setMaxTotal(poolMaxTotal);
+            poolConfig.setMaxIdle(poolMaxIdle);
+            poolConfig.setMinIdle(poolMinIdle);
+            builder = LettucePoolingClientConfiguration.builder().poolConfig(poolConfig);
+        } else {
+            builder = LettuceClientConfiguration.builder();
+        }
+
+        builder.clientResources(clientResources)
+                .commandTimeout(Duration.ofMillis(redisTimeout))
+                .clientOptions(ClientOptions.builder()
+                        .socketOptions(SocketOptions.builder()
+                                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                                .keepAlive(true)
+                                .build())
+                        .timeoutOptions(timeoutOptions(dependencyGuard, Duration.ofMillis(redisTimeout)))
+                        // Fail fast while reconnecting instead of queueing commands behind the outage
+                        .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                        .build());
+        if (sentinel) {
+            // Replicas only exist behind sentinel; writes always go to the master
+            builder.readFrom(ReadFrom.valueOf(readFrom));
         }
+        return builder.build();
+    }
+
+    private boolean usePool() {
+        return switch (connectionMode) {
+            // commons-pool2 waits on a monitor while creating pooled connections, which pins
+            // virtual threads, so share the thread-safe native connection when they are on
+            case "pooled" -> !virtualThreads;
+            case "shared" -> false;
+            default -> throw new IllegalArgumentException("Unknown redis.client.connection-mode: " + connectionMode);
+        };
+    }
+
+    @Bean
+    public ApiRequestCodec apiRequestCodec() {
+        return switch (codecFormat) {
+            case "binary" -> new BinaryApiRequestCodec(compressionThreshold);
+            case "json" -> new JsonApiRequestCodec();
+            default -> throw new IllegalArgumentException("Unknown redis.codec.format: " + codecFormat);
+        };
     }
 
     @Bean
-    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory factory) {
+    public RedisTemplate<String, Object> redisTemplate(LettuceConnectionFactory factory, ApiRequestCodec apiRequestCodec) {
         RedisTemplate<String, Object> template = new RedisTemplate<>();
         template.setConnectionFactory(factory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new StringRedisSerializer());
+        template.setValueSerializer(apiRequestCodec);
         return template;
     }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(LettuceConnectionFactory factory) {
+        return new StringRedisTemplate(factory);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LettuceConnectionFactory factory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        return container;
+    }
+
+    // Reactive Lettuce commands for the non-blocking pipeline (api.execution-mode=async)
+    @Bean
+    @ConditionalOnProperty(name = "api.execution-mode", havingValue = "async")
+    public ReactiveRedisTemplate<String, ApiRequest> reactiveApiRequestRedisTemplate(LettuceConnectionFactory factory,
+                                                                                   ApiRequestCodec apiRequestCodec) {
+        RedisSerializationContext<String, ApiRequest> context = RedisSerializationContext
+                .<String, ApiRequest>newSerializationContext(new StringRedisSerializer())
+                .value(apiRequestCodec)
+                .build();
+        return new ReactiveRedisTemplate<>(factory, context);
+    }
+
+    /**
+     * Single-key reads (GET, GETEX and the GETRANGE version probe) time out after the adaptive
+     * Redis timeout, so a slow Redis is given up on quickly and the read falls through to
+     * DynamoDB. Every other command, including writes, pipelines, scripts and multi-key
+     * reads, times out after {@code commandTimeout}. A custom timeout source replaces the
+     * connection's command timeout rather than falling back to it, so every command must
+     * get a positive timeout here or it never expires.
+     */
+    static TimeoutOptions timeoutOptions(DependencyGuard dependencyGuard, Duration commandTimeout) {
+        return TimeoutOptions.builder()
+                .timeoutSource(new GetTimeoutSource(dependencyGuard, commandTimeout.toMillis()))
+                .build();
+    }
+
+    private static class GetTimeoutSource extends TimeoutOptions.TimeoutSource {
+
+        private final DependencyGuard dependencyGuard;
+
+        private final long commandTimeoutMillis;
+
+        GetTimeoutSource(DependencyGuard dependencyGuard, long commandTimeoutMillis) {
+            this.dependencyGuard = dependencyGuard;
+            this.commandTimeoutMillis = commandTimeoutMillis;
+        }
+
+        @Override
+        public long getTimeout(RedisCommand<?, ?, ?> command) {
+            return command.getType() == CommandType.GET || command.getType() == CommandType.GETEX
+                    || command.getType() == CommandType.GETRANGE
+                    ? dependencyGuard.redisTimeoutMillis()
+                    : commandTimeoutMillis;
+        }
+    }
 }
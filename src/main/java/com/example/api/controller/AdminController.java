@@ -0,0 +1,30 @@
+package com.example.api.controller;
+
+import com.example.api.cache.HotKeyCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Operational views of this node's caches. Outside {@code /api}, so admission control does
+ * not apply; expose it to operators only.
+ */
+@RestController
+@RequestMapping("/admin")
+public class AdminController {
+
+    @Autowired
+    private HotKeyCache hotKeyCache;
+
+    /**
+     * The request IDs this node currently counts as hot, hottest first, with their estimated
+     * reads over the sliding window and whether a copy is pinned.
+     */
+    @GetMapping("/hot-keys")
+    public List<HotKeyCache.HotKey> getHotKeys(){
+        return hotKeyCache.topKeys();
+    }
+}
@@ -2,23 +2,151 @@ package com.example.api.controller;
 
 import com.example.api.model.ApiRequest;
 import com.example.api.service.ApiService;
+import com.example.api.writebehind.WriteBehindQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
+@ConditionalOnProperty(name = "api.execution-mode", havingValue = "blocking", matchIfMissing = true)
 public class ApiController {
 
     @Autowired
     private ApiService apiService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${api.bulk.max-ids:500}")
+    private int bulkMaxIds;
+
+    // Only present when api.write-behind.enabled=true
+    @Autowired(required = false)
+    private WriteBehindQueue writeBehindQueue;
+
+    /**
+     * Returns the request with its version as the ETag. If {@code If-None-Match} names the
+     * current version, answers 304 with no body; the version is first looked up in the near
+     * cache or the header of the Redis entry, so an unchanged request is neither fetched in
+     * full nor deserialized.
+     */
     @GetMapping("/request/{requestId}")
-    public ApiRequest getRequest(@PathVariable String requestId){
-        return apiService.getRequest(requestId);
+    public ResponseEntity<ApiRequest> getRequest(@PathVariable String requestId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        ApiRequest pending = getPending(requestId);
+        if (pending != null){
+            // Not versioned until the flusher writes it
+            return ResponseEntity.ok(pending);
+        }
+        if (ifNoneMatch != null){
+            Long cachedVersion = apiService.getCachedVersion(requestId);
+            if (ETags.matches(ifNoneMatch, cachedVersion)){
+                return notModified(cachedVersion);
+            }
+        }
+
+        ApiRequest apiRequest = apiService.getRequest(requestId);
+        if (apiRequest == null || apiRequest.getVersion() == null){
+            return ResponseEntity.ok(apiRequest);
+        }
+        if (ETags.matches(ifNoneMatch, apiRequest.getVersion())){
+            return notModified(apiRequest.getVersion());
+        }
+        return ResponseEntity.ok().eTag(ETags.of(apiRequest.getVersion())).body(apiRequest);
     }
 
+    /**
+     * Saves the request and returns its new version as the ETag. With {@code If-Match}, the
+     * write only succeeds if the stored request is still at that version, otherwise it is
+     * rejected with 412. Conditional writes are made synchronously even when write-behind is
+     * on, since the outcome must be known before responding.
+     */
     @PostMapping("/request")
-    public void saveRequest(@RequestBody ApiRequest apiRequest){
-        apiService.saveRequest(apiRequest);
+    public ResponseEntity<Void> saveRequest(@RequestBody ApiRequest apiRequest,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        if (apiRequest.getId() == null || apiRequest.getId().isBlank()){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Request id is required");
+        }
+        // References and versions are only ever assigned by the service, never taken from clients
+        apiRequest.setPayloadRef(null);
+        apiRequest.setVersion(null);
+        Long expectedVersion = ETags.expectedVersion(ifMatch);
+        if (writeBehindQueue != null && expectedVersion == null){
+            // Journaled locally; persisted and published by the background flusher
+            writeBehindQueue.enqueue(apiRequest);
+            return ResponseEntity.accepted().build();
+        }
+        apiService.saveRequest(apiRequest, expectedVersion);
+        return ResponseEntity.ok().eTag(ETags.of(apiRequest.getVersion())).build();
+    }
+
+    /**
+     * Stores the raw request body as the payload of {@code requestId}. The body is streamed
+     * to the blob store as it arrives instead of being read into memory, so this is the
+     * way to upload large payloads. Bypasses the write-behind queue, since the payload is
+     * already durable once streamed.
+     */
+    @PutMapping("/request/{requestId}/payload")
+    public ResponseEntity<Void> savePayload(@PathVariable String requestId, InputStream body) throws IOException {
+        ApiRequest apiRequest = apiService.saveStreamed(requestId, body);
+        return ResponseEntity.ok().eTag(ETags.of(apiRequest.getVersion())).build();
+    }
+
+    /**
+     * Streams the payload of {@code requestId} as raw bytes, whether it is stored inline or
+     * in the blob store. Supports {@code Range} requests.
+     */
+    @GetMapping("/request/{requestId}/payload")
+    public ResponseEntity<Resource> getPayload(@PathVariable String requestId) throws IOException {
+        ApiRequest pending = getPending(requestId);
+        Resource payload = apiService.openPayload(pending != null ? pending : apiService.getRequest(requestId));
+        if (payload == null){
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM).body(payload);
+    }
+
+    /**
+     * Fetches many requests in one call. Results are streamed back as newline-delimited
+     * JSON in the order each cache tier answers; IDs that do not exist are omitted.
+     */
+    @PostMapping("/requests/bulk")
+    public ResponseEntity<StreamingResponseBody> getRequests(@RequestBody List<String> requestIds){
+        if (requestIds.size() > bulkMaxIds){
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + bulkMaxIds + " IDs can be fetched per call");
+        }
+        StreamingResponseBody body = out -> apiService.streamRequests(requestIds, apiRequest -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(apiRequest));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
+    private ApiRequest getPending(String requestId){
+        return writeBehindQueue != null ? writeBehindQueue.getPending(requestId) : null;
+    }
+
+    private static ResponseEntity<ApiRequest> notModified(long version){
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(version)).build();
     }
 }
@@ -0,0 +1,61 @@
+package com.example.api.controller;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.service.AsyncApiService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * The {@code /api/request} endpoints of {@link ApiController}, but handlers return a
+ * {@link Mono} so the servlet thread is released while the request waits on Redis,
+ * DynamoDB and Kafka. See {@link AsyncApiService} for what async mode leaves out.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnProperty(name = "api.execution-mode", havingValue = "async")
+public class AsyncApiController {
+
+    @Autowired
+    private AsyncApiService asyncApiService;
+
+    /**
+     * Returns the request with its version as the ETag, or 304 if {@code If-None-Match}
+     * names the current version.
+     */
+    @GetMapping("/request/{requestId}")
+    public Mono<ResponseEntity<ApiRequest>> getRequest(@PathVariable String requestId,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
+        return asyncApiService.getRequest(requestId).map(apiRequest -> {
+            if (apiRequest.getVersion() == null){
+                return ResponseEntity.ok(apiRequest);
+            }
+            if (ETags.matches(ifNoneMatch, apiRequest.getVersion())){
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(ETags.of(apiRequest.getVersion())).build();
+            }
+            return ResponseEntity.ok().eTag(ETags.of(apiRequest.getVersion())).body(apiRequest);
+        });
+    }
+
+    /**
+     * Saves the request and returns its new version as the ETag. Conditional writes are
+     * not supported in async mode, so {@code If-Match} is rejected rather than ignored.
+     */
+    @PostMapping("/request")
+    public Mono<ResponseEntity<Void>> saveRequest(@RequestBody ApiRequest apiRequest,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        if (ifMatch != null){
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED, "If-Match needs api.execution-mode=blocking");
+        }
+        // References and versions are only ever assigned by the service, never taken from clients
+        apiRequest.setPayloadRef(null);
+        apiRequest.setVersion(null);
+        return asyncApiService.saveRequest(apiRequest)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok().eTag(ETags.of(apiRequest.getVersion())).<Void>build()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.api.controller;
+
+import org.springframework.http.ETag;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Conversions between request versions and the ETags they are served as. The tag is the
+ * version itself, so a tag sent back by a client maps straight to a stored version.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches {@code version}. Uses weak comparison,
+     * as RFC 9110 requires for this header, so {@code W/} tags match too.
+     */
+    static boolean matches(String ifNoneMatch, Long version) {
+        if (ifNoneMatch == null || version == null) {
+            return false;
+        }
+        String tag = Long.toString(version);
+        for (ETag etag : ETag.parse(ifNoneMatch)) {
+            if (etag.isWildcard() || etag.tag().equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The version an {@code If-Match} header requires, or {@code null} if the header is
+     * absent or {@code *}. Only a single strong tag can be turned into a version; anything
+     * else can never match a stored request.
+     *
+     * @throws ResponseStatusException with 412 if the header names no usable version
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null) {
+            return null;
+        }
+        List<ETag> etags = ETag.parse(ifMatch);
+        if (etags.size() == 1 && etags.get(0).isWildcard()) {
+            return null;
+        }
+        if (etags.size() == 1 && !etags.get(0).weak()) {
+            try {
+                return Long.parseLong(etags.get(0).tag());
+            } catch (NumberFormatException e) {
+                // Not one of ours
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "If-Match must name a single current ETag");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.api.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Latency timers for every Redis, DynamoDB and Kafka call made on the request path, plus
+ * Redis hit/miss counts. Timers are tagged by {@code dependency} and {@code operation} and
+ * publish both a percentile histogram (for Prometheus {@code histogram_quantile}) and
+ * client-side p50/p95/p99/p99.9, so a p99 spike can be traced to the dependency behind it.
+ */
+@Component
+public class DependencyMetrics {
+
+    public static final String CALLS = "api.dependency.calls";
+
+    public static final String CACHE_LOOKUPS = "api.cache.lookups";
+
+    private final Timer redisGet;
+
+    private final Timer redisGetRange;
+
+    private final Timer redisMultiGet;
+
+    private final Timer redisSet;
+
+    private final Timer redisPipelinedSet;
+
+    private final Timer dynamoDbGet;
+
+    private final Timer dynamoDbBatchGet;
+
+    private final Timer dynamoDbPut;
+
+    private final Timer dynamoDbBatchWrite;
+
+    private final Timer kafkaSend;
+
+    private final Counter kafkaSendFailures;
+
+    private final Counter redisHits;
+
+    private final Counter redisMisses;
+
+    public DependencyMetrics(MeterRegistry meterRegistry) {
+        this.redisGet = timer(meterRegistry, "redis", "get");
+        this.redisGetRange = timer(meterRegistry, "redis", "getrange");
+        this.redisMultiGet = timer(meterRegistry, "redis", "mget");
+        this.redisSet = timer(meterRegistry, "redis", "set");
+        this.redisPipelinedSet = timer(meterRegistry, "redis", "pipelined_set");
+        this.dynamoDbGet = timer(meterRegistry, "dynamodb", "get");
+        this.dynamoDbBatchGet = timer(meterRegistry, "dynamodb", "batch_get");
+        this.dynamoDbPut = timer(meterRegistry, "dynamodb", "put");
+        this.dynamoDbBatchWrite = timer(meterRegistry, "dynamodb", "batch_write");
+        this.kafkaSend = timer(meterRegistry, "kafka", "send");
+        this.kafkaSendFailures = Counter.builder("api.kafka.send.failures")
+                .description("Records the broker did not acknowledge within delivery.timeout.ms")
+                .register(meterRegistry);
+
+        this.redisHits = lookups(meterRegistry, "redis", "hit");
+        this.redisMisses = lookups(meterRegistry, "redis", "miss");
+        Gauge.builder("api.cache.hit.ratio", this, DependencyMetrics::redisHitRatio)
+                .description("Share of Redis lookups that found a value since startup")
+                .tag("tier", "redis")
+                .register(meterRegistry);
+    }
+
+    public Timer redisGet() {
+        return redisGet;
+    }
+
+    public Timer redisGetRange() {
+        return redisGetRange;
+    }
+
+    public Timer redisMultiGet() {
+        return redisMultiGet;
+    }
+
+    public Timer redisSet() {
+        return redisSet;
+    }
+
+    public Timer redisPipelinedSet() {
+        return redisPipelinedSet;
+    }
+
+    public Timer dynamoDbGet() {
+        return dynamoDbGet;
+    }
+
+    public Timer dynamoDbBatchGet() {
+        return dynamoDbBatchGet;
+    }
+
+    public Timer dynamoDbPut() {
+        return dynamoDbPut;
+    }
+
+    public Timer dynamoDbBatchWrite() {
+        return dynamoDbBatchWrite;
+    }
+
+    /**
+     * Times a Kafka send from the call until the broker acknowledges it, and counts it as
+     * failed if it is never acknowledged.
+     */
+    public <T> CompletableFuture<T> recordKafkaSend(CompletableFuture<T> send) {
+        Timer.Sample sample = Timer.start();
+        return send.whenComplete((result, failure) -> {
+            sample.stop(kafkaSend);
+            if (failure != null) {
+                kafkaSendFailures.increment();
+            }
+        });
+    }
+
+    public void recordRedisLookups(int hits, int misses) {
+        redisHits.increment(hits);
+        redisMisses.increment(misses);
+    }
+
+    private double redisHitRatio() {
+        double hits = redisHits.count();
+        double total = hits + redisMisses.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static Timer timer(MeterRegistry meterRegistry, String dependency, String operation) {
+        return Timer.builder(CALLS)
+                .description("Latency of calls to a backing dependency")
+                .tag("dependency", dependency)
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.95, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder(CACHE_LOOKUPS)
+                .description("Cache lookups by tier and outcome")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.api.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis memory and eviction statistics, polled from {@code INFO} every
+ * {@code redis.info.poll-interval-ms} rather than on every scrape, so a slow Redis cannot
+ * stall the metrics endpoint. Values keep their last reading while Redis is unreachable.
+ */
+@Component
+public class RedisServerMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisServerMetrics.class);
+
+    private final RedisConnectionFactory connectionFactory;
+
+    private final long pollIntervalMs;
+
+    private volatile Properties info = new Properties();
+
+    private boolean policyChecked;
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "redis-info-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RedisServerMetrics(RedisConnectionFactory connectionFactory,
+                              MeterRegistry meterRegistry,
+                              @Value("${redis.info.poll-interval-ms:15000}") long pollIntervalMs) {
+        this.connectionFactory = connectionFactory;
+        this.pollIntervalMs = pollIntervalMs;
+
+        gauge(meterRegistry, "redis.memory.used", "used_memory", "bytes", "Memory allocated by Redis");
+        gauge(meterRegistry, "redis.memory.max", "maxmemory", "bytes", "maxmemory limit, 0 if unlimited");
+        gauge(meterRegistry, "redis.memory.fragmentation.ratio", "mem_fragmentation_ratio", null,
+                "Resident memory divided by memory allocated by Redis");
+        gauge(meterRegistry, "redis.keys", "db0.keys", null, "Keys in database 0");
+        gauge(meterRegistry, "redis.keys.expiring", "db0.expires", null, "Keys with an expiry in database 0");
+        counter(meterRegistry, "redis.keys.evicted", "evicted_keys", "Keys evicted because of maxmemory");
+        counter(meterRegistry, "redis.keys.expired", "expired_keys", "Keys removed because their TTL passed");
+    }
+
+    @PostConstruct
+    public void start() {
+        poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    void poll() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Properties latest = connection.serverCommands().info();
+            if (latest == null) {
+                return;
+            }
+            info = latest;
+        } catch (RuntimeException e) {
+            log.debug("Could not read Redis INFO: {}", e.getMessage());
+            return;
+        }
+        if (!policyChecked) {
+            policyChecked = true;
+            String policy = info.getProperty("maxmemory_policy");
+            // Cached entries all carry a TTL, but under memory pressure Redis still needs to evict something
+            if ("noeviction".equals(policy)) {
+                log.warn("Redis maxmemory-policy is noeviction: writes will fail once maxmemory is reached;"
+                        + " volatile-lfu or allkeys-lfu is recommended for a cache");
+            } else {
+                log.info("Redis maxmemory-policy is {}", policy);
+            }
+        }
+    }
+
+    double value(String field) {
+        String raw;
+        int dot = field.indexOf('.');
+        if (dot < 0) {
+            raw = info.getProperty(field);
+        } else {
+            // Keyspace lines look like "db0:keys=12,expires=10,avg_ttl=0"
+            raw = keyspaceField(info.getProperty(field.substring(0, dot)), field.substring(dot + 1));
+        }
+        if (raw == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(raw.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static String keyspaceField(String line, String name) {
+        if (line == null) {
+            return null;
+        }
+        for (String pair : line.split(",")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(name)) {
+                return pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
+    private void gauge(MeterRegistry meterRegistry, String name, String field, String baseUnit, String description) {
+        Gauge.builder(name, this, metrics -> metrics.value(field))
+                .description(description)
+                .baseUnit(baseUnit)
+                .register(meterRegistry);
+    }
+
+    private void counter(MeterRegistry meterRegistry, String name, String field, String description) {
+        // Redis resets these on restart; Prometheus rate() treats that as a counter reset
+        FunctionCounter.builder(name, this, metrics -> {
+                    double value = metrics.value(field);
+                    return Double.isNaN(value) ? 0 : value;
+                })
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.api.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
 
@@ -7,6 +8,8 @@ import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbParti
 public class ApiRequest {
     private String id;
     private String payload;
+    private String payloadRef;
+    private Long version;
 
     @DynamoDbPartitionKey
     public String getId() {
@@ -24,4 +27,30 @@ public class ApiRequest {
     public void setPayload(String payload) {
         this.payload = payload;
     }
+
+    /**
+     * Blob store reference to a payload too large to store inline, in which case
+     * {@link #getPayload()} is {@code null}. Fetch it from {@code GET /api/request/{id}/payload}.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getPayloadRef() {
+        return payloadRef;
+    }
+
+    public void setPayloadRef(String payloadRef) {
+        this.payloadRef = payloadRef;
+    }
+
+    /**
+     * Assigned by the repository on every write and served as the request's ETag. Writes can
+     * be made conditional on it with {@code If-Match}. {@code null} until first saved.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
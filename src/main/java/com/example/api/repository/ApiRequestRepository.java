@@ -0,0 +1,253 @@
+package com.example.api.repository;
+
+import com.example.api.model.ApiRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.paginators.ScanIterable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * DynamoDB access for {@link ApiRequest}. The enhanced client and table handle are
+ * built once and reused, since both are thread-safe and expensive to create. With
+ * {@code dynamodb.layout=sharded}, {@link ShardedApiRequestRepository} takes its place.
+ */
+@Repository
+@ConditionalOnProperty(name = "dynamodb.layout", havingValue = "single", matchIfMissing = true)
+public class ApiRequestRepository {
+
+    /** Maximum number of put requests DynamoDB accepts in one BatchWriteItem call. */
+    static final int BATCH_WRITE_LIMIT = 25;
+
+    /** Maximum number of keys DynamoDB accepts in one BatchGetItem call. */
+    static final int BATCH_GET_LIMIT = 100;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    private final DynamoDbEnhancedClient enhancedClient;
+
+    private final DynamoDbTable<ApiRequest> table;
+
+    private final String tableName;
+
+    private final String partitionKey;
+
+    @Value("${dynamodb.batch.max-attempts:${dynamodb.batch-write.max-attempts:5}}")
+    private int batchMaxAttempts;
+
+    @Value("${dynamodb.batch.backoff-ms:${dynamodb.batch-write.backoff-ms:50}}")
+    private long batchBackoffMs;
+
+    public ApiRequestRepository(DynamoDbClient dynamoDbClient,
+                                @Value("${dynamodb.table-name}") String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.partitionKey = ApiRequestSchema.TABLE_SCHEMA.tableMetadata().primaryPartitionKey();
+        this.enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        this.table = enhancedClient.table(tableName, ApiRequestSchema.TABLE_SCHEMA);
+    }
+
+    public ApiRequest findById(String requestId) {
+        return table.getItem(Key.builder().partitionValue(requestId).build());
+    }
+
+    /**
+     * Same as {@link #findById(String)}, but the whole call, retries included, is abandoned
+     * once {@code timeout} has passed.
+     */
+    public ApiRequest findById(String requestId, Duration timeout) {
+        GetItemResponse response = dynamoDbClient.getItem(r -> r
+                .tableName(tableName)
+                .key(Map.of(partitionKey, AttributeValue.fromS(requestId)))
+                .overrideConfiguration(override -> override.apiCallTimeout(timeout)));
+        if (!response.hasItem() || response.item().isEmpty()) {
+            return null;
+        }
+        return ApiRequestSchema.TABLE_SCHEMA.mapToItem(response.item());
+    }
+
+    /**
+     * Writes {@code apiRequest} unconditionally, stamping it with a new version first.
+     *
+     * @return the item it replaced, or {@code null} if there was none
+     */
+    public ApiRequest save(ApiRequest apiRequest) {
+        apiRequest.setVersion(ApiRequestVersions.next(apiRequest.getVersion()));
+        return table.putItemWithResponse(PutItemEnhancedRequest.builder(ApiRequest.class)
+                .item(apiRequest)
+                .returnValues(ReturnValue.ALL_OLD)
+                .build()).attributes();
+    }
+
+    /**
+     * Writes {@code apiRequest} with a new version, but only if the stored item is still at
+     * {@code expectedVersion}.
+     *
+     * @return the item it replaced
+     * @throws VersionConflictException if the item is missing or at another version
+     */
+    public ApiRequest save(ApiRequest apiRequest, long expectedVersion) {
+        Long previousVersion = apiRequest.getVersion();
+        apiRequest.setVersion(ApiRequestVersions.next(expectedVersion));
+        try {
+            return table.putItemWithResponse(PutItemEnhancedRequest.builder(ApiRequest.class)
+                    .item(apiRequest)
+                    .conditionExpression(ApiRequestVersions.expect(expectedVersion))
+                    .returnValues(ReturnValue.ALL_OLD)
+                    .build()).attributes();
+        } catch (ConditionalCheckFailedException e) {
+            apiRequest.setVersion(previousVersion);
+            throw new VersionConflictException(apiRequest.getId() + " is no longer at version " + expectedVersion, e);
+        }
+    }
+
+    /**
+     * Scans the whole table with strongly consistent reads, reading only the partition key,
+     * and hands every ID to {@code sink}. Consumes read capacity in proportion to the table
+     * size.
+     */
+    public void scanIds(Consumer<String> sink) {
+        ScanIterable pages = dynamoDbClient.scanPaginator(r -> r
+                .tableName(tableName)
+                .consistentRead(true)
+                .projectionExpression("#id")
+                .expressionAttributeNames(Map.of("#id", partitionKey)));
+        for (Map<String, AttributeValue> item : pages.items()) {
+            sink.accept(item.get(partitionKey).s());
+        }
+    }
+
+    /**
+     * Reads one segment of a parallel Scan split into {@code totalSegments}, with eventually
+     * consistent reads of {@code pageSize} items per call. Each page is handed to
+     * {@code sink}; the scan stops early once {@code sink} returns {@code false}.
+     */
+    public void scanSegment(int segment, int totalSegments, int pageSize, Predicate<List<ApiRequest>> sink) {
+        ScanIterable pages = dynamoDbClient.scanPaginator(r -> r
+                .tableName(tableName)
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .limit(pageSize));
+        for (ScanResponse page : pages) {
+            List<ApiRequest> items = page.items().stream()
+                    .map(ApiRequestSchema.TABLE_SCHEMA::mapToItem)
+                    .toList();
+            if (!items.isEmpty() && !sink.test(items)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Looks up many IDs with BatchGetItem, 100 keys per call. Keys DynamoDB reports as
+     * unprocessed are retried with exponential backoff. IDs with no item are absent from
+     * the result.
+     */
+    public Map<String, ApiRequest> findAllByIds(Collection<String> requestIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(requestIds));
+        Map<String, ApiRequest> found = new HashMap<>();
+        for (int start = 0; start < ids.size(); start += BATCH_GET_LIMIT) {
+            readChunk(ids.subList(start, Math.min(start + BATCH_GET_LIMIT, ids.size())), found);
+        }
+        return found;
+    }
+
+    private void readChunk(List<String> chunk, Map<String, ApiRequest> found) {
+        List<Map<String, AttributeValue>> keys = chunk.stream()
+                .map(id -> Map.of(partitionKey, AttributeValue.fromS(id)))
+                .toList();
+        Map<String, KeysAndAttributes> pending = Map.of(tableName, KeysAndAttributes.builder().keys(keys).build());
+
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > batchMaxAttempts) {
+                throw new IllegalStateException(pending.get(tableName).keys().size() + " keys still unprocessed after "
+                        + batchMaxAttempts + " BatchGetItem attempts");
+            }
+            if (attempt > 1) {
+                backoff(attempt - 1);
+            }
+
+            Map<String, KeysAndAttributes> request = pending;
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(r -> r.requestItems(request));
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                ApiRequest apiRequest = ApiRequestSchema.TABLE_SCHEMA.mapToItem(item);
+                found.put(apiRequest.getId(), apiRequest);
+            }
+            pending = response.unprocessedKeys();
+        }
+    }
+
+    /**
+     * Writes all items with BatchWriteItem, 25 at a time. Items DynamoDB reports as
+     * unprocessed (usually because of throttling) are retried with exponential backoff.
+     * Every item is stamped with a new version first.
+     */
+    public void saveAll(Collection<ApiRequest> apiRequests) {
+        apiRequests.forEach(apiRequest -> apiRequest.setVersion(ApiRequestVersions.next(apiRequest.getVersion())));
+        List<ApiRequest> items = new ArrayList<>(apiRequests);
+        for (int start = 0; start < items.size(); start += BATCH_WRITE_LIMIT) {
+            writeChunk(items.subList(start, Math.min(start + BATCH_WRITE_LIMIT, items.size())));
+        }
+    }
+
+    private void writeChunk(List<ApiRequest> chunk) {
+        List<ApiRequest> pending = chunk;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > batchMaxAttempts) {
+                throw new IllegalStateException(pending.size() + " items still unprocessed after "
+                        + batchMaxAttempts + " BatchWriteItem attempts");
+            }
+            if (attempt > 1) {
+                backoff(attempt - 1);
+            }
+
+            WriteBatch.Builder<ApiRequest> writeBatch = WriteBatch.builder(ApiRequest.class)
+                    .mappedTableResource(table);
+            pending.forEach(writeBatch::addPutItem);
+
+            BatchWriteResult result = enhancedClient.batchWriteItem(r -> r.addWriteBatch(writeBatch.build()));
+            pending = result.unprocessedPutItemsForTable(table);
+        }
+    }
+
+    int batchMaxAttempts() {
+        return batchMaxAttempts;
+    }
+
+    void backoff(int retry) {
+        long maxDelay = batchBackoffMs << Math.min(retry - 1, 10);
+        try {
+            // Full jitter, so throttled writers do not retry in lockstep
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying unprocessed batch entries", e);
+        }
+    }
+}
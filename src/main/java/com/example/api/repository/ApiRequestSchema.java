@@ -0,0 +1,34 @@
+package com.example.api.repository;
+
+import com.example.api.model.ApiRequest;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+
+/**
+ * Precomputed mapping for {@link ApiRequest}. Unlike {@code TableSchema.fromBean}, building
+ * this needs no reflection, so it is created once and shared by every table handle.
+ */
+public final class ApiRequestSchema {
+
+    public static final TableSchema<ApiRequest> TABLE_SCHEMA = StaticTableSchema.builder(ApiRequest.class)
+            .newItemSupplier(ApiRequest::new)
+            .addAttribute(String.class, a -> a.name("id")
+                    .getter(ApiRequest::getId)
+                    .setter(ApiRequest::setId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("payload")
+                    .getter(ApiRequest::getPayload)
+                    .setter(ApiRequest::setPayload))
+            .addAttribute(String.class, a -> a.name("payloadRef")
+                    .getter(ApiRequest::getPayloadRef)
+                    .setter(ApiRequest::setPayloadRef))
+            .addAttribute(Long.class, a -> a.name(ApiRequestVersions.ATTRIBUTE)
+                    .getter(ApiRequest::getVersion)
+                    .setter(ApiRequest::setVersion))
+            .build();
+
+    private ApiRequestSchema() {
+    }
+}
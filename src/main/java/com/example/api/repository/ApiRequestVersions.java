@@ -0,0 +1,45 @@
+package com.example.api.repository;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Versions stamped on {@link com.example.api.model.ApiRequest}s. A version is the write time
+ * in milliseconds shifted left by 20 bits, with random low bits so that writes to the same
+ * item from different nodes in the same millisecond still differ. Versions are generated
+ * by the writer rather than read back from DynamoDB, so plain puts and BatchWriteItem can
+ * stamp them without an extra round trip.
+ */
+final class ApiRequestVersions {
+
+    static final String ATTRIBUTE = "version";
+
+    private static final int RANDOM_BITS = 20;
+
+    private ApiRequestVersions() {
+    }
+
+    /**
+     * A fresh version, greater than {@code previous} when that is known.
+     */
+    static long next(Long previous) {
+        long version = (System.currentTimeMillis() << RANDOM_BITS)
+                | ThreadLocalRandom.current().nextInt(1 << RANDOM_BITS);
+        // Keeps versions increasing even if this node's clock is behind the previous writer's
+        return previous == null ? version : Math.max(version, previous + 1);
+    }
+
+    /**
+     * Condition that the stored item is still at {@code expectedVersion}.
+     */
+    static Expression expect(long expectedVersion) {
+        return Expression.builder()
+                .expression("#version = :expected")
+                .expressionNames(Map.of("#version", ATTRIBUTE))
+                .expressionValues(Map.of(":expected", AttributeValue.fromN(Long.toString(expectedVersion))))
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.api.repository;
+
+import com.example.api.model.ApiRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link ApiRequestRepository}, backed by the Netty-based
+ * {@link DynamoDbAsyncClient}. Only created when {@code api.execution-mode=async}.
+ */
+@Repository
+@ConditionalOnProperty(name = "api.execution-mode", havingValue = "async")
+public class AsyncApiRequestRepository {
+
+    private final DynamoDbAsyncTable<ApiRequest> table;
+
+    public AsyncApiRequestRepository(DynamoDbAsyncClient dynamoDbAsyncClient,
+                                     @Value("${dynamodb.table-name}") String tableName,
+                                     @Value("${dynamodb.layout:single}") String layout) {
+        if (!"single".equals(layout)) {
+            throw new IllegalStateException("api.execution-mode=async only supports dynamodb.layout=single");
+        }
+        DynamoDbEnhancedAsyncClient enhancedClient = DynamoDbEnhancedAsyncClient.builder()
+                .dynamoDbClient(dynamoDbAsyncClient)
+                .build();
+        this.table = enhancedClient.table(tableName, ApiRequestSchema.TABLE_SCHEMA);
+    }
+
+    public CompletableFuture<ApiRequest> findById(String requestId) {
+        return table.getItem(Key.builder().partitionValue(requestId).build());
+    }
+
+    public CompletableFuture<Void> save(ApiRequest apiRequest) {
+        apiRequest.setVersion(ApiRequestVersions.next(apiRequest.getVersion()));
+        return table.putItem(apiRequest);
+    }
+}
@@ -0,0 +1,412 @@
+package com.example.api.repository;
+
+import com.example.api.model.ApiRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Write-sharded layout for {@link ApiRequest}s in {@code dynamodb.sharded.table-name}, for
+ * IDs written faster than a single partition accepts. Each write goes to a copy keyed
+ * {@code <shard>#<id>} (see {@link ShardedKeys}) with a random shard out of
+ * {@code dynamodb.sharded.shards}, so writes to one ID spread over that many partition
+ * keys. Reads gather every shard's copy in one BatchGetItem and keep the highest version;
+ * an ID has at most one copy per shard, older ones being superseded by version.
+ *
+ * <p>With {@code dynamodb.sharded.read-mode=index}, single-ID reads instead Query the
+ * global secondary index {@code dynamodb.sharded.index-name} (partition key {@code id},
+ * sort key {@code version}) for the newest copy: one read instead of one per shard, but
+ * eventually consistent, and the index's partition for a hot ID takes every write to it.
+ *
+ * <p>The unsharded {@code dynamodb.table-name} is read through the superclass. It is the
+ * source {@link ShardedLayoutMigration} copies from and, while
+ * {@code dynamodb.sharded.fallback-to-source=true}, answers IDs not copied yet. Only
+ * created when {@code dynamodb.layout=sharded}.
+ */
+@Repository
+@ConditionalOnProperty(name = "dynamodb.layout", havingValue = "sharded")
+public class ShardedApiRequestRepository extends ApiRequestRepository {
+
+    /**
+     * TransactWriteItems takes at most 100 items: one per shard for a conditional save, plus
+     * one for the source table while falling back to it.
+     */
+    static final int MAX_SHARDS = 100;
+
+    private static final String NEWER_THAN_EXPECTED = "attribute_not_exists(#version) OR #version <= :expected";
+
+    private final DynamoDbClient dynamoDbClient;
+
+    private final String sourceTableName;
+
+    private final String shardedTableName;
+
+    private final int shards;
+
+    private final boolean readFromIndex;
+
+    private final String indexName;
+
+    private final boolean fallbackToSource;
+
+    public ShardedApiRequestRepository(DynamoDbClient dynamoDbClient,
+                                       @Value("${dynamodb.table-name}") String tableName,
+                                       @Value("${dynamodb.sharded.table-name:ApiRequestShardedTable}") String shardedTableName,
+                                       @Value("${dynamodb.sharded.shards:8}") int shards,
+                                       @Value("${dynamodb.sharded.read-mode:scatter}") String readMode,
+                                       @Value("${dynamodb.sharded.index-name:id-version-index}") String indexName,
+                                       @Value("${dynamodb.sharded.fallback-to-source:true}") boolean fallbackToSource) {
+        super(dynamoDbClient, tableName);
+        int maxShards = fallbackToSource ? MAX_SHARDS - 1 : MAX_SHARDS;
+        if (shards < 1 || shards > maxShards) {
+            throw new IllegalArgumentException("dynamodb.sharded.shards must be between 1 and " + maxShards
+                    + (fallbackToSource ? " while dynamodb.sharded.fallback-to-source=true" : ""));
+        }
+        this.dynamoDbClient = dynamoDbClient;
+        this.sourceTableName = tableName;
+        this.shardedTableName = shardedTableName;
+        this.shards = shards;
+        this.readFromIndex = "index".equals(readMode);
+        this.indexName = indexName;
+        this.fallbackToSource = fallbackToSource;
+    }
+
+    @Override
+    public ApiRequest findById(String requestId) {
+        return findById(requestId, null);
+    }
+
+    @Override
+    public ApiRequest findById(String requestId, Duration timeout) {
+        ApiRequest apiRequest = readFromIndex
+                ? queryIndex(requestId, timeout)
+                : gather(List.of(requestId), timeout).get(requestId);
+        if (apiRequest == null && fallbackToSource) {
+            return timeout == null ? super.findById(requestId) : super.findById(requestId, timeout);
+        }
+        return apiRequest;
+    }
+
+    /**
+     * Looks up many IDs, gathering every shard's copy with BatchGetItem, 100 keys per call,
+     * so {@code 100 / dynamodb.sharded.shards} IDs per call.
+     */
+    @Override
+    public Map<String, ApiRequest> findAllByIds(Collection<String> requestIds) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(requestIds));
+        Map<String, ApiRequest> found = gather(ids, null);
+        if (fallbackToSource && found.size() < ids.size()) {
+            List<String> missing = ids.stream().filter(id -> !found.containsKey(id)).toList();
+            found.putAll(super.findAllByIds(missing));
+        }
+        return found;
+    }
+
+    /**
+     * Writes {@code apiRequest} unconditionally to a random shard, stamping it with a new
+     * version first.
+     *
+     * @return always {@code null}: older copies stay in the other shards, so no single
+     *         item is known to be replaced
+     */
+    @Override
+    public ApiRequest save(ApiRequest apiRequest) {
+        apiRequest.setVersion(ApiRequestVersions.next(apiRequest.getVersion()));
+        dynamoDbClient.putItem(PutItemRequest.builder()
+                .tableName(shardedTableName)
+                .item(toItem(apiRequest, randomShard()))
+                .build());
+        return null;
+    }
+
+    /**
+     * Writes {@code apiRequest} with a new version to a random shard, in one transaction
+     * with a check that no shard holds a version newer than {@code expectedVersion}. While
+     * {@code dynamodb.sharded.fallback-to-source=true} the source table's item is checked
+     * the same way, since an ID not migrated yet has its current version only there. Unlike
+     * the unsharded layout, an ID with no copy at all passes the check.
+     *
+     * @return always {@code null}, as for {@link #save(ApiRequest)}
+     * @throws VersionConflictException if any shard or the source table holds a newer
+     *                                  version, or a concurrent transaction wrote to the ID
+     */
+    @Override
+    public ApiRequest save(ApiRequest apiRequest, long expectedVersion) {
+        Long previousVersion = apiRequest.getVersion();
+        apiRequest.setVersion(ApiRequestVersions.next(expectedVersion));
+        Map<String, String> names = Map.of("#version", ApiRequestVersions.ATTRIBUTE);
+        Map<String, AttributeValue> values = Map.of(":expected", AttributeValue.fromN(Long.toString(expectedVersion)));
+        int target = randomShard();
+
+        List<TransactWriteItem> writes = new ArrayList<>(shards + 1);
+        for (int shard = 0; shard < shards; shard++) {
+            if (shard == target) {
+                writes.add(TransactWriteItem.builder().put(Put.builder()
+                        .tableName(shardedTableName)
+                        .item(toItem(apiRequest, shard))
+                        .conditionExpression(NEWER_THAN_EXPECTED)
+                        .expressionAttributeNames(names)
+                        .expressionAttributeValues(values)
+                        .build()).build());
+            } else {
+                writes.add(TransactWriteItem.builder().conditionCheck(ConditionCheck.builder()
+                        .tableName(shardedTableName)
+                        .key(key(shard, apiRequest.getId()))
+                        .conditionExpression(NEWER_THAN_EXPECTED)
+                        .expressionAttributeNames(names)
+                        .expressionAttributeValues(values)
+                        .build()).build());
+            }
+        }
+        if (fallbackToSource) {
+            writes.add(TransactWriteItem.builder().conditionCheck(ConditionCheck.builder()
+                    .tableName(sourceTableName)
+                    .key(Map.of(ApiRequestSchema.TABLE_SCHEMA.tableMetadata().primaryPartitionKey(),
+                            AttributeValue.fromS(apiRequest.getId())))
+                    .conditionExpression(NEWER_THAN_EXPECTED)
+                    .expressionAttributeNames(names)
+                    .expressionAttributeValues(values)
+                    .build()).build());
+        }
+        try {
+            dynamoDbClient.transactWriteItems(TransactWriteItemsRequest.builder().transactItems(writes).build());
+        } catch (TransactionCanceledException e) {
+            apiRequest.setVersion(previousVersion);
+            boolean conflict = e.cancellationReasons().stream()
+                    .anyMatch(reason -> "ConditionalCheckFailed".equals(reason.code())
+                            || "TransactionConflict".equals(reason.code()));
+            if (!conflict) {
+                throw e;
+            }
+            throw new VersionConflictException(apiRequest.getId() + " is no longer at version " + expectedVersion, e);
+        }
+        return null;
+    }
+
+    /**
+     * Writes all items with BatchWriteItem, 25 at a time, each to a random shard. Items
+     * DynamoDB reports as unprocessed are retried with exponential backoff. Every item is
+     * stamped with a new version first.
+     */
+    @Override
+    public void saveAll(Collection<ApiRequest> apiRequests) {
+        apiRequests.forEach(apiRequest -> apiRequest.setVersion(ApiRequestVersions.next(apiRequest.getVersion())));
+        List<WriteRequest> writes = apiRequests.stream()
+                .map(apiRequest -> WriteRequest.builder()
+                        .putRequest(PutRequest.builder().item(toItem(apiRequest, randomShard())).build())
+                        .build())
+                .toList();
+        for (int start = 0; start < writes.size(); start += BATCH_WRITE_LIMIT) {
+            writeChunk(writes.subList(start, Math.min(start + BATCH_WRITE_LIMIT, writes.size())));
+        }
+    }
+
+    private void writeChunk(List<WriteRequest> chunk) {
+        List<WriteRequest> pending = chunk;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > batchMaxAttempts()) {
+                throw new IllegalStateException(pending.size() + " items still unprocessed after "
+                        + batchMaxAttempts() + " BatchWriteItem attempts");
+            }
+            if (attempt > 1) {
+                backoff(attempt - 1);
+            }
+            BatchWriteItemResponse response = dynamoDbClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(Map.of(shardedTableName, pending))
+                    .build());
+            pending = response.unprocessedItems().getOrDefault(shardedTableName, List.of());
+        }
+    }
+
+    /**
+     * Scans the sharded table, then the source table while falling back to it, and hands
+     * every ID to {@code sink}. IDs with several copies are handed over more than once.
+     */
+    @Override
+    public void scanIds(Consumer<String> sink) {
+        ScanRequest request = ScanRequest.builder()
+                .tableName(shardedTableName)
+                .consistentRead(true)
+                .projectionExpression("#id")
+                .expressionAttributeNames(Map.of("#id", "id"))
+                .build();
+        for (Map<String, AttributeValue> item : dynamoDbClient.scanPaginator(request).items()) {
+            sink.accept(item.get("id").s());
+        }
+        if (fallbackToSource) {
+            super.scanIds(sink);
+        }
+    }
+
+    /**
+     * Same as {@link ApiRequestRepository#scanSegment}, over the sharded table and then,
+     * while falling back to it, the source table. A copy found by the scan may be outdated,
+     * so each page's IDs are looked up again with {@link #findAllByIds} and the newest
+     * copies are handed to {@code sink}.
+     */
+    @Override
+    public void scanSegment(int segment, int totalSegments, int pageSize, Predicate<List<ApiRequest>> sink) {
+        ScanRequest request = ScanRequest.builder()
+                .tableName(shardedTableName)
+                .segment(segment)
+                .totalSegments(totalSegments)
+                .limit(pageSize)
+                .build();
+        for (ScanResponse page : dynamoDbClient.scanPaginator(request)) {
+            List<String> ids = page.items().stream().map(item -> item.get("id").s()).distinct().toList();
+            if (!ids.isEmpty() && !sink.test(List.copyOf(findAllByIds(ids).values()))) {
+                return;
+            }
+        }
+        if (fallbackToSource) {
+            super.scanSegment(segment, totalSegments, pageSize, items ->
+                    sink.test(List.copyOf(findAllByIds(items.stream().map(ApiRequest::getId).toList()).values())));
+        }
+    }
+
+    /**
+     * Reads one segment of the unsharded source table, for {@link ShardedLayoutMigration}.
+     */
+    void scanSource(int segment, int totalSegments, int pageSize, Predicate<List<ApiRequest>> sink) {
+        super.scanSegment(segment, totalSegments, pageSize, sink);
+    }
+
+    /**
+     * Copies a request read from the source table, keeping its version, to a shard chosen
+     * by its ID, so running the copy again overwrites rather than adds a copy. A copy
+     * already in that shard is only replaced by a higher version.
+     *
+     * @return {@code false} if that shard already held the same or a newer version
+     */
+    boolean copyFromSource(ApiRequest apiRequest) {
+        PutItemRequest.Builder request = PutItemRequest.builder()
+                .tableName(shardedTableName)
+                .item(toItem(apiRequest, Math.floorMod(apiRequest.getId().hashCode(), shards)));
+        if (apiRequest.getVersion() == null) {
+            request.conditionExpression("attribute_not_exists(#pk)")
+                    .expressionAttributeNames(Map.of("#pk", ShardedKeys.PARTITION_KEY));
+        } else {
+            request.conditionExpression("attribute_not_exists(#pk) OR attribute_not_exists(#version) OR #version < :version")
+                    .expressionAttributeNames(Map.of("#pk", ShardedKeys.PARTITION_KEY, "#version", ApiRequestVersions.ATTRIBUTE))
+                    .expressionAttributeValues(Map.of(":version", AttributeValue.fromN(Long.toString(apiRequest.getVersion()))));
+        }
+        try {
+            dynamoDbClient.putItem(request.build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The newest copy of each of {@code requestIds} found in any shard.
+     */
+    private Map<String, ApiRequest> gather(List<String> requestIds, Duration timeout) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(requestIds.size() * shards);
+        for (String requestId : requestIds) {
+            for (int shard = 0; shard < shards; shard++) {
+                keys.add(key(shard, requestId));
+            }
+        }
+        Map<String, ApiRequest> found = new HashMap<>();
+        for (int start = 0; start < keys.size(); start += BATCH_GET_LIMIT) {
+            readChunk(keys.subList(start, Math.min(start + BATCH_GET_LIMIT, keys.size())), timeout, found);
+        }
+        return found;
+    }
+
+    private void readChunk(List<Map<String, AttributeValue>> keys, Duration timeout, Map<String, ApiRequest> found) {
+        Map<String, KeysAndAttributes> pending = Map.of(shardedTableName, KeysAndAttributes.builder().keys(keys).build());
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            if (attempt > batchMaxAttempts()) {
+                throw new IllegalStateException(pending.get(shardedTableName).keys().size() + " keys still unprocessed after "
+                        + batchMaxAttempts() + " BatchGetItem attempts");
+            }
+            if (attempt > 1) {
+                backoff(attempt - 1);
+            }
+            BatchGetItemRequest.Builder request = BatchGetItemRequest.builder().requestItems(pending);
+            if (timeout != null) {
+                request.overrideConfiguration(override -> override.apiCallTimeout(timeout));
+            }
+            BatchGetItemResponse response = dynamoDbClient.batchGetItem(request.build());
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(shardedTableName, List.of())) {
+                ApiRequest apiRequest = ApiRequestSchema.TABLE_SCHEMA.mapToItem(item);
+                found.merge(apiRequest.getId(), apiRequest, ShardedApiRequestRepository::newer);
+            }
+            pending = response.unprocessedKeys();
+        }
+    }
+
+    private ApiRequest queryIndex(String requestId, Duration timeout) {
+        QueryRequest.Builder request = QueryRequest.builder()
+                .tableName(shardedTableName)
+                .indexName(indexName)
+                .keyConditionExpression("#id = :id")
+                .expressionAttributeNames(Map.of("#id", "id"))
+                .expressionAttributeValues(Map.of(":id", AttributeValue.fromS(requestId)))
+                .scanIndexForward(false)
+                .limit(1);
+        if (timeout != null) {
+            request.overrideConfiguration(override -> override.apiCallTimeout(timeout));
+        }
+        QueryResponse response = dynamoDbClient.query(request.build());
+        if (!response.hasItems() || response.items().isEmpty()) {
+            return null;
+        }
+        return ApiRequestSchema.TABLE_SCHEMA.mapToItem(response.items().get(0));
+    }
+
+    /** The copy with the higher version; copies without one lose to any that has one. */
+    static ApiRequest newer(ApiRequest a, ApiRequest b) {
+        if (a.getVersion() == null) {
+            return b;
+        }
+        return b.getVersion() != null && b.getVersion() > a.getVersion() ? b : a;
+    }
+
+    private Map<String, AttributeValue> toItem(ApiRequest apiRequest, int shard) {
+        Map<String, AttributeValue> item = new HashMap<>(ApiRequestSchema.TABLE_SCHEMA.itemToMap(apiRequest, true));
+        item.put(ShardedKeys.PARTITION_KEY, AttributeValue.fromS(ShardedKeys.key(shard, apiRequest.getId())));
+        return item;
+    }
+
+    private static Map<String, AttributeValue> key(int shard, String requestId) {
+        return Map.of(ShardedKeys.PARTITION_KEY, AttributeValue.fromS(ShardedKeys.key(shard, requestId)));
+    }
+
+    private int randomShard() {
+        return ThreadLocalRandom.current().nextInt(shards);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.api.repository;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * Partition keys of the write-sharded layout. A copy of request {@code id} in shard
+ * {@code n} is stored under {@code "<n>#<id>"} in the {@link #PARTITION_KEY} attribute;
+ * the shard comes first so copies of one ID do not share a key prefix.
+ */
+public final class ShardedKeys {
+
+    public static final String PARTITION_KEY = "pk";
+
+    private static final char SEPARATOR = '#';
+
+    private ShardedKeys() {
+    }
+
+    static String key(int shard, String requestId) {
+        return Integer.toString(shard) + SEPARATOR + requestId;
+    }
+
+    /**
+     * The request ID in a primary key of either layout.
+     */
+    public static String requestId(Map<String, AttributeValue> key) {
+        AttributeValue sharded = key.get(PARTITION_KEY);
+        if (sharded == null) {
+            return ApiRequestSchema.TABLE_SCHEMA.mapToItem(key).getId();
+        }
+        String value = sharded.s();
+        return value.substring(value.indexOf(SEPARATOR) + 1);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.api.repository;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Backfills the sharded layout from the unsharded table with a parallel segmented Scan of
+ * {@code dynamodb.sharded.migration.segments} segments on
+ * {@code dynamodb.sharded.migration.concurrency} threads. Every item is copied with its
+ * version by {@link ShardedApiRequestRepository#copyFromSource}, which never replaces a
+ * newer copy, so the backfill can run while the service already writes to the sharded
+ * table, and can simply be run again after a failure.
+ *
+ * <p>Migrating online: switch to {@code dynamodb.layout=sharded} with
+ * {@code dynamodb.sharded.fallback-to-source=true}, so writes go to the sharded table and
+ * IDs not copied yet are still read from the old one; start one node with
+ * {@code dynamodb.sharded.migration.enabled=true}; once it logs completion, turn the
+ * fallback off.
+ */
+@Component
+@ConditionalOnProperty(name = "dynamodb.sharded.migration.enabled", havingValue = "true")
+public class ShardedLayoutMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedLayoutMigration.class);
+
+    private final ShardedApiRequestRepository repository;
+
+    private final int segments;
+
+    private final int pageSize;
+
+    private final AtomicLong copied = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicInteger failedSegments = new AtomicInteger();
+
+    private final ExecutorService workers;
+
+    public ShardedLayoutMigration(ShardedApiRequestRepository repository,
+                                  @Value("${dynamodb.sharded.migration.segments:16}") int segments,
+                                  @Value("${dynamodb.sharded.migration.concurrency:4}") int concurrency,
+                                  @Value("${dynamodb.sharded.migration.page-size:100}") int pageSize) {
+        this.repository = repository;
+        this.segments = segments;
+        this.pageSize = pageSize;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(concurrency, 1), runnable -> {
+            Thread thread = new Thread(runnable, "sharded-migration-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread thread = new Thread(this::migrate, "sharded-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void migrate() {
+        long start = System.nanoTime();
+        log.info("Copying requests to the sharded layout in {} segments", segments);
+        for (int segment = 0; segment < segments; segment++) {
+            int scanSegment = segment;
+            workers.execute(() -> copySegment(scanSegment));
+        }
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.info("Sharded layout migration in progress: {} copied, {} already current", copied.get(), skipped.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (failedSegments.get() == 0) {
+            log.info("Sharded layout migration finished in {} ms: {} copied, {} already current",
+                    elapsedMs, copied.get(), skipped.get());
+        } else {
+            log.warn("Sharded layout migration finished in {} ms with {} of {} segments failed: {} copied, {} already current; run it again",
+                    elapsedMs, failedSegments.get(), segments, copied.get(), skipped.get());
+        }
+    }
+
+    private void copySegment(int segment) {
+        try {
+            repository.scanSource(segment, segments, pageSize, page -> {
+                page.forEach(apiRequest -> (repository.copyFromSource(apiRequest) ? copied : skipped).incrementAndGet());
+                return !Thread.currentThread().isInterrupted();
+            });
+        } catch (RuntimeException e) {
+            failedSegments.incrementAndGet();
+            log.warn("Sharded layout migration of segment {} failed: {}", segment, e.getMessage());
+        }
+    }
+
+    long copied() {
+        return copied.get();
+    }
+
+    long skipped() {
+        return skipped.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
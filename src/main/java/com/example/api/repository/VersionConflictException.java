@@ -0,0 +1,16 @@
+package com.example.api.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A conditional write was rejected because the stored request is no longer at the version
+ * the caller expected.
+ */
+@ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.api.resilience;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A timeout that follows a dependency's observed latency: {@code multiplier} times one of
+ * the percentiles {@code timer} publishes, clamped to {@code [min, max]}. Stays at
+ * {@code initial} until the timer has data. Recomputed at most once a second, since taking
+ * a histogram snapshot is not free.
+ */
+public class AdaptiveTimeout {
+
+    private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Timer timer;
+
+    private final double percentile;
+
+    private final double multiplier;
+
+    private final long minNanos;
+
+    private final long maxNanos;
+
+    private final long initialNanos;
+
+    private volatile long currentNanos;
+
+    private volatile long refreshedAt;
+
+    public AdaptiveTimeout(Timer timer, double percentile, double multiplier, Duration min, Duration max, Duration initial) {
+        this.timer = timer;
+        this.percentile = percentile;
+        this.multiplier = multiplier;
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+        this.initialNanos = initial.toNanos();
+        this.currentNanos = initialNanos;
+        this.refreshedAt = System.nanoTime() - REFRESH_NANOS;
+    }
+
+    public long currentNanos() {
+        long now = System.nanoTime();
+        if (now - refreshedAt >= REFRESH_NANOS) {
+            // A racing refresh computes the same value, so no lock is needed
+            refreshedAt = now;
+            currentNanos = compute();
+        }
+        return currentNanos;
+    }
+
+    public Duration current() {
+        return Duration.ofNanos(currentNanos());
+    }
+
+    private long compute() {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                double observed = value.value(TimeUnit.NANOSECONDS);
+                if (observed <= 0) {
+                    return initialNanos;
+                }
+                return Math.max(minNanos, Math.min(maxNanos, (long) (observed * multiplier)));
+            }
+        }
+        return initialNanos;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.api.resilience;
+
+import com.example.api.metrics.DependencyMetrics;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Guards the read path's Redis and DynamoDB calls. Each dependency gets a bulkhead that
+ * bounds concurrent calls and a circuit breaker that stops calling it while it is failing
+ * or slow. A skipped or failed Redis call is treated as a miss; DynamoDB reads get a
+ * timeout that follows their observed p99 and can optionally be hedged with a second
+ * request once the first has taken longer than the observed p95.
+ *
+ * <p>Breaker and bulkhead state is published under {@code resilience4j.*}, the current
+ * timeouts under {@code api.resilience.timeout}.
+ */
+@Component
+@EnableConfigurationProperties(ResilienceProperties.class)
+public class DependencyGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(DependencyGuard.class);
+
+    private final CircuitBreaker redisBreaker;
+
+    private final CircuitBreaker dynamoDbBreaker;
+
+    private final Bulkhead redisBulkhead;
+
+    private final Bulkhead dynamoDbBulkhead;
+
+    private final AdaptiveTimeout redisTimeout;
+
+    private final AdaptiveTimeout dynamoDbTimeout;
+
+    private final AdaptiveTimeout hedgeDelay;
+
+    private final boolean hedgeEnabled;
+
+    private final Semaphore hedgePermits;
+
+    private final ExecutorService hedgeExecutor;
+
+    private final Counter redisSkipped;
+
+    private final Counter hedges;
+
+    private final Counter staleServed;
+
+    public DependencyGuard(DependencyMetrics metrics,
+                           MeterRegistry meterRegistry,
+                           ResilienceProperties properties,
+                           @Value("${spring.redis.timeout:5000}") long redisTimeoutMaxMs,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        ResilienceProperties.CircuitBreaker breaker = properties.circuitBreaker();
+        ResilienceProperties.Redis redis = properties.redis();
+        ResilienceProperties.DynamoDb dynamoDb = properties.dynamodb();
+        ResilienceProperties.DynamoDb.Hedge hedge = dynamoDb.hedge();
+        double timeoutMultiplier = properties.timeout().multiplier();
+
+        CircuitBreakerRegistry breakers = CircuitBreakerRegistry.ofDefaults();
+        this.redisBreaker = breakers.circuitBreaker("redis", breakerConfig(breaker, redis.slowCallMs()));
+        this.dynamoDbBreaker = breakers.circuitBreaker("dynamodb", breakerConfig(breaker, dynamoDb.slowCallMs()));
+
+        // Fail fast instead of queueing: a full bulkhead means the dependency is already saturated
+        BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+        this.redisBulkhead = bulkheads.bulkhead("redis", BulkheadConfig.custom()
+                .maxConcurrentCalls(redis.maxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+        this.dynamoDbBulkhead = bulkheads.bulkhead("dynamodb", BulkheadConfig.custom()
+                .maxConcurrentCalls(dynamoDb.maxConcurrentCalls())
+                .maxWaitDuration(Duration.ZERO)
+                .build());
+
+        Duration redisTimeoutMax = Duration.ofMillis(redisTimeoutMaxMs);
+        Duration dynamoDbTimeoutMax = Duration.ofMillis(dynamoDb.timeout().maxMs());
+        // Until reads have been timed, reads get the longest timeout
+        this.redisTimeout = new AdaptiveTimeout(metrics.redisGet(), 0.99, timeoutMultiplier,
+                Duration.ofMillis(redis.timeout().minMs()), redisTimeoutMax, redisTimeoutMax);
+        this.dynamoDbTimeout = new AdaptiveTimeout(metrics.dynamoDbGet(), 0.99, timeoutMultiplier,
+                Duration.ofMillis(dynamoDb.timeout().minMs()), dynamoDbTimeoutMax, dynamoDbTimeoutMax);
+        this.hedgeDelay = new AdaptiveTimeout(metrics.dynamoDbGet(), 0.95, 1.0,
+                Duration.ofMillis(hedge.minDelayMs()), dynamoDbTimeoutMax, Duration.ofMillis(hedge.initialDelayMs()));
+
+        this.hedgeEnabled = hedge.enabled();
+        this.hedgePermits = new Semaphore(hedge.maxConcurrent());
+        this.hedgeExecutor = !hedgeEnabled ? null : virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newCachedThreadPool(runnable -> {
+                    Thread thread = new Thread(runnable, "dynamodb-hedged-read");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+        timeoutGauge(meterRegistry, "redis", "timeout", redisTimeout);
+        timeoutGauge(meterRegistry, "dynamodb", "timeout", dynamoDbTimeout);
+        timeoutGauge(meterRegistry, "dynamodb", "hedge_delay", hedgeDelay);
+        this.redisSkipped = Counter.builder("api.resilience.redis.skipped")
+                .description("Redis reads treated as misses because Redis failed or was bypassed")
+                .register(meterRegistry);
+        this.hedges = Counter.builder("api.resilience.hedges")
+                .description("Hedged DynamoDB reads sent after the first read exceeded the hedge delay")
+                .register(meterRegistry);
+        this.staleServed = Counter.builder("api.resilience.stale.served")
+                .description("Reads answered with a stale near-cache entry because DynamoDB failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a best-effort Redis call (a read, or a back-fill of a value just read from
+     * DynamoDB), returning {@code fallback} if Redis fails, is slow enough to have opened
+     * its breaker, or already has too many calls in flight.
+     */
+    public <T> T tryRedis(Supplier<T> call, T fallback) {
+        try {
+            return redisBulkhead.executeSupplier(() -> redisBreaker.executeSupplier(call));
+        } catch (RuntimeException e) {
+            redisSkipped.increment();
+            log.debug("Skipping Redis: {}", e.toString());
+            return fallback;
+        }
+    }
+
+    /**
+     * Runs a DynamoDB read. {@code call} receives the timeout to apply to the request.
+     *
+     * @throws DependencyUnavailableException if the breaker is open or the bulkhead is full
+     */
+    public <T> T readDynamoDb(Function<Duration, T> call) {
+        try {
+            return dynamoDbBulkhead.executeSupplier(() -> dynamoDbBreaker.executeSupplier(() -> {
+                Duration timeout = dynamoDbTimeout.current();
+                return hedgeEnabled ? hedged(call, timeout) : call.apply(timeout);
+            }));
+        } catch (CallNotPermittedException | BulkheadFullException e) {
+            throw new DependencyUnavailableException("DynamoDB read not attempted: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Per-command timeout for Redis GETs, in milliseconds.
+     */
+    public long redisTimeoutMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(redisTimeout.currentNanos());
+    }
+
+    public void recordStaleServed() {
+        staleServed.increment();
+    }
+
+    private <T> T hedged(Function<Duration, T> call, Duration timeout) {
+        CompletableFuture<T> primary = CompletableFuture.supplyAsync(() -> call.apply(timeout), hedgeExecutor);
+        try {
+            return primary.get(hedgeDelay.currentNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slower than usual: race a second read against the first
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading from DynamoDB", e);
+        }
+
+        if (!hedgePermits.tryAcquire()) {
+            return join(primary);
+        }
+        hedges.increment();
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(() -> call.apply(timeout), hedgeExecutor);
+        } catch (RuntimeException e) {
+            hedgePermits.release();
+            throw e;
+        }
+        hedge.whenComplete((result, failure) -> hedgePermits.release());
+        return join(firstSuccessful(primary, hedge));
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<T, Throwable> complete = (value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+            } else if (failures.incrementAndGet() == 2) {
+                result.completeExceptionally(failure);
+            }
+        };
+        first.whenComplete(complete);
+        second.whenComplete(complete);
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure instanceof RuntimeException runtimeException
+                ? runtimeException
+                : new IllegalStateException(failure);
+    }
+
+    private static CircuitBreakerConfig breakerConfig(ResilienceProperties.CircuitBreaker breaker, long slowCallMs) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(breaker.failureRateThreshold())
+                .slowCallRateThreshold(breaker.slowCallRateThreshold())
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallMs))
+                .slidingWindowSize(breaker.slidingWindowSize())
+                .minimumNumberOfCalls(breaker.minimumCalls())
+                .waitDurationInOpenState(Duration.ofMillis(breaker.openMs()))
+                .permittedNumberOfCallsInHalfOpenState(Math.max(1, breaker.minimumCalls() / 2))
+                .build();
+    }
+
+    private static void timeoutGauge(MeterRegistry meterRegistry, String dependency, String kind, AdaptiveTimeout timeout) {
+        Gauge.builder("api.resilience.timeout", timeout, value -> value.currentNanos() / 1_000_000.0)
+                .description("Current adaptive timeout in milliseconds")
+                .tag("dependency", dependency)
+                .tag("kind", kind)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (hedgeExecutor != null) {
+            hedgeExecutor.shutdown();
+            hedgeExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
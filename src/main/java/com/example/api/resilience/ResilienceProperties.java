@@ -0,0 +1,71 @@
+package com.example.api.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+/**
+ * The {@code resilience.*} settings {@link DependencyGuard} applies, bound by name so each
+ * value is checked against its property rather than its position in a constructor.
+ * Unset properties take the defaults below, which match application.properties.
+ */
+@ConfigurationProperties(prefix = "resilience")
+public record ResilienceProperties(@DefaultValue CircuitBreaker circuitBreaker,
+                                   @DefaultValue Timeout timeout,
+                                   @DefaultValue Redis redis,
+                                   @DefaultValue DynamoDb dynamodb) {
+
+    /**
+     * Settings from {@code properties}, keyed without the {@code resilience.} prefix (for
+     * example {@code dynamodb.hedge.enabled}), with defaults for the rest. For wiring
+     * outside Spring, such as in tests and benchmarks.
+     */
+    public static ResilienceProperties bind(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bindOrCreate("", ResilienceProperties.class);
+    }
+
+    /** Shared by both dependencies' breakers; {@code slow-call-ms} is per dependency. */
+    public record CircuitBreaker(@DefaultValue("50") float failureRateThreshold,
+                                 @DefaultValue("80") float slowCallRateThreshold,
+                                 @DefaultValue("100") int slidingWindowSize,
+                                 @DefaultValue("20") int minimumCalls,
+                                 @DefaultValue("5000") long openMs) {
+    }
+
+    /** Adaptive timeouts are {@code multiplier} times the observed p99. */
+    public record Timeout(@DefaultValue("3") double multiplier) {
+    }
+
+    /** The Redis timeout's upper bound is {@code spring.redis.timeout}. */
+    public record Redis(@DefaultValue("64") int maxConcurrentCalls,
+                        @DefaultValue("50") long slowCallMs,
+                        @DefaultValue Bounds timeout) {
+
+        public record Bounds(@DefaultValue("5") long minMs) {
+        }
+    }
+
+    public record DynamoDb(@DefaultValue("64") int maxConcurrentCalls,
+                           @DefaultValue("500") long slowCallMs,
+                           @DefaultValue Bounds timeout,
+                           @DefaultValue Hedge hedge) {
+
+        public record Bounds(@DefaultValue("20") long minMs,
+                             @DefaultValue("2000") long maxMs) {
+        }
+
+        /**
+         * {@code initial-delay-ms} applies until reads have been timed; after that the
+         * delay follows the observed p95, never below {@code min-delay-ms}.
+         */
+        public record Hedge(@DefaultValue("false") boolean enabled,
+                            @DefaultValue("5") long minDelayMs,
+                            @DefaultValue("50") long initialDelayMs,
+                            @DefaultValue("16") int maxConcurrent) {
+        }
+    }
+}
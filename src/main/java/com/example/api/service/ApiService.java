@@ -1,88 +1,502 @@
 package com.example.api.service;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import com.example.api.blob.BlobStore;
+import com.example.api.cache.EarlyRefresh;
+import com.example.api.cache.HotKeyCache;
+import com.example.api.cache.NearCache;
+import com.example.api.cache.NegativeCache;
+import com.example.api.cache.RedisBatchExecutor;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.cache.SingleFlight;
+import com.example.api.codec.ApiRequestCodec;
+import com.example.api.metrics.DependencyMetrics;
 import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.repository.VersionConflictException;
+import com.example.api.resilience.DependencyGuard;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 @PropertySource("classpath:application.properties")
 public class ApiService {
 
-    @Autowired
-    private DynamoDbClient dynamoDbClient;
+    private static final Logger log = LoggerFactory.getLogger(ApiService.class);
 
-    @Value("${dynamodb.endpoint}")
-    private String dynamoDbEndpoint;
+    private final ApiRequestRepository apiRequestRepository;
 
-    @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
 
-    @Value("${dynamodb.table-name}")
-    private String tableName;
+    private final RedisTemplate<String, Object> redisTemplate;
 
-    @Value("${aws.region}")
-    private String awsRegion;
+    private final ApiRequestCodec codec;
 
-    @Value("${kafka.topic}")
-    private String topic;
+    private final RedisBatchExecutor redisBatch;
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final RedisCachePolicy cachePolicy;
+
+    private final NearCache nearCache;
+
+    private final NegativeCache negativeCache;
+
+    private final HotKeyCache hotKeys;
+
+    private final EarlyRefresh earlyRefresh;
+
+    private final DependencyMetrics metrics;
+
+    private final DependencyGuard guard;
+
+    private final BlobStore blobStore;
+
+    private final String topic;
+
+    private final int offloadThresholdBytes;
 
-    public ApiService(DynamoDbClient dynamoDbClient, KafkaTemplate<String, String> kafkaTemplate){
-        this.dynamoDbClient = dynamoDbClient;
+    private final SingleFlight<String, ApiRequest> loads = new SingleFlight<>();
+
+    public ApiService(ApiRequestRepository apiRequestRepository,
+                      KafkaTemplate<String, String> kafkaTemplate,
+                      RedisTemplate<String, Object> redisTemplate,
+                      ApiRequestCodec codec,
+                      RedisBatchExecutor redisBatch,
+                      RedisCachePolicy cachePolicy,
+                      NearCache nearCache,
+                      NegativeCache negativeCache,
+                      HotKeyCache hotKeys,
+                      EarlyRefresh earlyRefresh,
+                      DependencyMetrics metrics,
+                      DependencyGuard guard,
+                      BlobStore blobStore,
+                      @Value("${kafka.topic}") String topic,
+                      @Value("${api.payload.offload-threshold-bytes:262144}") int offloadThresholdBytes) {
+        this.apiRequestRepository = apiRequestRepository;
         this.kafkaTemplate = kafkaTemplate;
+        this.redisTemplate = redisTemplate;
+        this.codec = codec;
+        this.redisBatch = redisBatch;
+        this.cachePolicy = cachePolicy;
+        this.nearCache = nearCache;
+        this.negativeCache = negativeCache;
+        this.hotKeys = hotKeys;
+        this.earlyRefresh = earlyRefresh;
+        this.metrics = metrics;
+        this.guard = guard;
+        this.blobStore = blobStore;
+        this.topic = topic;
+        this.offloadThresholdBytes = offloadThresholdBytes;
     }
 
     public ApiRequest getRequest(String requestId){
-        ApiRequest cachedRequest = (ApiRequest) redisTemplate.opsForValue().get(requestId);
+        ApiRequest pinnedRequest = hotKeys.get(requestId);
+        if (pinnedRequest != null){
+            // Hot keys never miss: one reader per refresh interval reloads them in the background
+            if (hotKeys.claimRefresh(requestId)){
+                earlyRefresh.submit(() -> loads.execute(requestId, () -> loadRequest(requestId)));
+            }
+            return pinnedRequest;
+        }
+        ApiRequest nearCachedRequest = nearCache.get(requestId);
+        if (nearCachedRequest != null){
+            hotKeys.pin(nearCachedRequest);
+            if (earlyRefresh.shouldRefresh(nearCache.ageMillis(requestId), nearCache.ttlMillis())){
+                earlyRefresh.submit(() -> loads.execute(requestId, () -> loadRequest(requestId)));
+            }
+            return nearCachedRequest;
+        }
+        if (negativeCache.isKnownAbsent(requestId)){
+            return null;
+        }
+
+        // Concurrent misses for the same ID share a single Redis/DynamoDB load
+        return loads.execute(requestId, () -> loadRequest(requestId));
+    }
+
+    /**
+     * Version of {@code requestId} if the near cache or Redis can tell without reading the
+     * payload, otherwise {@code null}. Redis is only asked for the header of the cached
+     * value, with GETRANGE, so an unchanged request is confirmed for a few bytes and
+     * nothing is decoded.
+     */
+    public Long getCachedVersion(String requestId){
+        ApiRequest nearCachedRequest = nearCache.get(requestId);
+        if (nearCachedRequest != null){
+            return nearCachedRequest.getVersion();
+        }
+        int prefixLength = codec.versionPrefixLength();
+        if (prefixLength == 0){
+            return null;
+        }
+        byte[] key = redisTemplate.getStringSerializer().serialize(requestId);
+        byte[] prefix = guard.tryRedis(() -> metrics.redisGetRange().record(() -> redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().getRange(key, 0, prefixLength - 1))), null);
+        return codec.readVersion(prefix);
+    }
+
+    private ApiRequest loadRequest(String requestId){
+        long lookupToken = negativeCache.lookupToken(requestId);
+        // A slow or failing Redis is skipped and the read falls through to DynamoDB
+        ApiRequest cachedRequest = (ApiRequest) guard.tryRedis(
+                () -> metrics.redisGet().record(() -> cachePolicy.read(redisTemplate, requestId)), null);
         if (cachedRequest != null){
+            metrics.recordRedisLookups(1, 0);
+            nearCache.put(requestId, cachedRequest);
+            hotKeys.pin(cachedRequest);
             return cachedRequest;
         }
+        metrics.recordRedisLookups(0, 1);
 
-        ApiRequest apiRequest = fetchFromDynamoDb(requestId);
+        long start = System.nanoTime();
+        ApiRequest apiRequest;
+        try {
+            apiRequest = fetchFromDynamoDb(requestId);
+        } catch (RuntimeException e) {
+            ApiRequest staleRequest = nearCache.getStale(requestId);
+            if (staleRequest == null) {
+                throw e;
+            }
+            guard.recordStaleServed();
+            log.warn("Serving stale copy of {} after DynamoDB read failed: {}", requestId, e.getMessage());
+            return staleRequest;
+        }
+        earlyRefresh.recordRecompute(System.nanoTime() - start);
         if (apiRequest != null){
-            redisTemplate.opsForValue().set(requestId, apiRequest);
+            guard.tryRedis(() -> {
+                metrics.redisSet().record(() -> cachePolicy.write(redisTemplate, apiRequest));
+                return null;
+            }, null);
+            nearCache.put(requestId, apiRequest);
+            hotKeys.pin(apiRequest);
+        } else {
+            negativeCache.recordAbsent(requestId, lookupToken);
         }
 
         return apiRequest;
     }
 
     private ApiRequest fetchFromDynamoDb(String requestId){
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        DynamoDbTable<ApiRequest> mappedTable = enhancedClient.table(tableName, TableSchema.fromBean(ApiRequest.class));
         try{
-            ApiRequest response = mappedTable.getItem(r -> r.key(k -> k.partitionValue(requestId)));
+            ApiRequest response = guard.readDynamoDb(
+                    timeout -> metrics.dynamoDbGet().record(() -> apiRequestRepository.findById(requestId, timeout)));
             if (response == null){
                 // Log that the item wasn't found
-                System.err.println("No item found in DynamoDB for ID: " + requestId);
+                log.debug("No item found in DynamoDB for ID: {}", requestId);
                 return null;
             }
             return response;
         } catch (Exception e){
             // Log the exception and rethrow or handle it
-            System.err.println("Error fetching item from DynamoDB: " + e.getMessage());
+            log.error("Error fetching item {} from DynamoDB: {}", requestId, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * API write path: persists the request and publishes it to {@code kafka.topic}. The
+     * record carries a {@link RecordOrigin} marker so consumers do not persist it again.
+     */
     public void saveRequest(ApiRequest apiRequest) {
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        DynamoDbTable<ApiRequest> mappedTable = enhancedClient.table(tableName, TableSchema.fromBean(ApiRequest.class));
-        mappedTable.putItem(apiRequest);
-
-        kafkaTemplate.send(topic, apiRequest.getId(), apiRequest.getPayload());
-        redisTemplate.opsForValue().set(apiRequest.getId(), apiRequest);
+        saveRequest(apiRequest, null);
+    }
+
+    /**
+     * Same as {@link #saveRequest(ApiRequest)}, but when {@code expectedVersion} is given the
+     * write only succeeds if the stored request is still at that version. On return
+     * {@code apiRequest} carries its new version.
+     *
+     * @throws VersionConflictException if the stored request has changed since
+     */
+    public void saveRequest(ApiRequest apiRequest, Long expectedVersion) {
+        offload(apiRequest);
+        ApiRequest replaced;
+        try {
+            replaced = expectedVersion == null
+                    ? metrics.dynamoDbPut().record(() -> apiRequestRepository.save(apiRequest))
+                    : metrics.dynamoDbPut().record(() -> apiRequestRepository.save(apiRequest, expectedVersion));
+        } catch (VersionConflictException e) {
+            // The put was rejected, so nothing points at the payload written for it. Other
+            // failures may still have applied the put, so their payload is kept.
+            discardPayload(apiRequest.getId(), apiRequest.getPayloadRef());
+            throw e;
+        }
+
+        publish(apiRequest);
+        cache(apiRequest);
+        discardReplacedPayload(replaced, apiRequest);
+    }
+
+    /**
+     * Consumer write path: persists a request that arrived from Kafka. Never publishes,
+     * so consuming a record cannot produce another one.
+     */
+    public void persistRequest(ApiRequest apiRequest) {
+        offload(apiRequest);
+        ApiRequest replaced = metrics.dynamoDbPut().record(() -> apiRequestRepository.save(apiRequest));
+        cache(apiRequest);
+        discardReplacedPayload(replaced, apiRequest);
+    }
+
+    /**
+     * Deletes the blob of the request a put replaced, once nothing stored points at it any
+     * more. Only the unsharded layout reports the replaced request; batch writes and the
+     * sharded layout leave such blobs behind.
+     */
+    private void discardReplacedPayload(ApiRequest replaced, ApiRequest apiRequest) {
+        if (replaced != null && replaced.getPayloadRef() != null
+                && !replaced.getPayloadRef().equals(apiRequest.getPayloadRef())) {
+            discardPayload(apiRequest.getId(), replaced.getPayloadRef());
+        }
+    }
+
+    /** The write has already succeeded or failed on its own, so a failed delete only leaves a stray blob. */
+    private void discardPayload(String requestId, String payloadRef) {
+        if (payloadRef == null) {
+            return;
+        }
+        try {
+            blobStore.delete(payloadRef);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete payload {} of request {}: {}", payloadRef, requestId, e.getMessage());
+        }
+    }
+
+    private void cache(ApiRequest apiRequest) {
+        metrics.redisSet().record(() -> cachePolicy.write(redisTemplate, apiRequest));
+        nearCache.put(apiRequest.getId(), apiRequest);
+        hotKeys.pin(apiRequest);
+        negativeCache.recordPresent(apiRequest.getId());
+        nearCache.publishInvalidation(apiRequest.getId());
+    }
+
+    /**
+     * API write path for a raw payload: streams {@code content} into the blob store without
+     * buffering it, then saves and publishes the request with only the reference.
+     *
+     * @return the saved request, with its new version
+     */
+    public ApiRequest saveStreamed(String requestId, InputStream content) throws IOException {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(requestId);
+        apiRequest.setPayloadRef(blobStore.write(requestId, content));
+        saveRequest(apiRequest);
+        return apiRequest;
+    }
+
+    /**
+     * The payload of {@code apiRequest} as a stream, from the blob store when it was
+     * offloaded, or {@code null} if there is no request or its blob is missing.
+     */
+    public Resource openPayload(ApiRequest apiRequest) throws IOException {
+        if (apiRequest == null) {
+            return null;
+        }
+        if (apiRequest.getPayloadRef() != null) {
+            return blobStore.open(apiRequest.getPayloadRef());
+        }
+        String payload = apiRequest.getPayload();
+        return new ByteArrayResource(payload == null ? new byte[0] : payload.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Moves a payload above {@code api.payload.offload-threshold-bytes} to the blob store,
+     * so DynamoDB, Kafka and Redis carry only the reference. A threshold of 0 disables this.
+     */
+    private void offload(ApiRequest apiRequest) {
+        String payload = apiRequest.getPayload();
+        // A UTF-8 char takes at most 3 bytes, so shorter payloads need not be encoded to check
+        if (offloadThresholdBytes <= 0 || payload == null || (long) payload.length() * 3 <= offloadThresholdBytes) {
+            return;
+        }
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= offloadThresholdBytes) {
+            return;
+        }
+        try {
+            apiRequest.setPayloadRef(blobStore.write(apiRequest.getId(), new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not offload payload of " + apiRequest.getId(), e);
+        }
+        apiRequest.setPayload(null);
+    }
+
+    /**
+     * Batch form of {@link #saveRequest}: persists the requests, then publishes each one
+     * with the {@link RecordOrigin} marker. Used by the write-behind flusher.
+     */
+    public void saveBatch(Collection<ApiRequest> apiRequests) {
+        persistBatch(apiRequests);
+        for (ApiRequest apiRequest : apiRequests) {
+            publish(apiRequest);
+        }
+    }
+
+    /**
+     * Hands the record to the producer without waiting for the broker. The producer batches
+     * and retries on its own; a record that still fails is already stored in DynamoDB, so
+     * the failure is logged and counted rather than surfaced to the caller.
+     */
+    private void publish(ApiRequest apiRequest) {
+        ProducerRecord<String, String> record = apiRequest.getPayloadRef() != null
+                ? RecordOrigin.apiPayloadRefRecord(topic, apiRequest.getId(), apiRequest.getPayloadRef())
+                : RecordOrigin.apiRecord(topic, apiRequest.getId(), apiRequest.getPayload());
+        metrics.recordKafkaSend(kafkaTemplate.send(record))
+                .whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        log.error("Publishing request {} to {} failed: {}", apiRequest.getId(), topic, failure.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Persists a batch of requests with BatchWriteItem and refreshes their cache entries
+     * in one Redis pipeline. Used by the Kafka batch listener; does not publish to Kafka.
+     */
+    public void persistBatch(Collection<ApiRequest> apiRequests) {
+        if (apiRequests.isEmpty()) {
+            return;
+        }
+        apiRequests.forEach(this::offload);
+        metrics.dynamoDbBatchWrite().record(() -> apiRequestRepository.saveAll(apiRequests));
+        cacheInRedis(apiRequests);
+
+        List<String> requestIds = apiRequests.stream().map(ApiRequest::getId).toList();
+        apiRequests.forEach(apiRequest -> nearCache.put(apiRequest.getId(), apiRequest));
+        apiRequests.forEach(hotKeys::pin);
+        requestIds.forEach(negativeCache::recordPresent);
+        nearCache.publishInvalidations(requestIds);
+    }
+
+    /**
+     * Resolves many IDs at once, handing each request found to {@code sink} as soon as its
+     * tier answers: near cache first, then pipelined Redis MGETs, then BatchGetItem for the rest.
+     * DynamoDB results are back-filled into Redis in one pipeline. IDs with no item, or
+     * known to have none, are skipped.
+     */
+    public void streamRequests(Collection<String> requestIds, Consumer<ApiRequest> sink) {
+        List<String> remaining = new ArrayList<>();
+        for (String requestId : new LinkedHashSet<>(requestIds)) {
+            ApiRequest nearCachedRequest = nearCache.get(requestId);
+            if (nearCachedRequest != null) {
+                sink.accept(nearCachedRequest);
+            } else if (!negativeCache.isKnownAbsent(requestId)) {
+                remaining.add(requestId);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> lookupTokens = new HashMap<>();
+        remaining.forEach(requestId -> lookupTokens.put(requestId, negativeCache.lookupToken(requestId)));
+        List<Object> cached = guard.tryRedis(() -> metrics.redisMultiGet().record(() -> redisBatch.getAll(remaining)), null);
+        List<String> misses = new ArrayList<>();
+        for (int i = 0; i < remaining.size(); i++) {
+            ApiRequest cachedRequest = cached == null ? null : (ApiRequest) cached.get(i);
+            if (cachedRequest != null) {
+                nearCache.put(cachedRequest.getId(), cachedRequest);
+                sink.accept(cachedRequest);
+            } else {
+                misses.add(remaining.get(i));
+            }
+        }
+        metrics.recordRedisLookups(remaining.size() - misses.size(), misses.size());
+        if (misses.isEmpty()) {
+            return;
+        }
+
+        Map<String, ApiRequest> loaded = metrics.dynamoDbBatchGet().record(() -> apiRequestRepository.findAllByIds(misses));
+        for (String requestId : misses) {
+            if (!loaded.containsKey(requestId)) {
+                negativeCache.recordAbsent(requestId, lookupTokens.get(requestId));
+            }
+        }
+        if (loaded.isEmpty()) {
+            return;
+        }
+        guard.tryRedis(() -> {
+            cacheInRedis(loaded.values());
+            return null;
+        }, null);
+        for (String requestId : misses) {
+            ApiRequest apiRequest = loaded.get(requestId);
+            if (apiRequest != null) {
+                nearCache.put(requestId, apiRequest);
+                sink.accept(apiRequest);
+            }
+        }
+    }
+
+    /**
+     * Caches requests already read from DynamoDB in bulk, such as by a warm-up scan, in
+     * Redis (one pipeline) and the near cache.
+     */
+    public void cacheLoaded(Collection<ApiRequest> apiRequests) {
+        guard.tryRedis(() -> {
+            cacheInRedis(apiRequests);
+            return null;
+        }, null);
+        apiRequests.forEach(apiRequest -> nearCache.put(apiRequest.getId(), apiRequest));
+    }
+
+    /**
+     * Drops cached copies of requests changed outside this service's write path, as
+     * reported by the table's stream. {@code changes} maps each ID to the version it now
+     * has, or to {@code null} if it was deleted or its version is unknown; {@code removed}
+     * holds the IDs that were deleted. Every other ID now exists, so it is dropped from the
+     * negative cache. Redis entries already at that version, such as those this service
+     * wrote itself, are kept; the rest are deleted from Redis and from every node's near
+     * cache. Redis failures propagate, so the caller can retry the same changes.
+     *
+     * @return how many IDs were evicted
+     */
+    public int evictChanged(Map<String, Long> changes, Set<String> removed) {
+        List<String> requestIds = new ArrayList<>(changes.keySet());
+        for (String requestId : requestIds) {
+            if (!removed.contains(requestId)) {
+                negativeCache.recordPresent(requestId);
+            }
+        }
+        int prefixLength = codec.versionPrefixLength();
+        List<byte[]> prefixes = prefixLength == 0 ? null : redisBatch.getPrefixes(requestIds, prefixLength);
+        List<String> stale = new ArrayList<>(requestIds.size());
+        for (int i = 0; i < requestIds.size(); i++) {
+            Long version = changes.get(requestIds.get(i));
+            if (version == null || prefixes == null || !version.equals(codec.readVersion(prefixes.get(i)))) {
+                stale.add(requestIds.get(i));
+            }
+        }
+        if (stale.isEmpty()) {
+            return 0;
+        }
+        redisBatch.deleteAll(stale);
+        nearCache.invalidateEverywhere(stale);
+        return stale.size();
+    }
+
+    private void cacheInRedis(Collection<ApiRequest> apiRequests) {
+        metrics.redisPipelinedSet().record(() -> redisBatch.setAll(apiRequests));
     }
 }
@@ -0,0 +1,151 @@
+package com.example.api.service;
+
+import com.example.api.cache.NearCache;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.AsyncApiRequestRepository;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Non-blocking variant of {@link ApiService}. Redis, DynamoDB and Kafka are all called
+ * through their async clients, so no thread is held while a request waits on I/O.
+ * Enabled with {@code api.execution-mode=async}.
+ *
+ * Only the core read and write paths are implemented, with the same {@link DependencyMetrics}
+ * timers as blocking mode. Payload offload, negative caching, conditional writes,
+ * If-None-Match answered from the cached version, the bulk and payload endpoints, and the
+ * resilience guards are blocking-mode only.
+ */
+@Service
+@PropertySource("classpath:application.properties")
+@ConditionalOnProperty(name = "api.execution-mode", havingValue = "async")
+public class AsyncApiService {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncApiService.class);
+
+    @Value("${kafka.topic}")
+    private String topic;
+
+    private final AsyncApiRequestRepository apiRequestRepository;
+
+    private final ReactiveRedisTemplate<String, ApiRequest> redisTemplate;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    private final NearCache nearCache;
+
+    private final RedisCachePolicy cachePolicy;
+
+    private final DependencyMetrics metrics;
+
+    private final ConcurrentMap<String, CompletableFuture<ApiRequest>> loads = new ConcurrentHashMap<>();
+
+    public AsyncApiService(AsyncApiRequestRepository apiRequestRepository,
+                           ReactiveRedisTemplate<String, ApiRequest> redisTemplate,
+                           KafkaTemplate<String, String> kafkaTemplate,
+                           NearCache nearCache,
+                           RedisCachePolicy cachePolicy,
+                           DependencyMetrics metrics,
+                           @Value("${api.payload.offload-threshold-bytes:262144}") int offloadThresholdBytes,
+                           @Value("${cache.negative.enabled:true}") boolean negativeCacheEnabled) {
+        this.apiRequestRepository = apiRequestRepository;
+        this.redisTemplate = redisTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.nearCache = nearCache;
+        this.cachePolicy = cachePolicy;
+        this.metrics = metrics;
+        if (offloadThresholdBytes > 0) {
+            log.warn("api.payload.offload-threshold-bytes ignored: api.execution-mode=async stores every payload inline");
+        }
+        if (negativeCacheEnabled) {
+            log.warn("cache.negative.enabled ignored: api.execution-mode=async does not cache missing IDs");
+        }
+    }
+
+    public Mono<ApiRequest> getRequest(String requestId) {
+        ApiRequest nearCachedRequest = nearCache.get(requestId);
+        if (nearCachedRequest != null) {
+            return Mono.just(nearCachedRequest);
+        }
+
+        // Concurrent misses for the same ID share one in-flight load
+        return Mono.fromFuture(() -> load(requestId), true);
+    }
+
+    private CompletableFuture<ApiRequest> load(String requestId) {
+        CompletableFuture<ApiRequest> load = new CompletableFuture<>();
+        CompletableFuture<ApiRequest> existing = loads.putIfAbsent(requestId, load);
+        if (existing != null) {
+            return existing;
+        }
+
+        timed(metrics.redisGet(), redisTemplate.opsForValue().get(requestId))
+                .doOnNext(apiRequest -> metrics.recordRedisLookups(1, 0))
+                .switchIfEmpty(Mono.defer(() -> {
+                    metrics.recordRedisLookups(0, 1);
+                    return timed(metrics.dynamoDbGet(), Mono.fromFuture(() -> apiRequestRepository.findById(requestId)));
+                }).flatMap(apiRequest -> cacheInRedis(apiRequest).thenReturn(apiRequest)))
+                .doOnNext(apiRequest -> nearCache.put(requestId, apiRequest))
+                .toFuture()
+                .whenComplete((apiRequest, error) -> {
+                    loads.remove(requestId, load);
+                    if (error != null) {
+                        load.completeExceptionally(error);
+                    } else {
+                        load.complete(apiRequest);
+                    }
+                });
+        return load;
+    }
+
+    public Mono<Void> saveRequest(ApiRequest apiRequest) {
+        String requestId = apiRequest.getId();
+        return timed(metrics.dynamoDbPut(), Mono.fromFuture(() -> apiRequestRepository.save(apiRequest)))
+                .then(Mono.when(
+                        Mono.fromFuture(() -> metrics.recordKafkaSend(
+                                kafkaTemplate.send(RecordOrigin.apiRecord(topic, requestId, apiRequest.getPayload())))),
+                        cacheInRedis(apiRequest)))
+                .then(Mono.fromRunnable(() -> {
+                    nearCache.put(requestId, apiRequest);
+                    nearCache.publishInvalidation(requestId);
+                }).subscribeOn(Schedulers.boundedElastic()))
+                .then();
+    }
+
+    /**
+     * Reactive form of {@link RedisCachePolicy#write}.
+     */
+    private Mono<?> cacheInRedis(ApiRequest apiRequest) {
+        if (!cachePolicy.isCacheable(apiRequest)) {
+            return timed(metrics.redisSet(), redisTemplate.delete(apiRequest.getId()));
+        }
+        Duration ttl = cachePolicy.ttl();
+        return timed(metrics.redisSet(), ttl != null
+                ? redisTemplate.opsForValue().set(apiRequest.getId(), apiRequest, ttl)
+                : redisTemplate.opsForValue().set(apiRequest.getId(), apiRequest));
+    }
+
+    /** Records the time from subscribing to {@code call} until it completes, fails or is cancelled. */
+    private static <T> Mono<T> timed(Timer timer, Mono<T> call) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start();
+            return call.doFinally(signal -> sample.stop(timer));
+        });
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.api.service;
+
+import com.example.api.model.ApiRequest;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch alternative to {@link KafkaConsumerService}: each poll is collapsed to the latest
+ * record per key and persisted with BatchWriteItem and a pipelined Redis update, split
+ * across {@code kafka.consumer.lanes} parallel lanes by key. Offsets are committed only
+ * after the whole batch is stored; on failure the batch is redelivered.
+ */
+@Service
+@PropertySource("classpath:application.properties")
+@ConditionalOnProperty(name = "kafka.consumer.batch-enabled", havingValue = "true")
+public class BatchKafkaConsumerService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchKafkaConsumerService.class);
+
+    private final ApiService apiService;
+
+    private final KeyOrderedLanes lanes;
+
+    public BatchKafkaConsumerService(ApiService apiService,
+                                     @Value("${kafka.consumer.lanes:4}") int laneCount,
+                                     @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.apiService = apiService;
+        this.lanes = new KeyOrderedLanes(laneCount, virtualThreads);
+    }
+
+    @KafkaListener(topics = "${kafka.topic}", groupId = "${kafka.apigroup}",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void consume(List<ConsumerRecord<String, String>> records, Acknowledgment acknowledgment) {
+        // Last write wins within a batch
+        Map<String, ApiRequest> latest = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            if (record.key() == null) {
+                log.warn("Skipping record without key at offset {}", record.offset());
+                continue;
+            }
+            if (RecordOrigin.isApiPublished(record)) {
+                // Already persisted by ApiService.saveRequest before it was published
+                continue;
+            }
+            ApiRequest request = new ApiRequest();
+            request.setId(record.key());
+            if (RecordOrigin.hasPayloadRef(record)) {
+                request.setPayloadRef(record.value());
+            } else {
+                request.setPayload(record.value());
+            }
+            latest.put(record.key(), request);
+        }
+
+        lanes.process(latest, apiService::persistBatch);
+        acknowledgment.acknowledge();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lanes.close();
+    }
+}
@@ -2,33 +2,42 @@ package com.example.api.service;
 
 import com.example.api.model.ApiRequest;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
 @Service
 @PropertySource("classpath:application.properties")
+@ConditionalOnProperty(name = "kafka.consumer.batch-enabled", havingValue = "false", matchIfMissing = true)
 public class KafkaConsumerService {
 
-    @Value("${kafka.topic}")
-    private String topic;
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumerService.class);
 
-    @Value("${kafka.apigroup}")
-    private String group;
+    private final ApiService apiService;
 
-    @Autowired
-    private ApiService apiService;
+    public KafkaConsumerService(ApiService apiService) {
+        this.apiService = apiService;
+    }
 
-    @KafkaListener(topics = "api-requests", groupId = "api-group")
+    @KafkaListener(topics = "${kafka.topic}", groupId = "${kafka.apigroup}")
     public void consume(ConsumerRecord<String, String> record) {
-        System.out.println("Consumed message: Key = " + record.key() + ", Value = " + record.value());
+        log.debug("Consumed message: Key = {}, offset = {}", record.key(), record.offset());
+        if (RecordOrigin.isApiPublished(record)) {
+            // Already persisted by ApiService.saveRequest before it was published
+            return;
+        }
         // Process the message (e.g., log, trigger downstream actions)
         ApiRequest request = new ApiRequest();
         request.setId(record.key());
-        request.setPayload(record.value());
-        apiService.saveRequest(request); // Persist to DynamoDB
-        System.out.println("Message stored in database.");
+        if (RecordOrigin.hasPayloadRef(record)) {
+            request.setPayloadRef(record.value());
+        } else {
+            request.setPayload(record.value());
+        }
+        apiService.persistRequest(request); // Persist to DynamoDB without re-publishing
+        log.debug("Message {} stored in database.", record.key());
     }
 }
@@ -0,0 +1,95 @@
+package com.example.api.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Splits a batch into lanes by key hash and processes the lanes in parallel, returning
+ * once every lane is done. A key always maps to the same lane, so records for one key are
+ * never processed concurrently or out of order, while different keys from the same
+ * partition no longer wait on each other.
+ */
+class KeyOrderedLanes implements AutoCloseable {
+
+    private final int laneCount;
+
+    private final ExecutorService executor;
+
+    KeyOrderedLanes(int laneCount, boolean virtualThreads) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("laneCount must be at least 1: " + laneCount);
+        }
+        this.laneCount = laneCount;
+        if (laneCount == 1) {
+            this.executor = null;
+        } else if (virtualThreads) {
+            this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.executor = Executors.newFixedThreadPool(laneCount, runnable -> {
+                Thread thread = new Thread(runnable, "kafka-lane");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Hands each non-empty lane of {@code byKey} to {@code work}, in key insertion order
+     * within the lane. If any lane fails, the first failure is rethrown after the other
+     * lanes have finished.
+     */
+    <T> void process(Map<String, T> byKey, Consumer<List<T>> work) {
+        if (executor == null || byKey.size() <= 1) {
+            work.accept(new ArrayList<>(byKey.values()));
+            return;
+        }
+
+        List<List<T>> lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        byKey.forEach((key, value) -> lanes.get(Math.floorMod(key.hashCode(), laneCount)).add(value));
+
+        List<Future<?>> running = new ArrayList<>(laneCount);
+        for (List<T> lane : lanes) {
+            if (!lane.isEmpty()) {
+                running.add(executor.submit(() -> work.accept(lane)));
+            }
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> lane : running) {
+            try {
+                lane.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtimeException
+                            ? runtimeException
+                            : new IllegalStateException("Lane failed", e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Interrupted while waiting for lanes", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+}
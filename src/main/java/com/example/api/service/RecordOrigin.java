@@ -0,0 +1,54 @@
+package com.example.api.service;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Marks records published by the API write path. The API persists a request before
+ * publishing it, so consumers treat marked records as already stored and skip them
+ * instead of writing them to DynamoDB a second time.
+ */
+public final class RecordOrigin {
+
+    public static final String HEADER = "x-api-origin";
+
+    /** Present when the record value is a blob store reference rather than the payload itself. */
+    public static final String PAYLOAD_REF_HEADER = "x-api-payload-ref";
+
+    private static final byte[] API = "api-service".getBytes(StandardCharsets.UTF_8);
+
+    private RecordOrigin() {
+    }
+
+    public static ProducerRecord<String, String> apiRecord(String topic, String key, String value) {
+        return new ProducerRecord<>(topic, null, key, value, List.of(new RecordHeader(HEADER, API)));
+    }
+
+    /**
+     * Same as {@link #apiRecord(String, String, String)} for a request whose payload was
+     * offloaded: the value is the blob store reference, flagged by {@link #PAYLOAD_REF_HEADER}.
+     */
+    public static ProducerRecord<String, String> apiPayloadRefRecord(String topic, String key, String payloadRef) {
+        return new ProducerRecord<>(topic, null, key, payloadRef,
+                List.of(new RecordHeader(HEADER, API), new RecordHeader(PAYLOAD_REF_HEADER, new byte[0])));
+    }
+
+    public static boolean isApiPublished(ConsumerRecord<?, ?> record) {
+        Header origin = record.headers().lastHeader(HEADER);
+        return origin != null && Arrays.equals(origin.value(), API);
+    }
+
+    /**
+     * Whether the record value is a blob store reference, to be stored as the request's
+     * {@code payloadRef} rather than its payload.
+     */
+    public static boolean hasPayloadRef(ConsumerRecord<?, ?> record) {
+        return record.headers().lastHeader(PAYLOAD_REF_HEADER) != null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.api.warmup;
+
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.service.ApiService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preloads the hottest requests into the near cache and Redis once the application has
+ * started, so a fresh node, or one whose Redis lost its data, does not send its first
+ * minutes of reads to DynamoDB. IDs come from the {@link HotKeySnapshot} a previous run
+ * left behind and are loaded through {@link ApiService#streamRequests}. Without a snapshot,
+ * and with {@code cache.warmup.scan.enabled=true}, the table is instead read with a
+ * parallel segmented Scan until {@code cache.warmup.max-keys} items are cached.
+ *
+ * <p>Loads run on {@code cache.warmup.concurrency} threads, and warm-up gives up after
+ * {@code cache.warmup.timeout-ms}. Until it finishes or gives up,
+ * {@link CacheWarmupHealthIndicator} keeps the node out of the readiness group.
+ */
+@Component
+public class CacheWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    enum State { PENDING, RUNNING, DONE, TIMED_OUT, DISABLED }
+
+    private final ApiService apiService;
+
+    private final ApiRequestRepository apiRequestRepository;
+
+    private final HotKeySnapshot snapshot;
+
+    private final boolean enabled;
+
+    private final int maxKeys;
+
+    private final int batchSize;
+
+    private final int concurrency;
+
+    private final long timeoutMs;
+
+    private final boolean scanEnabled;
+
+    private final int scanSegments;
+
+    private final AtomicLong loaded = new AtomicLong();
+
+    private volatile State state;
+
+    private volatile String source = "none";
+
+    private volatile long target;
+
+    private final ExecutorService workers;
+
+    public CacheWarmer(ApiService apiService,
+                       ApiRequestRepository apiRequestRepository,
+                       HotKeySnapshot snapshot,
+                       @Value("${cache.warmup.enabled:true}") boolean enabled,
+                       @Value("${cache.warmup.max-keys:10000}") int maxKeys,
+                       @Value("${cache.warmup.batch-size:500}") int batchSize,
+                       @Value("${cache.warmup.concurrency:4}") int concurrency,
+                       @Value("${cache.warmup.timeout-ms:120000}") long timeoutMs,
+                       @Value("${cache.warmup.scan.enabled:false}") boolean scanEnabled,
+                       @Value("${cache.warmup.scan.segments:16}") int scanSegments) {
+        this.apiService = apiService;
+        this.apiRequestRepository = apiRequestRepository;
+        this.snapshot = snapshot;
+        this.enabled = enabled;
+        this.maxKeys = maxKeys;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.timeoutMs = timeoutMs;
+        this.scanEnabled = scanEnabled;
+        this.scanSegments = scanSegments;
+        this.state = enabled ? State.PENDING : State.DISABLED;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(concurrency, 1), runnable -> {
+            Thread thread = new Thread(runnable, "cache-warmup-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            Thread thread = new Thread(this::warmUp, "cache-warmup");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    void warmUp() {
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        List<String> hotIds = snapshot.read(maxKeys);
+        if (!hotIds.isEmpty()) {
+            source = "snapshot";
+            target = hotIds.size();
+            for (int from = 0; from < hotIds.size(); from += batchSize) {
+                List<String> chunk = hotIds.subList(from, Math.min(from + batchSize, hotIds.size()));
+                workers.execute(() -> loadIds(chunk));
+            }
+        } else if (scanEnabled) {
+            source = "scan";
+            target = maxKeys;
+            for (int segment = 0; segment < scanSegments; segment++) {
+                int scanSegment = segment;
+                workers.execute(() -> scan(scanSegment));
+            }
+        }
+        workers.shutdown();
+
+        boolean finished;
+        try {
+            finished = workers.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finished = false;
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (finished) {
+            state = State.DONE;
+            log.info("Cache warm-up from {} loaded {} requests in {} ms", source, loaded.get(), elapsedMs);
+        } else {
+            workers.shutdownNow();
+            state = State.TIMED_OUT;
+            log.warn("Cache warm-up from {} gave up after {} ms with {} of {} requests loaded",
+                    source, elapsedMs, loaded.get(), target);
+        }
+    }
+
+    private void loadIds(List<String> requestIds) {
+        try {
+            apiService.streamRequests(requestIds, apiRequest -> loaded.incrementAndGet());
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up could not load {} requests: {}", requestIds.size(), e.getMessage());
+        }
+    }
+
+    private void scan(int segment) {
+        try {
+            apiRequestRepository.scanSegment(segment, scanSegments, batchSize, page -> {
+                if (loaded.get() >= maxKeys || Thread.currentThread().isInterrupted()) {
+                    return false;
+                }
+                apiService.cacheLoaded(page);
+                return loaded.addAndGet(page.size()) < maxKeys;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up scan of segment {} failed: {}", segment, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether the node may take traffic: warm-up finished, gave up, or is disabled.
+     */
+    public boolean isComplete() {
+        State current = state;
+        return current == State.DONE || current == State.TIMED_OUT || current == State.DISABLED;
+    }
+
+    State state() {
+        return state;
+    }
+
+    String source() {
+        return source;
+    }
+
+    long loaded() {
+        return loaded.get();
+    }
+
+    long target() {
+        return target;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.api.warmup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} until {@link CacheWarmer} has finished or given up.
+ * Included in the readiness group ({@code management.endpoint.health.group.readiness}), so
+ * a starting node receives no traffic while its caches are still cold. Liveness is not
+ * affected.
+ */
+@Component
+public class CacheWarmupHealthIndicator implements HealthIndicator {
+
+    private final CacheWarmer cacheWarmer;
+
+    public CacheWarmupHealthIndicator(CacheWarmer cacheWarmer) {
+        this.cacheWarmer = cacheWarmer;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = cacheWarmer.isComplete() ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("state", cacheWarmer.state().name().toLowerCase())
+                .withDetail("source", cacheWarmer.source())
+                .withDetail("loaded", cacheWarmer.loaded())
+                .withDetail("target", cacheWarmer.target())
+                .build();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.api.warmup;
+
+import com.example.api.cache.NearCache;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local file listing this node's hottest request IDs, most frequently read first, for
+ * {@link CacheWarmer} to preload on the next start. Written every
+ * {@code cache.warmup.snapshot.interval-ms} and on shutdown, from the near cache's frequency
+ * sketch. The file must live on a volume that survives restarts to be of any use.
+ * <pre>
+ * int     magic ("HKS1")
+ * int     number of IDs
+ * per ID  unsigned short length, then the ID's UTF-8 bytes
+ * </pre>
+ * Files are replaced atomically, so a crash mid-write leaves the previous snapshot intact.
+ */
+@Component
+public class HotKeySnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeySnapshot.class);
+
+    static final int MAGIC = 0x484B5331;
+
+    private final NearCache nearCache;
+
+    private final Path file;
+
+    private final long intervalMs;
+
+    private final int maxKeys;
+
+    private final boolean enabled;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hot-key-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public HotKeySnapshot(NearCache nearCache,
+                          @Value("${cache.warmup.snapshot.file:data/hot-keys.bin}") String file,
+                          @Value("${cache.warmup.snapshot.interval-ms:60000}") long intervalMs,
+                          @Value("${cache.warmup.max-keys:10000}") int maxKeys,
+                          @Value("${cache.warmup.enabled:true}") boolean enabled) {
+        this.nearCache = nearCache;
+        this.file = Paths.get(file);
+        this.intervalMs = intervalMs;
+        this.maxKeys = maxKeys;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled && intervalMs > 0) {
+            writer.scheduleWithFixedDelay(this::write, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the current hot set. An empty near cache, as right after a start, leaves the
+     * previous snapshot in place rather than replacing it with nothing.
+     */
+    void write() {
+        List<String> requestIds = nearCache.hottestIds(maxKeys);
+        if (requestIds.isEmpty()) {
+            return;
+        }
+        try {
+            write(requestIds);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write hot key snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    void write(List<String> requestIds) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(requestIds.size());
+        int length = 2 * Integer.BYTES;
+        for (String requestId : requestIds) {
+            byte[] bytes = requestId.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                continue;
+            }
+            encoded.add(bytes);
+            length += Short.BYTES + bytes.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(encoded.size());
+        for (byte[] bytes : encoded) {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+        buffer.flip();
+
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, "hot-keys-", ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Wrote {} hot keys to {}", encoded.size(), file);
+    }
+
+    /**
+     * Up to {@code limit} IDs from the last snapshot, hottest first, or none if there is no
+     * readable snapshot. The file is memory-mapped rather than read into a buffer.
+     */
+    public List<String> read(int limit) {
+        if (!Files.isRegularFile(file)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC) {
+                log.warn("Ignoring hot key snapshot {}: not a snapshot file", file);
+                return List.of();
+            }
+            int count = Math.min(buffer.getInt(), limit);
+            List<String> requestIds = new ArrayList<>(Math.max(count, 0));
+            byte[] bytes = new byte[0xFFFF];
+            for (int i = 0; i < count; i++) {
+                int length = Short.toUnsignedInt(buffer.getShort());
+                buffer.get(bytes, 0, length);
+                requestIds.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+            return requestIds;
+        } catch (IOException | BufferUnderflowException e) {
+            log.warn("Ignoring unreadable hot key snapshot {}: {}", file, e.toString());
+            return List.of();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdownNow();
+        if (enabled) {
+            // The hot set as of shutdown is the best guess for what the next start will need
+            write();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.api.writebehind;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The write-behind queue is at capacity; the client should retry later.
+ */
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class WriteBehindFullException extends RuntimeException {
+
+    public WriteBehindFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.api.writebehind;
+
+import com.example.api.model.ApiRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only, segmented log of accepted write-behind requests. Every accepted request is
+ * appended to the current segment before it is acknowledged; once the flusher has
+ * persisted everything written to older segments they are deleted. Segments still on
+ * disk at startup are replayed.
+ *
+ * With fsync on, appends are made durable by {@link #awaitDurable}, which callers invoke
+ * after releasing their own lock: one fsync then covers every entry appended before it
+ * started (group commit), instead of one fsync per request under the caller's lock.
+ * Otherwise not thread-safe: callers serialize the other methods.
+ */
+class WriteBehindJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindJournal.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+
+    private final boolean fsync;
+
+    /** Segments whose entries may not be persisted yet, oldest first. */
+    private final List<Path> retained = new ArrayList<>();
+
+    private long nextSegment;
+
+    private Path currentSegment;
+
+    /** Replaced by {@link #rotate()} only while holding {@link #syncLock}. */
+    private FileChannel current;
+
+    /** Sequence number of the last appended entry. */
+    private volatile long appended;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    /** Sequence number of the last entry known to be on disk. Guarded by {@link #syncLock}. */
+    private long synced;
+
+    WriteBehindJournal(Path directory, boolean fsync) throws IOException {
+        this.directory = directory;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        retained.addAll(existingSegments());
+        nextSegment = retained.isEmpty() ? 0 : segmentNumber(retained.get(retained.size() - 1)) + 1;
+        openSegment();
+    }
+
+    /**
+     * Reads back every entry left by a previous run, oldest first. A segment is read up
+     * to its first truncated entry (from a crash mid-append), and the rest of it is
+     * ignored. A complete entry that does not decode to a request is skipped with a
+     * warning, so the acknowledged writes after it are still recovered.
+     */
+    List<ApiRequest> recover() throws IOException {
+        List<ApiRequest> entries = new ArrayList<>();
+        for (Path segment : retained) {
+            long remaining = Files.size(segment);
+            try (InputStream in = Files.newInputStream(segment);
+                 DataInputStream data = new DataInputStream(in)) {
+                byte[] entry;
+                while ((entry = readEntry(data, remaining)) != null) {
+                    remaining -= Integer.BYTES + entry.length;
+                    ApiRequest apiRequest = decode(entry);
+                    if (apiRequest == null) {
+                        log.warn("Skipping malformed {}-byte entry in write-behind segment {}", entry.length, segment);
+                        continue;
+                    }
+                    entries.add(apiRequest);
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Writes {@code apiRequest} to the current segment, without forcing it to disk.
+     *
+     * @return the entry's sequence number, to pass to {@link #awaitDurable}
+     */
+    long append(ApiRequest apiRequest) throws IOException {
+        ByteBuffer entry = encode(apiRequest);
+        while (entry.hasRemaining()) {
+            current.write(entry);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Returns once the entry numbered {@code sequence} is on disk, forcing the current
+     * segment unless a concurrent caller's force already covered it. A no-op with fsync
+     * off. Safe to call concurrently with the other methods.
+     */
+    void awaitDurable(long sequence) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (synced >= sequence) {
+                return;
+            }
+            // Every entry up to here was written to the current segment or a rotated, forced one
+            long target = appended;
+            current.force(false);
+            synced = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the current segment and starts a new one. Entries appended so far stay on
+     * disk until {@link #releaseRetained()} is called.
+     */
+    void rotate() throws IOException {
+        syncLock.lock();
+        try {
+            if (fsync) {
+                current.force(false);
+                synced = appended;
+            }
+            current.close();
+            retained.add(currentSegment);
+            openSegment();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Deletes every segment rotated out so far. Call only once all of their entries
+     * have been persisted.
+     */
+    void releaseRetained() throws IOException {
+        for (Path segment : retained) {
+            Files.deleteIfExists(segment);
+        }
+        retained.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        current.close();
+    }
+
+    private void openSegment() throws IOException {
+        currentSegment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_SUFFIX));
+        current = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private List<Path> existingSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        // Zero-padded numbers, so lexical order is creation order
+        segments.sort(null);
+        return segments;
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static ByteBuffer encode(ApiRequest apiRequest) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        writeString(data, apiRequest.getId());
+        writeString(data, apiRequest.getPayload());
+        // Appended after the original two fields, so entries written without them still read
+        data.writeBoolean(apiRequest.getVersion() != null);
+        data.writeLong(apiRequest.getVersion() == null ? 0 : apiRequest.getVersion());
+        writeString(data, apiRequest.getPayloadRef());
+
+        ByteBuffer entry = ByteBuffer.allocate(Integer.BYTES + bytes.size());
+        entry.putInt(bytes.size()).put(bytes.toByteArray()).flip();
+        return entry;
+    }
+
+    /**
+     * The next entry's bytes, or {@code null} at the end of the segment or when its length
+     * prefix is not a length that fits in the {@code remaining} bytes of the segment.
+     */
+    private static byte[] readEntry(DataInputStream data, long remaining) throws IOException {
+        try {
+            int length = data.readInt();
+            if (length < 0 || length > remaining - Integer.BYTES) {
+                return null;
+            }
+            byte[] entry = new byte[length];
+            data.readFully(entry);
+            return entry;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The request in {@code entry}, or {@code null} if its fields do not fit in it or it
+     * has no ID.
+     */
+    private static ApiRequest decode(byte[] entry) {
+        DataInputStream fields = new DataInputStream(new ByteArrayInputStream(entry));
+        try {
+            ApiRequest apiRequest = new ApiRequest();
+            apiRequest.setId(readString(fields));
+            apiRequest.setPayload(readString(fields));
+            if (fields.available() > 0) {
+                boolean hasVersion = fields.readBoolean();
+                long version = fields.readLong();
+                apiRequest.setVersion(hasVersion ? version : null);
+                apiRequest.setPayloadRef(readString(fields));
+            }
+            return apiRequest.getId() == null ? null : apiRequest;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        if (value == null) {
+            data.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        data.writeInt(bytes.length);
+        data.write(bytes);
+    }
+
+    private static String readString(DataInputStream data) throws IOException {
+        int length = data.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > data.available()) {
+            throw new EOFException("String of " + length + " bytes overruns its entry");
+        }
+        byte[] bytes = new byte[length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.api.writebehind;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.service.ApiService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for {@code POST /api/request}. A request is acknowledged once it is
+ * appended to the local journal; a background flusher then persists pending requests in
+ * batches through {@link ApiService#saveBatch}, keeping only the latest request per key.
+ * When {@code api.write-behind.capacity} distinct keys are pending or being flushed (the
+ * {@link #depth()}), new keys are rejected so callers back off instead of growing the
+ * queue without bound. A request that can never be stored is dropped with an error, rather
+ * than failing its batch on every flush.
+ */
+@Component
+@ConditionalOnProperty(name = "api.write-behind.enabled", havingValue = "true")
+public class WriteBehindQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private final ApiService apiService;
+
+    private final int capacity;
+
+    private final long flushIntervalMs;
+
+    private final WriteBehindJournal journal;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Latest pending request per key, in first-write order. Guarded by {@link #lock}. */
+    private Map<String, ApiRequest> pending = new LinkedHashMap<>();
+
+    /**
+     * The batch the flusher is storing, still served by {@link #getPending} until it is.
+     * Guarded by {@link #lock}.
+     */
+    private Map<String, ApiRequest> flushing = Map.of();
+
+    private boolean closed;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "write-behind-flusher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Timer flushTimer;
+
+    private final Counter rejected;
+
+    private final Counter dropped;
+
+    public WriteBehindQueue(ApiService apiService,
+                            MeterRegistry meterRegistry,
+                            @Value("${api.write-behind.capacity:10000}") int capacity,
+                            @Value("${api.write-behind.flush-interval-ms:100}") long flushIntervalMs,
+                            @Value("${api.write-behind.journal-dir:data/write-behind}") String journalDir,
+                            @Value("${api.write-behind.journal-fsync:true}") boolean journalFsync) throws IOException {
+        this.apiService = apiService;
+        this.capacity = capacity;
+        this.flushIntervalMs = flushIntervalMs;
+        this.journal = new WriteBehindJournal(Path.of(journalDir), journalFsync);
+
+        Gauge.builder("api.write_behind.queue.depth", this, WriteBehindQueue::depth)
+                .description("Keys accepted but not yet stored")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("api.write_behind.flush")
+                .description("Time to persist one flushed batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("api.write_behind.rejected")
+                .description("Requests rejected because the queue was full")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("api.write_behind.dropped")
+                .description("Accepted requests dropped because they cannot be stored")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        // Replay whatever a previous run accepted but did not flush
+        for (ApiRequest apiRequest : journal.recover()) {
+            pending.put(apiRequest.getId(), apiRequest);
+        }
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Durably enqueues a request.
+     *
+     * @throws IllegalArgumentException if the request has no ID
+     * @throws WriteBehindFullException if the queue is at capacity
+     * @throws WriteBehindUnavailableException if the request could not be journaled
+     */
+    public void enqueue(ApiRequest apiRequest) {
+        if (apiRequest.getId() == null || apiRequest.getId().isBlank()) {
+            throw new IllegalArgumentException("Write-behind requests need an ID");
+        }
+        long sequence;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new WriteBehindUnavailableException("Write-behind queue is shutting down");
+            }
+            // Keys in the batch being flushed count too, or a slow flush would let depth reach twice the capacity
+            if (pending.size() + flushing.size() >= capacity && !pending.containsKey(apiRequest.getId())) {
+                rejected.increment();
+                throw new WriteBehindFullException("Write-behind queue is full (" + capacity + " pending keys)");
+            }
+            sequence = journal.append(apiRequest);
+            pending.put(apiRequest.getId(), apiRequest);
+        } catch (IOException e) {
+            throw new WriteBehindUnavailableException("Could not journal request " + apiRequest.getId(), e);
+        } finally {
+            lock.unlock();
+        }
+
+        // Outside the lock, so concurrent requests share one fsync
+        try {
+            journal.awaitDurable(sequence);
+        } catch (IOException e) {
+            // The request may still be flushed; a retry by the caller is an idempotent put
+            throw new WriteBehindUnavailableException("Could not journal request " + apiRequest.getId(), e);
+        }
+    }
+
+    /**
+     * Returns the accepted-but-not-yet-flushed request for {@code requestId}, if any, so
+     * reads on this node see their own writes.
+     */
+    public ApiRequest getPending(String requestId) {
+        lock.lock();
+        try {
+            ApiRequest apiRequest = pending.get(requestId);
+            return apiRequest != null ? apiRequest : flushing.get(requestId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int depth() {
+        lock.lock();
+        try {
+            return pending.size() + flushing.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void flush() {
+        Map<String, ApiRequest> batch;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            // New appends go to a fresh segment, so the old ones can be dropped once this batch is stored
+            journal.rotate();
+            batch = pending;
+            flushing = batch;
+            pending = new LinkedHashMap<>();
+        } catch (IOException e) {
+            log.error("Could not rotate write-behind journal", e);
+            return;
+        } finally {
+            lock.unlock();
+        }
+
+        Map<String, ApiRequest> retry = Map.of();
+        Timer.Sample sample = Timer.start();
+        try {
+            apiService.saveBatch(batch.values());
+        } catch (RuntimeException e) {
+            if (isUnpersistable(e)) {
+                retry = storeEach(batch, e);
+            } else {
+                log.warn("Write-behind flush of {} requests failed: {}", batch.size(), e.getMessage());
+                retry = batch;
+            }
+        } finally {
+            sample.stop(flushTimer);
+        }
+        if (!retry.isEmpty()) {
+            // Their segments stay retained until a flush stores everything it took
+            requeue(retry);
+            return;
+        }
+
+        lock.lock();
+        try {
+            flushing = Map.of();
+            journal.releaseRetained();
+        } catch (IOException e) {
+            // Harmless: leftover segments are replayed as idempotent puts on restart
+            log.warn("Could not delete flushed write-behind segments: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stores the requests of a rejected batch one at a time, so the ones that cannot be
+     * stored are dropped instead of holding back the rest. Stops at the first transient
+     * failure, and returns what is left to retry.
+     */
+    private Map<String, ApiRequest> storeEach(Map<String, ApiRequest> batch, RuntimeException batchFailure) {
+        if (batch.size() == 1) {
+            drop(batch.values().iterator().next(), batchFailure);
+            return Map.of();
+        }
+        log.warn("Write-behind flush of {} requests was rejected, storing them one at a time: {}",
+                batch.size(), batchFailure.getMessage());
+        Map<String, ApiRequest> retry = new LinkedHashMap<>();
+        for (ApiRequest apiRequest : batch.values()) {
+            if (retry.isEmpty()) {
+                try {
+                    apiService.saveBatch(List.of(apiRequest));
+                    continue;
+                } catch (RuntimeException e) {
+                    if (isUnpersistable(e)) {
+                        drop(apiRequest, e);
+                        continue;
+                    }
+                    log.warn("Write-behind flush failed at request {}: {}", apiRequest.getId(), e.getMessage());
+                }
+            }
+            retry.put(apiRequest.getId(), apiRequest);
+        }
+        return retry;
+    }
+
+    private void drop(ApiRequest apiRequest, RuntimeException e) {
+        dropped.increment();
+        log.error("Dropping write-behind request {}, which cannot be stored: {}", apiRequest.getId(), e.getMessage());
+    }
+
+    /**
+     * Whether {@code e} rejects the request itself, so storing it again cannot succeed:
+     * a bad argument, or a 400 from DynamoDB other than throttling.
+     */
+    private static boolean isUnpersistable(RuntimeException e) {
+        if (e instanceof IllegalArgumentException || e instanceof NullPointerException) {
+            return true;
+        }
+        return e instanceof SdkServiceException serviceException
+                && serviceException.statusCode() == 400
+                && !serviceException.isThrottlingException();
+    }
+
+    private void requeue(Map<String, ApiRequest> batch) {
+        lock.lock();
+        try {
+            // Requests accepted since the batch was taken are newer and win
+            batch.forEach(pending::putIfAbsent);
+            flushing = Map.of();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flusher.shutdown();
+        flusher.awaitTermination(5, TimeUnit.SECONDS);
+        flush();
+        journal.close();
+    }
+}
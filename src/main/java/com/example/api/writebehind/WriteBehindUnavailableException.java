@@ -0,0 +1,20 @@
+package com.example.api.writebehind;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * A request could not be durably enqueued, e.g. the journal is not writable or the
+ * queue is shutting down.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class WriteBehindUnavailableException extends RuntimeException {
+
+    public WriteBehindUnavailableException(String message) {
+        super(message);
+    }
+
+    public WriteBehindUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,12 @@
+-- Sets field ARGV[2] of hash KEYS[2] to ARGV[3], or deletes it when ARGV[3] is empty, but only
+-- while holder ARGV[1] holds the lease KEYS[1]. Returns 1 if the hash was changed, 0 if the
+-- lease has passed to someone else, so a paused former holder cannot overwrite newer state.
+if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+    return 0
+end
+if ARGV[3] == '' then
+    redis.call('HDEL', KEYS[2], ARGV[2])
+else
+    redis.call('HSET', KEYS[2], ARGV[2], ARGV[3])
+end
+return 1
@@ -0,0 +1,12 @@
+-- Takes or extends the lease KEYS[1] for holder ARGV[1], for ARGV[2] milliseconds.
+-- Returns 1 if ARGV[1] now holds the lease, 0 if another holder does.
+local holder = redis.call('GET', KEYS[1])
+if holder == false then
+    redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+    return 1
+end
+if holder == ARGV[1] then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return 1
+end
+return 0
@@ -0,0 +1,5 @@
+-- Gives up the lease KEYS[1] if holder ARGV[1] still holds it. Returns 1 if it did.
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
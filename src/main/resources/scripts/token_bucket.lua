@@ -0,0 +1,32 @@
+-- Token bucket refilled continuously at ARGV[1] tokens per second, holding at most ARGV[2].
+-- Takes up to ARGV[3] tokens and returns {granted, retry_after_ms}; retry_after_ms is only
+-- set when nothing was granted. Redis server time is used so callers' clocks do not matter
+-- (calling TIME before writing needs Redis 5+, which replicates script effects). ARGV[4],
+-- if given, is the time in milliseconds to use instead; tests pass it to run the script on
+-- older servers and to control the clock.
+local rate = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+
+local now = tonumber(ARGV[4])
+if not now then
+    local time = redis.call('TIME')
+    now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+end
+
+local bucket = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1]) or burst
+local ts = tonumber(bucket[2]) or now
+tokens = math.min(burst, tokens + math.max(0, now - ts) * rate / 1000)
+
+local granted = math.min(requested, math.floor(tokens))
+tokens = tokens - granted
+redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+-- An idle bucket refills completely within burst / rate seconds, after which it can go
+redis.call('PEXPIRE', KEYS[1], math.ceil(burst * 1000 / rate) + 1000)
+
+local retry_after = 0
+if granted == 0 then
+    retry_after = math.ceil((1 - tokens) * 1000 / rate)
+end
+return {granted, retry_after}
@@ -0,0 +1,143 @@
+package com.example.api.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AdmissionInterceptorTest {
+
+    private RateLimiter rateLimiter;
+
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private AdmissionInterceptor interceptor;
+
+    @BeforeEach
+    void setup() {
+        rateLimiter = mock(RateLimiter.class);
+        concurrencyLimiter = mock(ConcurrencyLimiter.class);
+        meterRegistry = new SimpleMeterRegistry();
+        when(concurrencyLimiter.tryAcquire()).thenReturn(true);
+        interceptor = new AdmissionInterceptor(rateLimiter, concurrencyLimiter, meterRegistry,
+                true, 100, 200, 5000, 10000, true, List.of("/api/requests/bulk", "/api/request/*/payload"));
+    }
+
+    @Test
+    void testClientOverItsRateGets429WithRetryAfter() {
+        when(rateLimiter.tryAcquire(eq("client:mobile"), anyDouble(), anyInt())).thenReturn(1500L);
+        MockHttpServletRequest request = request("/api/request/123");
+        request.addHeader(AdmissionInterceptor.CLIENT_HEADER, "mobile");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request, response, null));
+
+        assertEquals(429, response.getStatus());
+        assertEquals("2", response.getHeader(HttpHeaders.RETRY_AFTER));
+        verify(rateLimiter, never()).tryAcquire(eq("global"), anyDouble(), anyInt());
+        verify(concurrencyLimiter, never()).tryAcquire();
+        assertEquals(1, rejected("client_rate"));
+    }
+
+    @Test
+    void testClientWithoutIdIsLimitedByAddress() {
+        when(rateLimiter.tryAcquire(eq("global"), anyDouble(), anyInt())).thenReturn(100L);
+        MockHttpServletRequest request = request("/api/request/123");
+        request.setRemoteAddr("10.0.0.7");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request, response, null));
+
+        verify(rateLimiter).tryAcquire("client:10.0.0.7", 100, 200);
+        assertEquals(429, response.getStatus());
+        assertEquals(1, rejected("global_rate"));
+    }
+
+    @Test
+    void testRequestBeyondConcurrencyLimitIsShed() {
+        when(concurrencyLimiter.tryAcquire()).thenReturn(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request("/api/request/123"), response, null));
+
+        assertEquals(503, response.getStatus());
+        assertEquals(1, rejected("concurrency"));
+    }
+
+    @Test
+    void testAdmittedRequestReleasesItsSlotWithLatency() {
+        MockHttpServletRequest request = request("/api/request/123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        response.setStatus(504);
+        interceptor.afterCompletion(request, response, null, null);
+        interceptor.afterCompletion(request, response, null, null);
+
+        verify(concurrencyLimiter, times(1)).release(anyLong(), eq(true));
+    }
+
+    @Test
+    void testStreamingRoutesAreNotShed() {
+        when(concurrencyLimiter.tryAcquire()).thenReturn(false);
+
+        for (String path : List.of("/api/requests/bulk", "/api/request/123/payload")) {
+            MockHttpServletRequest request = request(path);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            assertTrue(interceptor.preHandle(request, response, null), path);
+            interceptor.afterCompletion(request, response, null, null);
+        }
+
+        verify(concurrencyLimiter, never()).tryAcquire();
+        verify(concurrencyLimiter, never()).release(anyLong(), anyBoolean());
+        // Still rate limited like every other route
+        verify(rateLimiter, times(2)).tryAcquire(eq("global"), anyDouble(), anyInt());
+    }
+
+    @Test
+    void testAsyncDispatchIsNotCheckedAgain() {
+        MockHttpServletRequest request = request("/api/request/123");
+        request.setDispatcherType(DispatcherType.ASYNC);
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+
+        verify(rateLimiter, never()).tryAcquire(anyString(), anyDouble(), anyInt());
+        verify(concurrencyLimiter, never()).tryAcquire();
+    }
+
+    @Test
+    void testNothingIsCheckedWhenDisabled() {
+        interceptor = new AdmissionInterceptor(rateLimiter, concurrencyLimiter, meterRegistry,
+                false, 100, 200, 5000, 10000, false, List.of());
+
+        assertTrue(interceptor.preHandle(request("/api/request/123"), new MockHttpServletResponse(), null));
+
+        verifyNoInteractions(rateLimiter, concurrencyLimiter);
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.get("api.admission.requests").tag("outcome", "rejected").tag("reason", reason)
+                .counter().count();
+    }
+}
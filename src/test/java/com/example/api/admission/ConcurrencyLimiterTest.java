@@ -0,0 +1,75 @@
+package com.example.api.admission;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @Test
+    void testRequestsBeyondLimitAreRejected() {
+        ConcurrencyLimiter limiter = limiter(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(FAST, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void testSlowResponsesShrinkLimitDownToMinimum() {
+        ConcurrencyLimiter limiter = limiter(20);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(SLOW, false);
+        }
+
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void testFastResponsesGrowLimitOnlyWhileItIsUsed() {
+        ConcurrencyLimiter limiter = limiter(4);
+
+        // One request at a time never uses half of the limit
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(FAST, false);
+        }
+        assertEquals(4, limiter.limit());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        for (int i = 0; i < 4; i++) {
+            limiter.release(FAST, false);
+        }
+        assertTrue(limiter.limit() > 4);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void testFailureShrinksLimit() {
+        ConcurrencyLimiter limiter = limiter(10);
+
+        assertTrue(limiter.tryAcquire());
+        limiter.release(FAST, true);
+
+        assertEquals(9, limiter.limit(), 1e-9);
+    }
+
+    private static ConcurrencyLimiter limiter(int initialLimit) {
+        return new ConcurrencyLimiter(new SimpleMeterRegistry(), initialLimit, 2, 100, 250, 0.9);
+    }
+}
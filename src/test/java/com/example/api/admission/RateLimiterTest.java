@@ -0,0 +1,139 @@
+package com.example.api.admission;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RateLimiterTest {
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setup() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        rateLimiter = new RateLimiter(stringRedisTemplate, 10, 60000, 60000, 1000);
+    }
+
+    @Test
+    void testLeasedTokensAreSpentWithoutRedis() {
+        redisReplies(List.of(10L, 0L));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("client:a", 10, 20));
+        }
+
+        verifyRedisCalls(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testHalfSpentLeaseIsToppedUp() {
+        redisReplies(List.of(10L, 0L), List.of(6L, 0L));
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("client:a", 10, 20));
+        }
+
+        // The sixth call left 4 of 10 tokens, so it asked for the 6 missing ones
+        verify(stringRedisTemplate).execute(any(RedisScript.class), anyList(), eq("10.0"), eq("20"), eq("6"));
+        verifyRedisCalls(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOtherCallersSpendTheLeaseWhileItIsToppedUp() throws Exception {
+        CountDownLatch refillStarted = new CountDownLatch(1);
+        CountDownLatch redisAnswers = new CountDownLatch(1);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(10L, 0L))
+                .thenAnswer(invocation -> {
+                    refillStarted.countDown();
+                    redisAnswers.await();
+                    return List.of(6L, 0L);
+                });
+        for (int i = 0; i < 5; i++) {
+            rateLimiter.tryAcquire("client:a", 10, 20);
+        }
+
+        ExecutorService refiller = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> refill = refiller.submit(() -> rateLimiter.tryAcquire("client:a", 10, 20));
+            assertTrue(refillStarted.await(5, TimeUnit.SECONDS));
+
+            // Redis has not answered, but the rest of the lease is still there
+            for (int i = 0; i < 4; i++) {
+                assertEquals(0, rateLimiter.tryAcquire("client:a", 10, 20));
+            }
+            redisAnswers.countDown();
+            assertEquals(0, refill.get(5, TimeUnit.SECONDS));
+        } finally {
+            redisAnswers.countDown();
+            refiller.shutdownNow();
+        }
+        verifyRedisCalls(2);
+    }
+
+    @Test
+    void testDenialIsRememberedUntilRetryAfter() {
+        redisReplies(List.of(0L, 60000L));
+
+        assertTrue(rateLimiter.tryAcquire("client:a", 10, 20) > 0);
+        long retryAfter = rateLimiter.tryAcquire("client:a", 10, 20);
+
+        assertTrue(retryAfter > 59000 && retryAfter <= 60000, "Unexpected retry-after " + retryAfter);
+        verifyRedisCalls(1);
+    }
+
+    @Test
+    void testBucketsAreIndependent() {
+        redisReplies(List.of(1L, 0L), List.of(0L, 100L));
+
+        assertEquals(0, rateLimiter.tryAcquire("client:a", 10, 20));
+        assertTrue(rateLimiter.tryAcquire("client:b", 10, 20) > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRedisFailureAdmitsWithoutAskingAgainUntilBackoffEnds() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("Redis down"));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, rateLimiter.tryAcquire("client:a", 10, 20));
+        }
+        verifyRedisCalls(1);
+
+        RateLimiter noBackoff = new RateLimiter(stringRedisTemplate, 10, 60000, 0, 1000);
+        assertEquals(0, noBackoff.tryAcquire("client:a", 10, 20));
+        assertEquals(0, noBackoff.tryAcquire("client:a", 10, 20));
+        verifyRedisCalls(3);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void redisReplies(List<Long> first, List<Long>... rest) {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(first, (Object[]) rest);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void verifyRedisCalls(int times) {
+        verify(stringRedisTemplate, times(times)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+}
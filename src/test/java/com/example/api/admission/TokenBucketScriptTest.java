@@ -0,0 +1,107 @@
+package com.example.api.admission;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs {@code scripts/token_bucket.lua} against an embedded Redis, so the refill arithmetic
+ * is checked where it actually runs. The time is passed in, both to control it and because
+ * the embedded server predates writes after TIME in scripts.
+ */
+class TokenBucketScriptTest {
+
+    private static final String KEY = "ratelimit:test";
+
+    private static RedisServer redisServer;
+
+    private static LettuceConnectionFactory connectionFactory;
+
+    private static StringRedisTemplate stringRedisTemplate;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void clearBucket() {
+        stringRedisTemplate.delete(KEY);
+    }
+
+    @Test
+    void testNewBucketGrantsUpToBurst() {
+        assertArrayEquals(new long[]{10, 0}, take(1, 15, 10, 0));
+        assertArrayEquals(new long[]{5, 0}, take(1, 15, 10, 0));
+    }
+
+    @Test
+    void testEmptyBucketReportsWhenTheNextTokenIsDue() {
+        take(2, 4, 4, 0);
+
+        // 2 tokens per second, and 100ms have refilled a fifth of one
+        assertArrayEquals(new long[]{0, 400}, take(2, 4, 1, 100));
+    }
+
+    @Test
+    void testBucketRefillsOverTime() {
+        take(20, 4, 4, 0);
+
+        // 150ms at 20 per second is 3 tokens
+        assertArrayEquals(new long[]{3, 0}, take(20, 4, 4, 150));
+        // Nothing is left, and the next token is 50ms away
+        assertArrayEquals(new long[]{0, 50}, take(20, 4, 4, 150));
+    }
+
+    @Test
+    void testBucketNeverHoldsMoreThanBurst() {
+        take(20, 4, 4, 0);
+
+        assertArrayEquals(new long[]{4, 0}, take(20, 4, 10, 60_000));
+    }
+
+    @Test
+    void testIdleBucketExpires() {
+        take(10, 5, 1, 0);
+
+        long ttl = Objects.requireNonNull(stringRedisTemplate.getExpire(KEY));
+
+        // Refills completely in 500ms, then lingers for another second at most
+        assertTrue(ttl > 0 && ttl <= 2, "Unexpected TTL " + ttl);
+    }
+
+    private long[] take(double ratePerSecond, int burst, int requested, long nowMillis) {
+        List<?> reply = stringRedisTemplate.execute(RateLimiter.TOKEN_BUCKET, List.of(KEY),
+                Double.toString(ratePerSecond), Integer.toString(burst), Integer.toString(requested),
+                Long.toString(nowMillis));
+        assertNotNull(reply);
+        return new long[]{((Number) reply.get(0)).longValue(), ((Number) reply.get(1)).longValue()};
+    }
+}
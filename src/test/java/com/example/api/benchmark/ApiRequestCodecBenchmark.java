@@ -0,0 +1,85 @@
+package com.example.api.benchmark;
+
+import com.example.api.codec.ApiRequestCodec;
+import com.example.api.codec.BinaryApiRequestCodec;
+import com.example.api.codec.JsonApiRequestCodec;
+import com.example.api.model.ApiRequest;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode/decode time and encoded size of cached ApiRequest values, binary codec versus
+ * JSON. The {@code encodedBytes} secondary result is the size of one encoded value.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.include=ApiRequestCodecBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiRequestCodecBenchmark {
+
+    @Param({"binary", "json"})
+    public String format;
+
+    @Param({"64", "4096", "262144"})
+    public int payloadLength;
+
+    private ApiRequestCodec codec;
+
+    private ApiRequest apiRequest;
+
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        codec = "binary".equals(format) ? new BinaryApiRequestCodec(1024) : new JsonApiRequestCodec();
+
+        // Loosely structured text, roughly as compressible as typical JSON payloads
+        StringBuilder payload = new StringBuilder(payloadLength);
+        for (int i = 0; payload.length() < payloadLength; i++) {
+            payload.append("{\"event\":\"click\",\"seq\":").append(i).append(",\"user\":\"u").append(i % 97).append("\"}");
+        }
+        payload.setLength(payloadLength);
+
+        apiRequest = new ApiRequest();
+        apiRequest.setId("request-123456");
+        apiRequest.setPayload(payload.toString());
+        encoded = codec.serialize(apiRequest);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class EncodedSize {
+        public long encodedBytes;
+    }
+
+    @Benchmark
+    public byte[] encode(EncodedSize size) {
+        byte[] bytes = codec.serialize(apiRequest);
+        size.encodedBytes = bytes.length;
+        return bytes;
+    }
+
+    @Benchmark
+    public ApiRequest decode() {
+        return codec.deserialize(encoded);
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.api.benchmark;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-call cost of the old ApiService pattern (new enhanced client and
+ * {@code TableSchema.fromBean} on every request) with the shared table handle and
+ * static schema used by ApiRequestRepository. No requests are sent to DynamoDB; each
+ * benchmark builds the item map a putItem would send, or maps a getItem response back.
+ *
+ * Run with the GC profiler to see allocations per operation:
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.include=ApiRequestSchemaBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiRequestSchemaBenchmark {
+
+    private static final String TABLE_NAME = "ApiRequestTable";
+
+    private DynamoDbClient dynamoDbClient;
+
+    private DynamoDbTable<ApiRequest> sharedTable;
+
+    private ApiRequest apiRequest;
+
+    private Map<String, AttributeValue> item;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dynamoDbClient = DynamoDbClient.builder()
+                .region(Region.US_EAST_1)
+                .credentialsProvider(AnonymousCredentialsProvider.create())
+                .build();
+        sharedTable = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build()
+                .table(TABLE_NAME, ApiRequestSchema.TABLE_SCHEMA);
+
+        apiRequest = new ApiRequest();
+        apiRequest.setId("123");
+        apiRequest.setPayload("Test Request");
+        item = ApiRequestSchema.TABLE_SCHEMA.itemToMap(apiRequest, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dynamoDbClient.close();
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> putPerCallBeanSchema() {
+        return perCallTable().tableSchema().itemToMap(apiRequest, true);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> putSharedStaticSchema() {
+        return sharedTable.tableSchema().itemToMap(apiRequest, true);
+    }
+
+    @Benchmark
+    public ApiRequest getPerCallBeanSchema() {
+        return perCallTable().tableSchema().mapToItem(item);
+    }
+
+    @Benchmark
+    public ApiRequest getSharedStaticSchema() {
+        return sharedTable.tableSchema().mapToItem(item);
+    }
+
+    private DynamoDbTable<ApiRequest> perCallTable() {
+        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
+                .dynamoDbClient(dynamoDbClient)
+                .build();
+        return enhancedClient.table(TABLE_NAME, TableSchema.fromBean(ApiRequest.class));
+    }
+}
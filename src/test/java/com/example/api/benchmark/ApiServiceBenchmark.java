@@ -0,0 +1,116 @@
+package com.example.api.benchmark;
+
+import com.example.api.model.ApiRequest;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end cost of the ApiService hot paths against in-process Redis, DynamoDB and Kafka
+ * stand-ins (see {@link ApiServiceFixture}): a near-cache hit, a Redis hit, a full miss
+ * that falls through to DynamoDB, a lookup of an ID that does not exist, the API write path
+ * and the Kafka consumer path.
+ * SampleTime mode reports p50/p99/p99.9 alongside throughput.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.include=ApiServiceBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiServiceBenchmark {
+
+    private static final String HOT_ID = "bench-hot";
+
+    @Param({"256", "4096"})
+    public int payloadSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ApiServiceFixture nearCached;
+
+    private ApiServiceFixture redisOnly;
+
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        payload = "x".repeat(payloadSize);
+        nearCached = new ApiServiceFixture(true);
+        redisOnly = new ApiServiceFixture(false);
+        nearCached.apiService.saveRequest(request(HOT_ID));
+        redisOnly.apiService.saveRequest(request(HOT_ID));
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearProducedRecords() {
+        // MockProducer keeps every record it was sent
+        nearCached.producer.clear();
+        redisOnly.producer.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        nearCached.close();
+        redisOnly.close();
+    }
+
+    @Benchmark
+    public ApiRequest getNearCacheHit() {
+        return nearCached.apiService.getRequest(HOT_ID);
+    }
+
+    @Benchmark
+    public ApiRequest getRedisHit() {
+        return redisOnly.apiService.getRequest(HOT_ID);
+    }
+
+    @Benchmark
+    public ApiRequest getCacheMiss() {
+        // Drop the Redis copy so the read goes through to DynamoDB and back-fills Redis
+        redisOnly.redisTemplate.delete(HOT_ID);
+        return redisOnly.apiService.getRequest(HOT_ID);
+    }
+
+    @Benchmark
+    public ApiRequest getMissingId() {
+        // Answered by the negative cache after the first lookup
+        return redisOnly.apiService.getRequest("missing");
+    }
+
+    @Benchmark
+    public void saveRequest() {
+        nearCached.apiService.saveRequest(request("bench-" + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    public void consumeRecord() {
+        nearCached.kafkaConsumerService.consume(
+                new ConsumerRecord<>(ApiServiceFixture.TOPIC, 0, 0L, "bench-" + sequence.incrementAndGet(), payload));
+    }
+
+    private ApiRequest request(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}
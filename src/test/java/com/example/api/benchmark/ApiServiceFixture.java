@@ -0,0 +1,158 @@
+package com.example.api.benchmark;
+
+import com.example.api.blob.LocalBlobStore;
+import com.example.api.cache.EarlyRefresh;
+import com.example.api.cache.NearCache;
+import com.example.api.cache.HotKeyCache;
+import com.example.api.cache.NegativeCache;
+import com.example.api.cache.RedisBatchExecutor;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.codec.BinaryApiRequestCodec;
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.resilience.DependencyGuard;
+import com.example.api.resilience.ResilienceProperties;
+import com.example.api.service.ApiService;
+import com.example.api.service.KafkaConsumerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.embedded.RedisServer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Wires ApiService and KafkaConsumerService outside Spring against in-process stand-ins:
+ * an embedded Redis server (or {@code -Dbench.redis.port} for an external one), an
+ * in-memory DynamoDB table (or {@code -Dbench.dynamodb.endpoint} for DynamoDB Local) and a
+ * MockProducer in place of the Kafka broker. The in-memory table can be given a
+ * per-call latency, and {@code resilience.*} settings can be overridden by name.
+ */
+class ApiServiceFixture implements AutoCloseable {
+
+    static final String TOPIC = "api-requests";
+
+    private static final String TABLE_NAME = "ApiRequestTable";
+
+    private final RedisServer redisServer;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final DynamoDbClient dynamoDbClient;
+
+    private final EarlyRefresh earlyRefresh;
+
+    /** KafkaTemplate closes a non-transactional producer after each send; this one stays open. */
+    final MockProducer<String, String> producer = new MockProducer<>(true, new StringSerializer(), new StringSerializer()) {
+        @Override
+        public void close(Duration timeout) {
+        }
+    };
+
+    final RedisTemplate<String, Object> redisTemplate;
+
+    final ApiService apiService;
+
+    final KafkaConsumerService kafkaConsumerService;
+
+    ApiServiceFixture(boolean nearCacheEnabled) throws IOException {
+        this(nearCacheEnabled, Duration.ZERO, Map.of());
+    }
+
+    ApiServiceFixture(boolean nearCacheEnabled, Duration dynamoDbLatency, Map<String, String> resilience) throws IOException {
+        int redisPort = Integer.getInteger("bench.redis.port", -1);
+        if (redisPort < 0) {
+            redisPort = freePort();
+            redisServer = new RedisServer(redisPort);
+            redisServer.start();
+        } else {
+            redisServer = null;
+        }
+        connectionFactory = new LettuceConnectionFactory("localhost", redisPort);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        BinaryApiRequestCodec codec = new BinaryApiRequestCodec(1024);
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(codec);
+        redisTemplate.afterPropertiesSet();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(connectionFactory);
+        NearCache nearCache = new NearCache(stringRedisTemplate, new RedisMessageListenerContainer(),
+                meterRegistry, nearCacheEnabled, 10_000, 60_000, 600_000, "bench-invalidations");
+        earlyRefresh = new EarlyRefresh(false, 1.0, 1);
+
+        dynamoDbClient = dynamoDbClient(dynamoDbLatency);
+        ApiRequestRepository repository = new ApiRequestRepository(dynamoDbClient, TABLE_NAME);
+        ReflectionTestUtils.setField(repository, "batchMaxAttempts", 5);
+        ReflectionTestUtils.setField(repository, "batchBackoffMs", 50L);
+
+        KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        RedisCachePolicy cachePolicy = new RedisCachePolicy(meterRegistry, 3_600_000, 0.1, 65_536, false);
+        DependencyMetrics metrics = new DependencyMetrics(meterRegistry);
+        // application.properties defaults unless overridden, hedging off
+        DependencyGuard guard = new DependencyGuard(metrics, meterRegistry, ResilienceProperties.bind(resilience), 5000, false);
+        apiService = new ApiService(repository, kafkaTemplate, redisTemplate, codec,
+                new RedisBatchExecutor(redisTemplate, cachePolicy, 500), cachePolicy, nearCache,
+                new NegativeCache(repository, nearCache, meterRegistry, true, 5000, 100_000, false, 1_000_000, 0.01, 3_600_000),
+                new HotKeyCache(nearCache, meterRegistry, true, 10_000, 1000, 32, 8192, 4, true, 5000, 60_000),
+                earlyRefresh, metrics, guard,
+                new LocalBlobStore(Files.createTempDirectory("bench-blobs").toString(), 1 << 20, 1L << 30),
+                TOPIC, 262_144);
+
+        kafkaConsumerService = new KafkaConsumerService(apiService);
+    }
+
+    @Override
+    public void close() throws Exception {
+        earlyRefresh.shutdown();
+        connectionFactory.destroy();
+        dynamoDbClient.close();
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+
+    static DynamoDbClient dynamoDbClient() {
+        return dynamoDbClient(Duration.ZERO);
+    }
+
+    private static DynamoDbClient dynamoDbClient(Duration inMemoryLatency) {
+        String endpoint = System.getProperty("bench.dynamodb.endpoint");
+        if (endpoint == null) {
+            return new InMemoryDynamoDbClient(inMemoryLatency);
+        }
+        // DynamoDB Local accepts any credentials; the table must already exist
+        return DynamoDbClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("bench", "bench")))
+                .build();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.api.benchmark;
+
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process stand-in for DynamoDB tables keyed by {@code pk} when items have one (the
+ * sharded layout) and by {@code id} otherwise, covering the calls ApiRequestRepository and
+ * ShardedApiRequestRepository make; condition expressions are not evaluated. Lets the
+ * benchmarks measure the application's own cost without network or DynamoDB Local
+ * latency; set {@code -Dbench.dynamodb.endpoint} to run against DynamoDB Local instead.
+ * Counts writes per partition key, which DynamoDB Local does not throttle on. A
+ * {@code latency} blocks the calling thread for that long on every call, as the
+ * synchronous SDK does while waiting for DynamoDB's response.
+ */
+class InMemoryDynamoDbClient implements DynamoDbClient {
+
+    private final Map<String, Map<String, Map<String, AttributeValue>>> tables = new ConcurrentHashMap<>();
+
+    private final long latencyNanos;
+
+    private final Map<String, LongAdder> writes = new ConcurrentHashMap<>();
+
+    InMemoryDynamoDbClient() {
+        this(Duration.ZERO);
+    }
+
+    InMemoryDynamoDbClient(Duration latency) {
+        this.latencyNanos = latency.toNanos();
+    }
+
+    /**
+     * Share of all writes that went to the most written partition key, or 0 before any write.
+     */
+    double hottestPartitionWriteShare() {
+        long total = 0;
+        long hottest = 0;
+        for (LongAdder count : writes.values()) {
+            long sum = count.sum();
+            total += sum;
+            hottest = Math.max(hottest, sum);
+        }
+        return total == 0 ? 0 : (double) hottest / total;
+    }
+
+    void resetWriteCounts() {
+        writes.clear();
+    }
+
+    @Override
+    public GetItemResponse getItem(GetItemRequest request) {
+        awaitResponse();
+        Map<String, AttributeValue> item = table(request.tableName()).get(partitionKey(request.key()));
+        GetItemResponse.Builder response = GetItemResponse.builder();
+        if (item != null) {
+            response.item(item);
+        }
+        return response.build();
+    }
+
+    @Override
+    public PutItemResponse putItem(PutItemRequest request) {
+        awaitResponse();
+        put(request.tableName(), request.item());
+        return PutItemResponse.builder().build();
+    }
+
+    @Override
+    public BatchWriteItemResponse batchWriteItem(BatchWriteItemRequest request) {
+        awaitResponse();
+        request.requestItems().forEach((tableName, tableWrites) -> {
+            for (WriteRequest write : tableWrites) {
+                put(tableName, write.putRequest().item());
+            }
+        });
+        return BatchWriteItemResponse.builder().unprocessedItems(Map.of()).build();
+    }
+
+    @Override
+    public BatchGetItemResponse batchGetItem(BatchGetItemRequest request) {
+        awaitResponse();
+        BatchGetItemResponse.Builder response = BatchGetItemResponse.builder().unprocessedKeys(Map.of());
+        Map<String, List<Map<String, AttributeValue>>> responses = new ConcurrentHashMap<>();
+        request.requestItems().forEach((tableName, keysAndAttributes) -> {
+            List<Map<String, AttributeValue>> found = new ArrayList<>();
+            for (Map<String, AttributeValue> key : keysAndAttributes.keys()) {
+                Map<String, AttributeValue> item = table(tableName).get(partitionKey(key));
+                if (item != null) {
+                    found.add(item);
+                }
+            }
+            responses.put(tableName, found);
+        });
+        return response.responses(responses).build();
+    }
+
+    private void awaitResponse() {
+        if (latencyNanos > 0) {
+            LockSupport.parkNanos(latencyNanos);
+        }
+    }
+
+    private void put(String tableName, Map<String, AttributeValue> item) {
+        String partitionKey = partitionKey(item);
+        table(tableName).put(partitionKey, Map.copyOf(item));
+        writes.computeIfAbsent(tableName + "/" + partitionKey, key -> new LongAdder()).increment();
+    }
+
+    private Map<String, Map<String, AttributeValue>> table(String tableName) {
+        return tables.computeIfAbsent(tableName, name -> new ConcurrentHashMap<>());
+    }
+
+    private static String partitionKey(Map<String, AttributeValue> item) {
+        AttributeValue shardedKey = item.get("pk");
+        return shardedKey != null ? shardedKey.s() : item.get("id").s();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.api.benchmark;
+
+import com.example.api.service.RecordOrigin;
+import org.apache.kafka.common.compress.Compression;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.record.MemoryRecords;
+import org.apache.kafka.common.record.MemoryRecordsBuilder;
+import org.apache.kafka.common.record.TimestampType;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds producer record batches the way the Kafka producer's accumulator does for each
+ * {@code kafka.producer.compression-type} and {@code kafka.producer.batch-size}: records
+ * are appended until the (compressed) batch is full. The {@code records} and
+ * {@code wireBytes} secondary results are records per second and batch bytes per second
+ * sent to the broker, so their ratio is the on-the-wire size of one record.
+ * {@code linger.ms} only decides how full batches get under light load and is not modelled.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.include=KafkaProducerBatchBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaProducerBatchBenchmark {
+
+    private static final int DISTINCT_RECORDS = 1024;
+
+    @Param({"none", "lz4", "zstd", "snappy"})
+    public String compressionType;
+
+    @Param({"16384", "65536"})
+    public int batchSize;
+
+    @Param({"512"})
+    public int payloadSize;
+
+    private Compression compression;
+
+    private ByteBuffer buffer;
+
+    private byte[][] keys;
+
+    private byte[][] values;
+
+    private Header[] headers;
+
+    private int next;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Output {
+
+        public long records;
+
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            records = 0;
+            wireBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        compression = Compression.of(compressionType).build();
+        buffer = ByteBuffer.allocate(batchSize);
+        headers = RecordOrigin.apiRecord("api-requests", "key", "value").headers().toArray();
+
+        // JSON-like payloads with repeated field names and mixed-entropy values
+        Random random = new Random(42);
+        keys = new byte[DISTINCT_RECORDS][];
+        values = new byte[DISTINCT_RECORDS][];
+        for (int i = 0; i < DISTINCT_RECORDS; i++) {
+            keys[i] = ("request-" + i).getBytes(StandardCharsets.UTF_8);
+            StringBuilder payload = new StringBuilder("{\"id\":\"request-" + i + "\",\"items\":[");
+            while (payload.length() < payloadSize) {
+                payload.append("{\"sku\":\"SKU-").append(random.nextInt(10_000))
+                        .append("\",\"quantity\":").append(random.nextInt(10))
+                        .append(",\"token\":\"").append(Long.toHexString(random.nextLong())).append("\"},");
+            }
+            values[i] = payload.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public MemoryRecords buildBatch(Output output) {
+        buffer.clear();
+        MemoryRecordsBuilder builder = MemoryRecords.builder(buffer, compression, TimestampType.CREATE_TIME, 0L);
+        long timestamp = System.currentTimeMillis();
+        int appended = 0;
+        while (true) {
+            int index = next++ & (DISTINCT_RECORDS - 1);
+            // The accumulator always accepts the first record, even if it exceeds batch.size
+            if (appended > 0 && !builder.hasRoomFor(timestamp, keys[index], values[index], headers)) {
+                next--;
+                break;
+            }
+            builder.append(timestamp, keys[index], values[index], headers);
+            appended++;
+        }
+        MemoryRecords records = builder.build();
+        output.records += appended;
+        output.wireBytes += records.sizeInBytes();
+        return records;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.api.benchmark;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.repository.ShardedApiRequestRepository;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository writes and reads under uniform and Zipf-skewed ID popularity (see
+ * {@link SkewedKeys}), with the unsharded and the write-sharded layout. In-process the
+ * interesting output is the hottest partition key's share of writes, reported with the
+ * write scores as the {@code hottestPartitionWritePercent} counter: DynamoDB throttles per
+ * partition, so that share bounds the write rate one hot ID can reach. With {@code -Dbench.dynamodb.endpoint} the latency numbers include a real
+ * DynamoDB; DynamoDB Local does not throttle, so run against a provisioned table to see
+ * the throttling itself. Both tables must exist there (see README).
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.include=ShardedLayoutBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ShardedLayoutBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(1);
+
+    @Param({"single", "sharded"})
+    public String layout;
+
+    /** Zipf exponent of ID popularity; 0 is uniform. */
+    @Param({"0.0", "1.1"})
+    public double skew;
+
+    private DynamoDbClient dynamoDbClient;
+
+    private ApiRequestRepository repository;
+
+    private SkewedKeys keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dynamoDbClient = ApiServiceFixture.dynamoDbClient();
+        repository = "sharded".equals(layout)
+                ? new ShardedApiRequestRepository(dynamoDbClient, "ApiRequestTable", "ApiRequestShardedTable", 8,
+                        "scatter", "id-version-index", false)
+                : new ApiRequestRepository(dynamoDbClient, "ApiRequestTable");
+        ReflectionTestUtils.setField(repository, "batchMaxAttempts", 5);
+        ReflectionTestUtils.setField(repository, "batchBackoffMs", 50L);
+
+        keys = new SkewedKeys("bench-skew-", KEYS, skew);
+        for (String id : keys.all()) {
+            repository.save(request(id));
+        }
+        if (dynamoDbClient instanceof InMemoryDynamoDbClient inMemory) {
+            inMemory.resetWriteCounts();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetWriteCounts() {
+        if (dynamoDbClient instanceof InMemoryDynamoDbClient inMemory) {
+            inMemory.resetWriteCounts();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dynamoDbClient.close();
+    }
+
+    @Benchmark
+    public void write(PartitionWrites partitionWrites) {
+        repository.save(request(keys.next()));
+    }
+
+    /**
+     * Per-iteration counter for {@link #write}. JMH sums counters over threads, so each
+     * thread reports its part of the share. Only measured in-process.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PartitionWrites {
+
+        private InMemoryDynamoDbClient inMemory;
+
+        private int threads;
+
+        @Setup(Level.Trial)
+        public void setUp(ShardedLayoutBenchmark benchmark, BenchmarkParams params) {
+            inMemory = benchmark.dynamoDbClient instanceof InMemoryDynamoDbClient client ? client : null;
+            threads = params.getThreads();
+        }
+
+        /** Percentage of this iteration's writes that went to the most written partition key. */
+        public double hottestPartitionWritePercent() {
+            return inMemory == null ? 0 : inMemory.hottestPartitionWriteShare() * 100 / threads;
+        }
+    }
+
+    @Benchmark
+    public ApiRequest read() {
+        return repository.findById(keys.next(), READ_TIMEOUT);
+    }
+
+    private static ApiRequest request(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload("x".repeat(256));
+        return apiRequest;
+    }
+}
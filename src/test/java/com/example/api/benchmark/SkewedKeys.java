@@ -0,0 +1,40 @@
+package com.example.api.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws IDs out of {@code count} with a Zipf distribution of exponent {@code skew}: the
+ * k-th most popular ID is drawn with probability proportional to {@code 1 / k^skew}, so 0
+ * is uniform and values around 1 give the few very hot IDs seen in production traffic.
+ */
+class SkewedKeys {
+
+    private final String[] ids;
+
+    private final double[] cumulative;
+
+    SkewedKeys(String prefix, int count, double skew) {
+        ids = new String[count];
+        cumulative = new double[count];
+        double total = 0;
+        for (int rank = 0; rank < count; rank++) {
+            ids[rank] = prefix + rank;
+            total += 1 / Math.pow(rank + 1, skew);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < count; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    String next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        // A miss returns -(insertion point) - 1; the insertion point is the rank drawn
+        return ids[Math.min(index < 0 ? -index - 1 : index, ids.length - 1)];
+    }
+
+    String[] all() {
+        return ids;
+    }
+}
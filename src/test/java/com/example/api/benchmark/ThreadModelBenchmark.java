@@ -0,0 +1,127 @@
+package com.example.api.benchmark;
+
+import com.example.api.model.ApiRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load comparison between a Tomcat-sized platform thread pool (200 threads, the
+ * server.tomcat.threads.max default) and a virtual thread per task, the executor used
+ * when spring.threads.virtual.enabled=true. Each task is one API write followed by a read
+ * of it through the real ApiService (see {@link ApiServiceFixture}): a DynamoDB put that
+ * blocks for {@code dynamoDbLatencyMillis}, a Redis SET and a Redis GET over the embedded
+ * server's socket, and a Kafka send. Bulkheads are raised above {@code inFlightRequests}
+ * and slow calls do not open the breakers, so the score reflects the thread model rather
+ * than shed reads.
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.include=ThreadModelBenchmark
+ * </pre>
+ * Run with -Djmh.jvmArgs=-Djdk.tracePinnedThreads=short to report any virtual thread that
+ * blocks while pinned to its carrier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ThreadModelBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+
+    @Param({"platform", "virtual"})
+    public String threadModel;
+
+    @Param({"200", "2000"})
+    public int inFlightRequests;
+
+    @Param({"5"})
+    public long dynamoDbLatencyMillis;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ApiServiceFixture fixture;
+
+    private ExecutorService executor;
+
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        String maxConcurrentCalls = Integer.toString(inFlightRequests * 2);
+        // A queue of inFlightRequests calls is slow by design here, not a failing dependency
+        fixture = new ApiServiceFixture(false, Duration.ofMillis(dynamoDbLatencyMillis), Map.of(
+                "redis.max-concurrent-calls", maxConcurrentCalls,
+                "redis.slow-call-ms", "60000",
+                "dynamodb.max-concurrent-calls", maxConcurrentCalls,
+                "dynamodb.slow-call-ms", "60000"));
+        executor = "virtual".equals(threadModel)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        payload = "x".repeat(256);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearProducedRecords() {
+        // MockProducer keeps every record it was sent
+        fixture.producer.clear();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        fixture.close();
+    }
+
+    /**
+     * One operation is a burst of {@code inFlightRequests} concurrent write-then-read
+     * requests; the score is bursts per second.
+     */
+    @Benchmark
+    public int concurrentRequests() throws Exception {
+        List<Future<ApiRequest>> responses = new ArrayList<>(inFlightRequests);
+        for (int i = 0; i < inFlightRequests; i++) {
+            String requestId = "bench-" + sequence.incrementAndGet();
+            responses.add(executor.submit(() -> {
+                fixture.apiService.saveRequest(request(requestId));
+                return fixture.apiService.getRequest(requestId);
+            }));
+        }
+        int completed = 0;
+        for (Future<ApiRequest> response : responses) {
+            if (response.get() != null) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+
+    private ApiRequest request(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}
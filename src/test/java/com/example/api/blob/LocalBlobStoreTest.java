@@ -0,0 +1,77 @@
+package com.example.api.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalBlobStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testPayloadStreamsBackInChunks() throws IOException {
+        // Smaller chunks than the payload, so the upload takes several transfers
+        LocalBlobStore blobStore = new LocalBlobStore(directory.toString(), 1000, 1 << 20);
+        byte[] payload = "large payload ".repeat(1000).getBytes(StandardCharsets.UTF_8);
+
+        String ref = blobStore.write("123", new ByteArrayInputStream(payload));
+
+        Resource resource = blobStore.open(ref);
+        try (InputStream in = resource.getInputStream()) {
+            assertArrayEquals(payload, in.readAllBytes());
+        }
+    }
+
+    @Test
+    void testRewriteLeavesPreviousPayloadUntilDeleted() throws IOException {
+        LocalBlobStore blobStore = new LocalBlobStore(directory.toString(), 1000, 1 << 20);
+
+        String first = blobStore.write("123", new ByteArrayInputStream("first".getBytes(StandardCharsets.UTF_8)));
+        String second = blobStore.write("123", new ByteArrayInputStream("second".getBytes(StandardCharsets.UTF_8)));
+
+        assertNotEquals(first, second);
+        assertEquals("first", blobStore.open(first).getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("second", blobStore.open(second).getContentAsString(StandardCharsets.UTF_8));
+
+        blobStore.delete(first);
+        blobStore.delete(first);
+        assertNull(blobStore.open(first));
+        assertEquals(1, countFiles());
+    }
+
+    @Test
+    void testOversizedPayloadIsDiscarded() throws IOException {
+        LocalBlobStore blobStore = new LocalBlobStore(directory.toString(), 10, 100);
+
+        assertThrows(PayloadTooLargeException.class,
+                () -> blobStore.write("123", new ByteArrayInputStream(new byte[1000])));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void testMalformedRefIsRejected() throws IOException {
+        LocalBlobStore blobStore = new LocalBlobStore(directory.toString(), 1000, 1 << 20);
+
+        assertThrows(IllegalArgumentException.class, () -> blobStore.open("../../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> blobStore.delete("../../etc/passwd"));
+        assertNull(blobStore.open("0".repeat(64)));
+        assertNull(blobStore.open("0".repeat(64) + "-" + "0".repeat(32)));
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
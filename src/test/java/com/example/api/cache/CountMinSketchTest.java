@@ -0,0 +1,32 @@
+package com.example.api.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void testEstimateNeverUndercounts() {
+        CountMinSketch sketch = new CountMinSketch(256, 4);
+        for (int i = 0; i < 1000; i++) {
+            for (int j = 0; j <= i % 10; j++) {
+                sketch.add("key-" + i);
+            }
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(sketch.estimate("key-" + i) >= i % 10 + 1);
+        }
+    }
+
+    @Test
+    void testAddReturnsEstimateAndClearResets() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        assertEquals(1, sketch.add("a"));
+        assertEquals(2, sketch.add("a"));
+        assertEquals(0, sketch.estimate("b"));
+
+        sketch.clear();
+        assertEquals(0, sketch.estimate("a"));
+    }
+}
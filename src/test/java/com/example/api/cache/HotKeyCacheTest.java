@@ -0,0 +1,125 @@
+package com.example.api.cache;
+
+import com.example.api.model.ApiRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HotKeyCacheTest {
+
+    private NearCache nearCache;
+
+    @BeforeEach
+    void setup() {
+        nearCache = mock(NearCache.class);
+        when(nearCache.broadcastsInvalidations()).thenReturn(true);
+    }
+
+    @Test
+    void testFrequentlyReadIdIsPinned() {
+        HotKeyCache hotKeys = hotKeyCache(0);
+
+        read(hotKeys, "cold", 5);
+        read(hotKeys, "hot", 10);
+        hotKeys.pin(apiRequest("cold"));
+        hotKeys.pin(apiRequest("hot"));
+
+        assertNull(hotKeys.get("cold"));
+        assertEquals("hot", hotKeys.get("hot").getId());
+        List<HotKeyCache.HotKey> topKeys = hotKeys.topKeys();
+        assertEquals(1, topKeys.size());
+        assertEquals("hot", topKeys.get(0).requestId());
+        assertTrue(topKeys.get(0).pinned());
+    }
+
+    @Test
+    void testIdCoolsDownAfterTwoQuietWindows() {
+        HotKeyCache hotKeys = hotKeyCache(0);
+        read(hotKeys, "hot", 10);
+        hotKeys.pin(apiRequest("hot"));
+
+        hotKeys.rotate();
+        assertEquals(1, hotKeys.topKeys().size());
+
+        hotKeys.rotate();
+        assertTrue(hotKeys.topKeys().isEmpty());
+        assertNull(hotKeys.get("hot"));
+    }
+
+    @Test
+    void testHotSetKeepsTheHottestIds() {
+        HotKeyCache hotKeys = hotKeyCache(0);
+        read(hotKeys, "a", 10);
+        read(hotKeys, "b", 20);
+        read(hotKeys, "c", 30);
+
+        assertEquals(List.of("c", "b"), hotKeys.topKeys().stream().map(HotKeyCache.HotKey::requestId).toList());
+    }
+
+    @Test
+    void testOneRefreshPerInterval() {
+        HotKeyCache hotKeys = hotKeyCache(0);
+        read(hotKeys, "hot", 10);
+        assertFalse(hotKeys.claimRefresh("hot"));
+
+        hotKeys.pin(apiRequest("hot"));
+        assertTrue(hotKeys.claimRefresh("hot"));
+
+        HotKeyCache slow = hotKeyCache(60_000);
+        read(slow, "hot", 10);
+        slow.pin(apiRequest("hot"));
+        assertFalse(slow.claimRefresh("hot"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRemoteWriteDropsPinnedCopy() {
+        HotKeyCache hotKeys = hotKeyCache(0);
+        hotKeys.start();
+        ArgumentCaptor<Consumer<String>> listener = ArgumentCaptor.forClass(Consumer.class);
+        verify(nearCache).addInvalidationListener(listener.capture());
+        read(hotKeys, "hot", 10);
+        hotKeys.pin(apiRequest("hot"));
+
+        listener.getValue().accept("hot");
+
+        assertNull(hotKeys.get("hot"));
+        hotKeys.shutdown();
+    }
+
+    @Test
+    void testNothingIsPinnedWithoutInvalidations() {
+        when(nearCache.broadcastsInvalidations()).thenReturn(false);
+        HotKeyCache hotKeys = hotKeyCache(0);
+        read(hotKeys, "hot", 10);
+        hotKeys.pin(apiRequest("hot"));
+
+        assertNull(hotKeys.get("hot"));
+        assertFalse(hotKeys.topKeys().get(0).pinned());
+    }
+
+    private HotKeyCache hotKeyCache(long refreshMs) {
+        return new HotKeyCache(nearCache, new SimpleMeterRegistry(), true, 60_000, 10, 2, 1024, 4,
+                true, refreshMs, 60_000);
+    }
+
+    private static void read(HotKeyCache hotKeys, String requestId, int times) {
+        for (int i = 0; i < times; i++) {
+            hotKeys.get(requestId);
+        }
+    }
+
+    private static ApiRequest apiRequest(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload("payload-" + id);
+        return apiRequest;
+    }
+}
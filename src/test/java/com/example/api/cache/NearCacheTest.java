@@ -0,0 +1,105 @@
+package com.example.api.cache;
+
+import com.example.api.model.ApiRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class NearCacheTest {
+
+    private static final String CHANNEL = "test-invalidations";
+
+    private StringRedisTemplate stringRedisTemplate;
+
+    private NearCache nearCache;
+
+    @BeforeEach
+    void setup() {
+        stringRedisTemplate = mock(StringRedisTemplate.class);
+        nearCache = new NearCache(stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry(), true, 100, 60000, 600000, CHANNEL);
+    }
+
+    @Test
+    void testPutAndGet() {
+        ApiRequest apiRequest = request("123");
+        nearCache.put("123", apiRequest);
+
+        assertSame(apiRequest, nearCache.get("123"));
+        assertNull(nearCache.get("456"));
+    }
+
+    @Test
+    void testDisabledCacheNeverHits() {
+        NearCache disabled = new NearCache(stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry(), false, 100, 60000, 600000, CHANNEL);
+        disabled.put("123", request("123"));
+
+        assertNull(disabled.get("123"));
+        disabled.publishInvalidation("123");
+        verifyNoInteractions(stringRedisTemplate);
+    }
+
+    @Test
+    void testExpiredEntryIsStillServedAsStale() throws InterruptedException {
+        NearCache shortLived = new NearCache(stringRedisTemplate, mock(RedisMessageListenerContainer.class),
+                new SimpleMeterRegistry(), true, 100, 10, 600000, CHANNEL);
+        ApiRequest apiRequest = request("123");
+        shortLived.put("123", apiRequest);
+        Thread.sleep(50);
+
+        assertNull(shortLived.get("123"));
+        assertEquals(apiRequest.getPayload(), shortLived.getStale("123").getPayload());
+    }
+
+    @Test
+    void testInvalidatedEntryIsNotServedAsStale() {
+        nearCache.put("123", request("123"));
+
+        nearCache.onMessage(message("other-node|123"), null);
+
+        assertNull(nearCache.getStale("123"));
+    }
+
+    @Test
+    void testInvalidationFromOtherNodeEvictsEntry() {
+        nearCache.put("123", request("123"));
+
+        nearCache.onMessage(message("other-node|123"), null);
+
+        assertNull(nearCache.get("123"));
+    }
+
+    @Test
+    void testOwnInvalidationKeepsEntry() {
+        nearCache.put("123", request("123"));
+        nearCache.publishInvalidation("123");
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(CHANNEL), body.capture());
+        nearCache.onMessage(message(body.getValue()), null);
+
+        assertNotNull(nearCache.get("123"));
+    }
+
+    private static ApiRequest request(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload("payload-" + id);
+        return apiRequest;
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
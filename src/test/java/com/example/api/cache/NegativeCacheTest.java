@@ -0,0 +1,103 @@
+package com.example.api.cache;
+
+import com.example.api.repository.ApiRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NegativeCacheTest {
+
+    private ApiRequestRepository apiRequestRepository;
+
+    private NearCache nearCache;
+
+    @BeforeEach
+    void setup() {
+        apiRequestRepository = mock(ApiRequestRepository.class);
+        nearCache = mock(NearCache.class);
+        when(nearCache.broadcastsInvalidations()).thenReturn(true);
+    }
+
+    @Test
+    void testMissingIdIsRememberedUntilWritten() {
+        NegativeCache negativeCache = negativeCache(false);
+
+        negativeCache.recordAbsent("123", negativeCache.lookupToken("123"));
+        assertTrue(negativeCache.isKnownAbsent("123"));
+        assertFalse(negativeCache.isKnownAbsent("456"));
+
+        negativeCache.recordPresent("123");
+        assertFalse(negativeCache.isKnownAbsent("123"));
+    }
+
+    @Test
+    void testWriteDuringLookupIsNotMasked() {
+        NegativeCache negativeCache = negativeCache(false);
+
+        long token = negativeCache.lookupToken("123");
+        // Saved after the lookup read nothing, but before it reports the miss
+        negativeCache.recordPresent("123");
+        negativeCache.recordAbsent("123", token);
+
+        assertFalse(negativeCache.isKnownAbsent("123"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBloomFilterOnlyLetsMissesForIdsNeverStoredBeCached() {
+        doAnswer(invocation -> {
+            Consumer<String> sink = invocation.getArgument(0);
+            for (int i = 0; i < 1000; i++) {
+                sink.accept("stored-" + i);
+            }
+            return null;
+        }).when(apiRequestRepository).scanIds(any(Consumer.class));
+        NegativeCache negativeCache = negativeCache(true);
+
+        negativeCache.rebuildBloomFilter();
+        negativeCache.recordPresent("written-later");
+
+        // The filter alone never answers a lookup
+        assertFalse(negativeCache.isKnownAbsent("never-stored"));
+        for (int i = 0; i < 1000; i++) {
+            // A miss for an ID the filter has seen, such as a read lagging a write elsewhere
+            negativeCache.recordAbsent("stored-" + i, negativeCache.lookupToken("stored-" + i));
+            assertFalse(negativeCache.isKnownAbsent("stored-" + i));
+        }
+        negativeCache.recordAbsent("written-later", negativeCache.lookupToken("written-later"));
+        assertFalse(negativeCache.isKnownAbsent("written-later"));
+        int cached = 0;
+        for (int i = 0; i < 1000; i++) {
+            negativeCache.recordAbsent("never-stored-" + i, negativeCache.lookupToken("never-stored-" + i));
+            if (negativeCache.isKnownAbsent("never-stored-" + i)) {
+                cached++;
+            }
+        }
+        // 1% false-positive target, with some slack
+        assertTrue(cached > 950, "Only " + cached + " misses for unknown IDs were cached");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBloomFilterIsNotBuiltWithoutInvalidationChannel() {
+        when(nearCache.broadcastsInvalidations()).thenReturn(false);
+        NegativeCache negativeCache = negativeCache(true);
+
+        negativeCache.start();
+
+        verify(apiRequestRepository, after(200).never()).scanIds(any(Consumer.class));
+        assertFalse(negativeCache.isKnownAbsent("never-stored"));
+        negativeCache.shutdown();
+    }
+
+    private NegativeCache negativeCache(boolean bloomEnabled) {
+        return new NegativeCache(apiRequestRepository, nearCache, new SimpleMeterRegistry(),
+                true, 60000, 1000, bloomEnabled, 1000, 0.01, 3600000);
+    }
+}
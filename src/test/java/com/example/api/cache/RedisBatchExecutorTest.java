@@ -0,0 +1,59 @@
+package com.example.api.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class RedisBatchExecutorTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private ValueOperations<String, Object> valueOperations;
+
+    private RedisBatchExecutor redisBatch;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        redisBatch = new RedisBatchExecutor(redisTemplate,
+                new RedisCachePolicy(new SimpleMeterRegistry(), 60000, 0.1, 1024, false), 2);
+    }
+
+    @Test
+    void testSmallBatchIsOneMget() {
+        List<String> keys = List.of("1", "2");
+        when(valueOperations.multiGet(keys)).thenReturn(Arrays.asList("a", null));
+
+        assertEquals(Arrays.asList("a", null), redisBatch.getAll(keys));
+        verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    void testLargeBatchIsChunkedAndFlattenedInOrder() {
+        when(redisTemplate.executePipelined(any(SessionCallback.class)))
+                .thenReturn(List.of(Arrays.asList("a", null), List.of("c")));
+
+        assertEquals(Arrays.asList("a", null, "c"), redisBatch.getAll(List.of("1", "2", "3")));
+        verify(valueOperations, never()).multiGet(any());
+    }
+
+    @Test
+    void testMissingReplyIsAllMisses() {
+        when(valueOperations.multiGet(List.of("1"))).thenReturn(null);
+
+        assertEquals(Arrays.asList((Object) null), redisBatch.getAll(List.of("1")));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.api.cache;
+
+import com.example.api.model.ApiRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RedisCachePolicyTest {
+
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private ValueOperations<String, Object> valueOperations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void testTtlIsJitteredWithinBounds() {
+        RedisCachePolicy policy = new RedisCachePolicy(new SimpleMeterRegistry(), 60000, 0.1, 1024, false);
+
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long ttl = policy.ttl().toMillis();
+            min = Math.min(min, ttl);
+            max = Math.max(max, ttl);
+        }
+
+        assertTrue(min >= 54000, "TTL below jitter range: " + min);
+        assertTrue(max <= 66000, "TTL above jitter range: " + max);
+        assertTrue(max - min > 6000, "TTLs are not spread out");
+    }
+
+    @Test
+    void testWriteSetsExpiry() {
+        RedisCachePolicy policy = new RedisCachePolicy(new SimpleMeterRegistry(), 60000, 0, 1024, false);
+        ApiRequest apiRequest = request("123", "small");
+
+        policy.write(redisTemplate, apiRequest);
+
+        verify(valueOperations).set("123", apiRequest, Duration.ofMillis(60000));
+    }
+
+    @Test
+    void testOversizedRequestIsNotCachedAndDropsOldEntry() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RedisCachePolicy policy = new RedisCachePolicy(meterRegistry, 60000, 0.1, 4, false);
+
+        policy.write(redisTemplate, request("123", "é€ab"));
+
+        verify(redisTemplate).delete("123");
+        verify(valueOperations, never()).set(any(), any(), any(Duration.class));
+        assertEquals(1.0, meterRegistry.get("api.cache.redis.oversized").counter().count());
+    }
+
+    @Test
+    void testSlidingExpirationRefreshesOnRead() {
+        RedisCachePolicy sliding = new RedisCachePolicy(new SimpleMeterRegistry(), 60000, 0, 1024, true);
+        RedisCachePolicy fixed = new RedisCachePolicy(new SimpleMeterRegistry(), 60000, 0, 1024, false);
+
+        sliding.read(redisTemplate, "123");
+        fixed.read(redisTemplate, "456");
+
+        verify(valueOperations).getAndExpire(eq("123"), eq(Duration.ofMillis(60000)));
+        verify(valueOperations).get("456");
+    }
+
+    private static ApiRequest request(String id, String payload) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.api.cdc;
+
+import com.example.api.service.ApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeStreamResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetRecordsResponse;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetShardIteratorResponse;
+import software.amazon.awssdk.services.dynamodb.model.OperationType;
+import software.amazon.awssdk.services.dynamodb.model.Record;
+import software.amazon.awssdk.services.dynamodb.model.Shard;
+import software.amazon.awssdk.services.dynamodb.model.ShardIteratorType;
+import software.amazon.awssdk.services.dynamodb.model.StreamDescription;
+import software.amazon.awssdk.services.dynamodb.model.StreamRecord;
+import software.amazon.awssdk.services.dynamodb.streams.DynamoDbStreamsClient;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ApiRequestStreamConsumerTest {
+
+    private DynamoDbStreamsClient streamsClient;
+
+    private ApiService apiService;
+
+    private LeaderLease lease;
+
+    private StreamCheckpoints checkpoints;
+
+    private ApiRequestStreamConsumer consumer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        streamsClient = mock(DynamoDbStreamsClient.class);
+        apiService = mock(ApiService.class);
+        lease = mock(LeaderLease.class);
+        checkpoints = mock(StreamCheckpoints.class);
+        when(lease.tryAcquire()).thenReturn(true);
+        when(checkpoints.load()).thenReturn(Map.of());
+        when(checkpoints.save(anyString(), anyString())).thenReturn(true);
+        when(apiService.evictChanged(anyMap(), anySet())).thenAnswer(invocation -> ((Map<?, ?>) invocation.getArgument(0)).size());
+
+        // Shard "child" was split from "parent", which is closed
+        when(streamsClient.describeStream(any(Consumer.class))).thenReturn(DescribeStreamResponse.builder()
+                .streamDescription(StreamDescription.builder()
+                        .shards(Shard.builder().shardId("parent").build(),
+                                Shard.builder().shardId("child").parentShardId("parent").build())
+                        .build())
+                .build());
+        when(streamsClient.getShardIterator(any(GetShardIteratorRequest.class))).thenAnswer(invocation ->
+                GetShardIteratorResponse.builder()
+                        .shardIterator("iterator-" + invocation.<GetShardIteratorRequest>getArgument(0).shardId())
+                        .build());
+        when(streamsClient.getRecords(any(Consumer.class))).thenAnswer(invocation -> {
+            GetRecordsRequest.Builder request = GetRecordsRequest.builder();
+            invocation.<Consumer<GetRecordsRequest.Builder>>getArgument(0).accept(request);
+            return switch (request.build().shardIterator()) {
+                case "iterator-parent" -> GetRecordsResponse.builder()
+                        .records(record(OperationType.MODIFY, "a", "1", 2L, 1L), record(OperationType.REMOVE, "b", "2", null, null))
+                        .build();
+                case "iterator-child" -> GetRecordsResponse.builder()
+                        .records(record(OperationType.INSERT, "c", "3", 5L, null))
+                        .nextShardIterator("iterator-child-next")
+                        .build();
+                default -> GetRecordsResponse.builder().nextShardIterator("iterator-child-next").build();
+            };
+        });
+
+        consumer = new ApiRequestStreamConsumer(streamsClient, mock(DynamoDbClient.class), apiService, lease, checkpoints,
+                new SimpleMeterRegistry(), "ApiRequestTable", "single", "ApiRequestShardedTable", "arn:stream", "LATEST", 100, 1000, 60_000);
+    }
+
+    @Test
+    void testParentShardIsAppliedAndCheckpointedBeforeChild() {
+        consumer.poll();
+
+        Map<String, Long> parentChanges = new HashMap<>();
+        parentChanges.put("a", 2L);
+        parentChanges.put("b", null);
+        InOrder inOrder = inOrder(apiService, checkpoints);
+        inOrder.verify(apiService).evictChanged(parentChanges, Set.of("b"));
+        inOrder.verify(checkpoints).save("parent", "2");
+        inOrder.verify(checkpoints).save("parent", StreamCheckpoints.SHARD_END);
+        inOrder.verify(apiService).evictChanged(Map.of("c", 5L), Set.of());
+        inOrder.verify(checkpoints).save("child", "3");
+        verify(checkpoints, never()).save("child", StreamCheckpoints.SHARD_END);
+    }
+
+    @Test
+    void testChildOfAShardReadHereStartsAtItsBeginning() {
+        consumer.poll();
+
+        ArgumentCaptor<GetShardIteratorRequest> requests = ArgumentCaptor.forClass(GetShardIteratorRequest.class);
+        verify(streamsClient, times(2)).getShardIterator(requests.capture());
+        assertEquals(ShardIteratorType.LATEST, requests.getAllValues().get(0).shardIteratorType());
+        assertEquals(ShardIteratorType.TRIM_HORIZON, requests.getAllValues().get(1).shardIteratorType());
+    }
+
+    @Test
+    void testResumesAfterCheckpoint() {
+        when(checkpoints.load()).thenReturn(Map.of("parent", StreamCheckpoints.SHARD_END, "child", "3"));
+
+        consumer.poll();
+
+        ArgumentCaptor<GetShardIteratorRequest> request = ArgumentCaptor.forClass(GetShardIteratorRequest.class);
+        verify(streamsClient).getShardIterator(request.capture());
+        assertEquals("child", request.getValue().shardId());
+        assertEquals(ShardIteratorType.AFTER_SEQUENCE_NUMBER, request.getValue().shardIteratorType());
+        assertEquals("3", request.getValue().sequenceNumber());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNothingIsReadWithoutTheLease() {
+        when(lease.tryAcquire()).thenReturn(false);
+
+        consumer.poll();
+
+        verify(streamsClient, never()).describeStream(any(Consumer.class));
+        verifyNoInteractions(apiService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLostLeaseStopsReadingAndRelistsOnReturn() {
+        when(checkpoints.save("parent", "2")).thenReturn(false);
+
+        consumer.poll();
+        verify(apiService, times(1)).evictChanged(anyMap(), anySet());
+
+        consumer.poll();
+        verify(streamsClient, times(2)).describeStream(any(Consumer.class));
+    }
+
+    @Test
+    void testVersionIsOnlyTrustedWhenItChanged() {
+        Map<String, Long> changes = ApiRequestStreamConsumer.changes(List.of(
+                record(OperationType.MODIFY, "bumped", "1", 2L, 1L),
+                record(OperationType.MODIFY, "unbumped", "2", 1L, 1L),
+                record(OperationType.MODIFY, "unversioned", "3", null, null),
+                record(OperationType.INSERT, "later", "4", 7L, null),
+                record(OperationType.MODIFY, "later", "5", 8L, 7L)));
+
+        assertEquals(2L, changes.get("bumped"));
+        assertNull(changes.get("unbumped"));
+        assertTrue(changes.containsKey("unversioned"));
+        assertNull(changes.get("unversioned"));
+        assertEquals(8L, changes.get("later"));
+    }
+
+    @Test
+    void testOnlyIdsWhoseLastChangeDeletedThemAreRemoved() {
+        Set<String> removed = ApiRequestStreamConsumer.removed(List.of(
+                record(OperationType.REMOVE, "deleted", "1", null, null),
+                record(OperationType.REMOVE, "recreated", "2", null, null),
+                record(OperationType.INSERT, "recreated", "3", 4L, null),
+                record(OperationType.MODIFY, "modified", "4", 2L, 1L)));
+
+        assertEquals(Set.of("deleted"), removed);
+    }
+
+    private static Record record(OperationType operation, String id, String sequenceNumber, Long newVersion, Long oldVersion) {
+        StreamRecord.Builder change = StreamRecord.builder()
+                .keys(Map.of("id", AttributeValue.fromS(id)))
+                .sequenceNumber(sequenceNumber);
+        if (operation != OperationType.REMOVE) {
+            change.newImage(image(id, newVersion));
+        }
+        if (operation == OperationType.MODIFY) {
+            change.oldImage(image(id, oldVersion));
+        }
+        return Record.builder().eventName(operation).dynamodb(change.build()).build();
+    }
+
+    private static Map<String, AttributeValue> image(String id, Long version) {
+        Map<String, AttributeValue> image = new HashMap<>();
+        image.put("id", AttributeValue.fromS(id));
+        image.put("payload", AttributeValue.fromS("payload-" + id));
+        if (version != null) {
+            image.put("version", AttributeValue.fromN(Long.toString(version)));
+        }
+        return image;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.api.codec;
+
+import com.example.api.model.ApiRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryApiRequestCodecTest {
+
+    private final BinaryApiRequestCodec codec = new BinaryApiRequestCodec(1024);
+
+    @Test
+    void testSmallValueRoundTripsUncompressed() {
+        byte[] encoded = codec.serialize(request("123", "Test Request"));
+
+        assertEquals(BinaryApiRequestCodec.FORMAT_VERSION, encoded[0]);
+        assertEquals(0, encoded[1]);
+        assertEquals(2 + 1 + 3 + 1 + 12, encoded.length);
+
+        ApiRequest decoded = codec.deserialize(encoded);
+        assertEquals("123", decoded.getId());
+        assertEquals("Test Request", decoded.getPayload());
+    }
+
+    @Test
+    void testNullPayloadRoundTrips() {
+        ApiRequest decoded = codec.deserialize(codec.serialize(request("123", null)));
+
+        assertEquals("123", decoded.getId());
+        assertNull(decoded.getPayload());
+    }
+
+    @Test
+    void testPayloadRefRoundTrips() {
+        ApiRequest apiRequest = request("123", null);
+        apiRequest.setPayloadRef("ab12");
+
+        byte[] encoded = codec.serialize(apiRequest);
+        ApiRequest decoded = codec.deserialize(encoded);
+
+        assertEquals(2, encoded[1]);
+        assertNull(decoded.getPayload());
+        assertEquals("ab12", decoded.getPayloadRef());
+    }
+
+    @Test
+    void testPayloadRefSurvivesCompression() {
+        String payload = "repeated payload ".repeat(1000);
+        ApiRequest apiRequest = request("123", payload);
+        apiRequest.setPayloadRef("ab12");
+
+        byte[] encoded = codec.serialize(apiRequest);
+        ApiRequest decoded = codec.deserialize(encoded);
+
+        assertEquals(3, encoded[1]);
+        assertEquals(payload, decoded.getPayload());
+        assertEquals("ab12", decoded.getPayloadRef());
+    }
+
+    @Test
+    void testLargeCompressibleValueIsCompressed() {
+        String payload = "repeated payload ".repeat(1000);
+
+        byte[] encoded = codec.serialize(request("123", payload));
+
+        assertEquals(1, encoded[1]);
+        assertTrue(encoded.length < payload.length() / 10);
+        assertEquals(payload, codec.deserialize(encoded).getPayload());
+    }
+
+    @Test
+    void testIncompressibleValueIsStoredAsIs() {
+        byte[] random = new byte[4096];
+        ThreadLocalRandom.current().nextBytes(random);
+        StringBuilder payload = new StringBuilder();
+        for (byte b : random) {
+            payload.append((char) ('!' + (b & 0x3F)));
+        }
+
+        byte[] encoded = codec.serialize(request("123", payload.toString()));
+
+        assertEquals(0, encoded[1]);
+        assertEquals(payload.toString(), codec.deserialize(encoded).getPayload());
+    }
+
+    @Test
+    void testVersionIsReadableFromPrefixOfCompressedValue() {
+        String payload = "repeated payload ".repeat(1000);
+        ApiRequest apiRequest = request("123", payload);
+        apiRequest.setVersion(1L << 60 | 12345);
+
+        byte[] encoded = codec.serialize(apiRequest);
+        byte[] prefix = Arrays.copyOf(encoded, codec.versionPrefixLength());
+
+        assertEquals(BinaryApiRequestCodec.VERSIONED_FORMAT_VERSION, encoded[0]);
+        assertEquals(1, encoded[1]);
+        assertEquals(1L << 60 | 12345, codec.readVersion(prefix));
+        ApiRequest decoded = codec.deserialize(encoded);
+        assertEquals(1L << 60 | 12345, decoded.getVersion());
+        assertEquals(payload, decoded.getPayload());
+    }
+
+    @Test
+    void testUnversionedValueReportsNoVersion() {
+        byte[] encoded = codec.serialize(request("123", "Test Request"));
+
+        assertNull(codec.readVersion(Arrays.copyOf(encoded, codec.versionPrefixLength())));
+        assertNull(codec.readVersion(new byte[] {'{', '"'}));
+        assertNull(codec.deserialize(encoded).getVersion());
+    }
+
+    @Test
+    void testLegacyJsonValueIsReadable() {
+        byte[] json = new JsonApiRequestCodec().serialize(request("123", "Test Request"));
+
+        ApiRequest decoded = codec.deserialize(json);
+
+        assertEquals("123", decoded.getId());
+        assertEquals("Test Request", decoded.getPayload());
+    }
+
+    @Test
+    void testUnknownFormatVersionIsRejected() {
+        assertThrows(SerializationException.class, () -> codec.deserialize(new byte[] {42, 0, 1}));
+    }
+
+    private static ApiRequest request(String id, String payload) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}
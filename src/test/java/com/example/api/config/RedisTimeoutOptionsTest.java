@@ -0,0 +1,102 @@
+package com.example.api.config;
+
+import com.example.api.resilience.DependencyGuard;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.CommandType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs commands against a Redis blocked by DEBUG SLEEP, with the timeout options the
+ * connection factory uses.
+ */
+class RedisTimeoutOptionsTest {
+
+    private static RedisServer redisServer;
+
+    private static int port;
+
+    private DependencyGuard dependencyGuard;
+
+    private RedisClient client;
+
+    private StatefulRedisConnection<String, String> blocker;
+
+    private StatefulRedisConnection<String, String> connection;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = new RedisServer(port);
+        redisServer.start();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setup() {
+        dependencyGuard = mock(DependencyGuard.class);
+        client = RedisClient.create(RedisURI.create("localhost", port));
+        client.setOptions(ClientOptions.builder()
+                .timeoutOptions(RedisConfig.timeoutOptions(dependencyGuard, Duration.ofMillis(200)))
+                .build());
+        blocker = client.connect();
+        connection = client.connect();
+    }
+
+    @AfterEach
+    void tearDown() {
+        blocker.close();
+        connection.close();
+        client.shutdown();
+    }
+
+    @Test
+    void testBlockedWriteTimesOutAfterCommandTimeout() {
+        when(dependencyGuard.redisTimeoutMillis()).thenReturn(5000L);
+        blockRedis();
+
+        long start = System.nanoTime();
+        assertThrows(RedisCommandTimeoutException.class, () -> connection.sync().set("key", "value"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 500);
+    }
+
+    @Test
+    void testBlockedReadTimesOutAfterAdaptiveTimeout() {
+        when(dependencyGuard.redisTimeoutMillis()).thenReturn(50L);
+        blockRedis();
+
+        long start = System.nanoTime();
+        assertThrows(RedisCommandTimeoutException.class, () -> connection.sync().get("key"));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 200);
+    }
+
+    /** Keeps the server busy for half a second, so nothing else it is sent is answered. */
+    private void blockRedis() {
+        blocker.async().dispatch(CommandType.DEBUG, new StatusOutput<>(StringCodec.UTF8),
+                new CommandArgs<>(StringCodec.UTF8).add("SLEEP").add("0.5"));
+    }
+}
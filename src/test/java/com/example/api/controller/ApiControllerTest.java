@@ -0,0 +1,173 @@
+package com.example.api.controller;
+
+import com.example.api.blob.PayloadTooLargeException;
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.VersionConflictException;
+import com.example.api.service.ApiService;
+import com.example.api.writebehind.WriteBehindQueue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ApiControllerTest {
+
+    private ApiService apiService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        apiService = mock(ApiService.class);
+        ApiController controller = new ApiController();
+        ReflectionTestUtils.setField(controller, "apiService", apiService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(controller, "bulkMaxIds", 3);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBulkReadStreamsOneJsonLinePerFoundRequest() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<ApiRequest> sink = invocation.getArgument(1);
+            sink.accept(apiRequest("456", "second"));
+            sink.accept(apiRequest("123", "first"));
+            return null;
+        }).when(apiService).streamRequests(eq(List.of("123", "456", "missing")), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(post("/api/requests/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"123\",\"456\",\"missing\"]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":\"456\",\"payload\":\"second\"}\n"
+                        + "{\"id\":\"123\",\"payload\":\"first\"}\n"));
+    }
+
+    @Test
+    void testBulkReadRejectsTooManyIds() throws Exception {
+        mockMvc.perform(post("/api/requests/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[\"1\",\"2\",\"3\",\"4\"]"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(apiService);
+    }
+
+    @Test
+    void testStaleIfMatchIsRejected() throws Exception {
+        doThrow(new VersionConflictException("123 is no longer at version 5", null))
+                .when(apiService).saveRequest(any(ApiRequest.class), eq(5L));
+
+        mockMvc.perform(post("/api/request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_MATCH, "\"5\"")
+                        .content("{\"id\":\"123\",\"payload\":\"update\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void testRequestWithoutIdIsRejectedBeforeWriteBehind() throws Exception {
+        WriteBehindQueue writeBehindQueue = mock(WriteBehindQueue.class);
+        ApiController controller = new ApiController();
+        ReflectionTestUtils.setField(controller, "apiService", apiService);
+        ReflectionTestUtils.setField(controller, "writeBehindQueue", writeBehindQueue);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        for (String body : List.of("{\"payload\":\"value\"}", "{\"id\":\" \",\"payload\":\"value\"}")) {
+            mockMvc.perform(post("/api/request")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isBadRequest());
+        }
+
+        verifyNoInteractions(writeBehindQueue, apiService);
+    }
+
+    @Test
+    void testPayloadUploadIsStreamedToService() throws Exception {
+        when(apiService.saveStreamed(eq("123"), any(InputStream.class))).thenAnswer(invocation -> {
+            ApiRequest saved = new ApiRequest();
+            saved.setId("123");
+            saved.setPayloadRef("ab".repeat(32));
+            saved.setVersion(7L);
+            assertEquals("raw bytes", new String(invocation.<InputStream>getArgument(1).readAllBytes(), StandardCharsets.UTF_8));
+            return saved;
+        });
+
+        mockMvc.perform(put("/api/request/123/payload")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("raw bytes"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"7\""));
+    }
+
+    @Test
+    void testOversizedPayloadUploadIsRejected() throws Exception {
+        when(apiService.saveStreamed(eq("123"), any(InputStream.class)))
+                .thenThrow(new PayloadTooLargeException("Payload of 123 exceeds 10 bytes"));
+
+        mockMvc.perform(put("/api/request/123/payload")
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .content("more than ten bytes"))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void testPayloadIsServedAsRawBytesWithRanges() throws Exception {
+        ApiRequest stored = apiRequest("123", null);
+        stored.setPayloadRef("ab".repeat(32));
+        when(apiService.getRequest("123")).thenReturn(stored);
+        when(apiService.openPayload(stored)).thenReturn(new ByteArrayResource("raw bytes".getBytes(StandardCharsets.UTF_8)));
+
+        mockMvc.perform(get("/api/request/123/payload"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                .andExpect(content().string("raw bytes"));
+        mockMvc.perform(get("/api/request/123/payload").header(HttpHeaders.RANGE, "bytes=4-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string("bytes"));
+    }
+
+    @Test
+    void testMissingPayloadIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/request/missing/payload"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static ApiRequest apiRequest(String id, String payload) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.api.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyMetricsTest {
+
+    private SimpleMeterRegistry registry;
+
+    private DependencyMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        metrics = new DependencyMetrics(registry);
+    }
+
+    @Test
+    void testTimersAreTaggedByDependencyAndOperation() {
+        metrics.redisGet().record(2, TimeUnit.MILLISECONDS);
+        metrics.dynamoDbPut().record(5, TimeUnit.MILLISECONDS);
+
+        assertEquals(1, timer("redis", "get").count());
+        assertEquals(1, timer("dynamodb", "put").count());
+        assertEquals(0, timer("dynamodb", "get").count());
+        assertEquals(10, registry.find(DependencyMetrics.CALLS).timers().size());
+    }
+
+    @Test
+    void testTimersPublishPercentiles() {
+        metrics.redisSet().record(3, TimeUnit.MILLISECONDS);
+
+        double[] percentiles = Arrays.stream(timer("redis", "set").takeSnapshot().percentileValues())
+                .mapToDouble(ValueAtPercentile::percentile)
+                .toArray();
+        assertArrayEquals(new double[] {0.5, 0.95, 0.99, 0.999}, percentiles);
+    }
+
+    @Test
+    void testKafkaSendIsTimedUntilAcknowledged() {
+        CompletableFuture<String> send = new CompletableFuture<>();
+        CompletableFuture<String> recorded = metrics.recordKafkaSend(send);
+        assertEquals(0, timer("kafka", "send").count());
+
+        send.complete("ack");
+
+        assertEquals("ack", recorded.join());
+        assertEquals(1, timer("kafka", "send").count());
+        assertEquals(0, registry.get("api.kafka.send.failures").counter().count());
+    }
+
+    @Test
+    void testUnacknowledgedKafkaSendCountsAsFailure() {
+        metrics.recordKafkaSend(CompletableFuture.failedFuture(new IllegalStateException("timed out")));
+
+        assertEquals(1, timer("kafka", "send").count());
+        assertEquals(1, registry.get("api.kafka.send.failures").counter().count());
+    }
+
+    @Test
+    void testHitRatioFollowsRedisLookups() {
+        assertEquals(0, hitRatio());
+
+        metrics.recordRedisLookups(3, 1);
+
+        assertEquals(0.75, hitRatio());
+        assertEquals(3, registry.get(DependencyMetrics.CACHE_LOOKUPS).tag("result", "hit").counter().count());
+        assertEquals(1, registry.get(DependencyMetrics.CACHE_LOOKUPS).tag("result", "miss").counter().count());
+    }
+
+    private Timer timer(String dependency, String operation) {
+        return registry.get(DependencyMetrics.CALLS).tag("dependency", dependency).tag("operation", operation).timer();
+    }
+
+    private double hitRatio() {
+        return registry.get("api.cache.hit.ratio").tag("tier", "redis").gauge().value();
+    }
+}
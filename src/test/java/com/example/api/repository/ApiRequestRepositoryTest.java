@@ -0,0 +1,96 @@
+package com.example.api.repository;
+
+import com.example.api.model.ApiRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ApiRequestRepositoryTest {
+
+    private static final String TABLE = "ApiRequestTable";
+
+    private DynamoDbClient dynamoDbClient;
+
+    private ApiRequestRepository repository;
+
+    @BeforeEach
+    void setup() {
+        // Unstubbed calls fall through to the client's default methods, which build the request and call the stubs
+        dynamoDbClient = mock(DynamoDbClient.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        repository = new ApiRequestRepository(dynamoDbClient, TABLE);
+        ReflectionTestUtils.setField(repository, "batchMaxAttempts", 3);
+        ReflectionTestUtils.setField(repository, "batchBackoffMs", 1L);
+    }
+
+    @Test
+    void testBatchReadsAreSplitIntoHundredKeyCalls() {
+        doAnswer(invocation -> found(keys(invocation.getArgument(0)), List.of()))
+                .when(dynamoDbClient).batchGetItem(any(BatchGetItemRequest.class));
+        List<String> ids = new ArrayList<>(IntStream.range(0, 250).mapToObj(i -> "id-" + i).toList());
+        // Duplicates are read once
+        ids.add("id-0");
+
+        Map<String, ApiRequest> found = repository.findAllByIds(ids);
+
+        assertEquals(250, found.size());
+        assertEquals("payload-id-249", found.get("id-249").getPayload());
+        ArgumentCaptor<BatchGetItemRequest> requests = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(dynamoDbClient, times(3)).batchGetItem(requests.capture());
+        assertEquals(List.of(100, 100, 50), requests.getAllValues().stream().map(request -> keys(request).size()).toList());
+    }
+
+    @Test
+    void testUnprocessedKeysAreRetried() {
+        doAnswer(invocation -> found(List.of("123"), List.of("456", "789")))
+                .doAnswer(invocation -> {
+                    assertEquals(List.of("456", "789"), keys(invocation.getArgument(0)));
+                    return found(List.of("456"), List.of());
+                })
+                .when(dynamoDbClient).batchGetItem(any(BatchGetItemRequest.class));
+
+        Map<String, ApiRequest> found = repository.findAllByIds(List.of("123", "456", "789"));
+
+        // 789 was processed on the retry and does not exist
+        assertEquals(2, found.size());
+        assertEquals("payload-123", found.get("123").getPayload());
+        assertEquals("payload-456", found.get("456").getPayload());
+        verify(dynamoDbClient, times(2)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    @Test
+    void testKeysStillUnprocessedAfterMaxAttemptsFail() {
+        doAnswer(invocation -> found(List.of(), keys(invocation.getArgument(0))))
+                .when(dynamoDbClient).batchGetItem(any(BatchGetItemRequest.class));
+
+        assertThrows(IllegalStateException.class, () -> repository.findAllByIds(List.of("123")));
+        verify(dynamoDbClient, times(3)).batchGetItem(any(BatchGetItemRequest.class));
+    }
+
+    private static List<String> keys(BatchGetItemRequest request) {
+        return request.requestItems().get(TABLE).keys().stream().map(key -> key.get("id").s()).toList();
+    }
+
+    private static BatchGetItemResponse found(List<String> ids, List<String> unprocessed) {
+        List<Map<String, AttributeValue>> items = ids.stream()
+                .map(id -> Map.of("id", AttributeValue.fromS(id), "payload", AttributeValue.fromS("payload-" + id)))
+                .toList();
+        Map<String, KeysAndAttributes> unprocessedKeys = unprocessed.isEmpty() ? Map.of() : Map.of(TABLE,
+                KeysAndAttributes.builder().keys(unprocessed.stream().map(id -> Map.of("id", AttributeValue.fromS(id))).toList()).build());
+        return BatchGetItemResponse.builder().responses(Map.of(TABLE, items)).unprocessedKeys(unprocessedKeys).build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.api.repository;
+
+import com.example.api.model.ApiRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.GetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ShardedApiRequestRepositoryTest {
+
+    private static final String SHARDED_TABLE = "ApiRequestShardedTable";
+
+    private DynamoDbClient dynamoDbClient;
+
+    private ShardedApiRequestRepository repository;
+
+    @BeforeEach
+    void setup() {
+        // Unstubbed calls fall through to the client's default methods, which build the request and call the stubs
+        dynamoDbClient = mock(DynamoDbClient.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+        repository = new ShardedApiRequestRepository(dynamoDbClient, "ApiRequestTable", SHARDED_TABLE, 4,
+                "scatter", "id-version-index", true);
+        ReflectionTestUtils.setField(repository, "batchMaxAttempts", 5);
+        ReflectionTestUtils.setField(repository, "batchBackoffMs", 1L);
+    }
+
+    @Test
+    void testSaveWritesAShardedCopy() {
+        doReturn(PutItemResponse.builder().build()).when(dynamoDbClient).putItem(any(PutItemRequest.class));
+
+        repository.save(apiRequest("123", null));
+
+        ArgumentCaptor<PutItemRequest> request = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(request.capture());
+        assertEquals(SHARDED_TABLE, request.getValue().tableName());
+        Map<String, AttributeValue> item = request.getValue().item();
+        assertTrue(item.get(ShardedKeys.PARTITION_KEY).s().matches("[0-3]#123"));
+        assertEquals("123", item.get("id").s());
+        assertNotNull(item.get("version"));
+    }
+
+    @Test
+    void testReadGathersEveryShardAndKeepsTheNewestCopy() {
+        doReturn(BatchGetItemResponse.builder()
+                .responses(Map.of(SHARDED_TABLE, List.of(item(1, "123", "old", 5L), item(3, "123", "new", 9L))))
+                .unprocessedKeys(Map.of())
+                .build()).when(dynamoDbClient).batchGetItem(any(BatchGetItemRequest.class));
+
+        ApiRequest apiRequest = repository.findById("123");
+
+        assertEquals("new", apiRequest.getPayload());
+        ArgumentCaptor<BatchGetItemRequest> request = ArgumentCaptor.forClass(BatchGetItemRequest.class);
+        verify(dynamoDbClient).batchGetItem(request.capture());
+        assertEquals(4, request.getValue().requestItems().get(SHARDED_TABLE).keys().size());
+    }
+
+    @Test
+    void testIdsNotMigratedYetAreReadFromTheSourceTable() {
+        doReturn(BatchGetItemResponse.builder().responses(Map.of()).unprocessedKeys(Map.of()).build())
+                .when(dynamoDbClient).batchGetItem(any(BatchGetItemRequest.class));
+        doReturn(GetItemResponse.builder().item(Map.of("id", AttributeValue.fromS("123"), "payload", AttributeValue.fromS("source"))).build())
+                .when(dynamoDbClient).getItem(any(GetItemRequest.class));
+
+        assertEquals("source", repository.findById("123").getPayload());
+    }
+
+    @Test
+    void testConditionalSaveChecksEveryShard() {
+        doThrow(TransactionCanceledException.builder()
+                .cancellationReasons(CancellationReason.builder().code("None").build(),
+                        CancellationReason.builder().code("ConditionalCheckFailed").build())
+                .build()).when(dynamoDbClient).transactWriteItems(any(TransactWriteItemsRequest.class));
+        ApiRequest apiRequest = apiRequest("123", 5L);
+
+        assertThrows(VersionConflictException.class, () -> repository.save(apiRequest, 5L));
+        assertEquals(5L, apiRequest.getVersion());
+
+        ArgumentCaptor<TransactWriteItemsRequest> request = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(request.capture());
+        // One item per shard, plus the check on the source table while falling back to it
+        assertEquals(5, request.getValue().transactItems().size());
+        assertEquals(1, request.getValue().transactItems().stream().filter(item -> item.put() != null).count());
+    }
+
+    @Test
+    void testStaleConditionalSaveOfUnmigratedIdIsRejected() {
+        // Only the source table holds the ID, at version 7
+        doAnswer(invocation -> {
+            List<TransactWriteItem> items = invocation.<TransactWriteItemsRequest>getArgument(0).transactItems();
+            CancellationReason[] reasons = new CancellationReason[items.size()];
+            boolean failed = false;
+            for (int i = 0; i < items.size(); i++) {
+                ConditionCheck check = items.get(i).conditionCheck();
+                boolean stale = check != null && "ApiRequestTable".equals(check.tableName())
+                        && Long.parseLong(check.expressionAttributeValues().get(":expected").n()) < 7;
+                failed |= stale;
+                reasons[i] = CancellationReason.builder().code(stale ? "ConditionalCheckFailed" : "None").build();
+            }
+            if (failed) {
+                throw TransactionCanceledException.builder().cancellationReasons(reasons).build();
+            }
+            return TransactWriteItemsResponse.builder().build();
+        }).when(dynamoDbClient).transactWriteItems(any(TransactWriteItemsRequest.class));
+
+        assertThrows(VersionConflictException.class, () -> repository.save(apiRequest("123", null), 5L));
+        repository.save(apiRequest("123", null), 7L);
+
+        ArgumentCaptor<TransactWriteItemsRequest> request = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient, times(2)).transactWriteItems(request.capture());
+        ConditionCheck sourceCheck = request.getValue().transactItems().get(4).conditionCheck();
+        assertEquals(Map.of("id", AttributeValue.fromS("123")), sourceCheck.key());
+    }
+
+    @Test
+    void testSourceTableIsNotCheckedOnceFallbackIsOff() {
+        repository = new ShardedApiRequestRepository(dynamoDbClient, "ApiRequestTable", SHARDED_TABLE, 4,
+                "scatter", "id-version-index", false);
+        doReturn(TransactWriteItemsResponse.builder().build())
+                .when(dynamoDbClient).transactWriteItems(any(TransactWriteItemsRequest.class));
+
+        repository.save(apiRequest("123", null), 5L);
+
+        ArgumentCaptor<TransactWriteItemsRequest> request = ArgumentCaptor.forClass(TransactWriteItemsRequest.class);
+        verify(dynamoDbClient).transactWriteItems(request.capture());
+        assertTrue(request.getValue().transactItems().stream()
+                .allMatch(item -> SHARDED_TABLE.equals(item.put() != null ? item.put().tableName() : item.conditionCheck().tableName())));
+    }
+
+    @Test
+    void testCopyFromSourceKeepsNewerCopies() {
+        doReturn(PutItemResponse.builder().build()).when(dynamoDbClient).putItem(any(PutItemRequest.class));
+        assertTrue(repository.copyFromSource(apiRequest("123", 7L)));
+
+        ArgumentCaptor<PutItemRequest> request = ArgumentCaptor.forClass(PutItemRequest.class);
+        verify(dynamoDbClient).putItem(request.capture());
+        assertEquals("7", request.getValue().item().get("version").n());
+        assertTrue(request.getValue().conditionExpression().contains("#version < :version"));
+
+        doThrow(ConditionalCheckFailedException.builder().build()).when(dynamoDbClient).putItem(any(PutItemRequest.class));
+        assertFalse(repository.copyFromSource(apiRequest("123", 7L)));
+    }
+
+    @Test
+    void testRequestIdFromEitherLayoutsKey() {
+        assertEquals("a#b", ShardedKeys.requestId(Map.of(ShardedKeys.PARTITION_KEY, AttributeValue.fromS(ShardedKeys.key(12, "a#b")))));
+        assertEquals("a#b", ShardedKeys.requestId(Map.of("id", AttributeValue.fromS("a#b"))));
+    }
+
+    private static ApiRequest apiRequest(String id, Long version) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload("payload-" + id);
+        apiRequest.setVersion(version);
+        return apiRequest;
+    }
+
+    private static Map<String, AttributeValue> item(int shard, String id, String payload, long version) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put(ShardedKeys.PARTITION_KEY, AttributeValue.fromS(ShardedKeys.key(shard, id)));
+        item.put("id", AttributeValue.fromS(id));
+        item.put("payload", AttributeValue.fromS(payload));
+        item.put("version", AttributeValue.fromN(Long.toString(version)));
+        return item;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.api.resilience;
+
+import com.example.api.metrics.DependencyMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGuardTest {
+
+    private DependencyGuard guard;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (guard != null) {
+            guard.shutdown();
+        }
+    }
+
+    @Test
+    void testFailingRedisCallReturnsFallback() {
+        guard = guard(false);
+
+        String value = guard.tryRedis(() -> {
+            throw new IllegalStateException("Redis down");
+        }, "fallback");
+
+        assertEquals("fallback", value);
+    }
+
+    @Test
+    void testOpenBreakerShedsDynamoDbReads() {
+        guard = guard(false);
+        for (int i = 0; i < 2; i++) {
+            assertThrows(IllegalStateException.class, () -> guard.readDynamoDb(timeout -> {
+                throw new IllegalStateException("Throttled");
+            }));
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(DependencyUnavailableException.class, () -> guard.readDynamoDb(timeout -> calls.incrementAndGet()));
+        assertEquals(0, calls.get());
+    }
+
+    @Test
+    void testSlowReadIsHedged() {
+        guard = guard(true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String value = guard.readDynamoDb(timeout -> {
+            if (attempts.incrementAndGet() == 1) {
+                sleep(2000);
+                return "slow";
+            }
+            return "hedged";
+        });
+
+        assertEquals("hedged", value);
+        assertEquals(2, attempts.get());
+    }
+
+    private static DependencyGuard guard(boolean hedge) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Breakers evaluate every 2 calls; hedges fire after 5ms until latency data exists
+        ResilienceProperties properties = ResilienceProperties.bind(Map.of(
+                "circuit-breaker.sliding-window-size", "2",
+                "circuit-breaker.minimum-calls", "2",
+                "circuit-breaker.open-ms", "60000",
+                "dynamodb.hedge.enabled", Boolean.toString(hedge),
+                "dynamodb.hedge.initial-delay-ms", "5"));
+        return new DependencyGuard(new DependencyMetrics(meterRegistry), meterRegistry, properties, 5000, false);
+    }
+
+    @Test
+    void testUnsetPropertiesTakeTheDefaults() {
+        ResilienceProperties properties = ResilienceProperties.bind(Map.of("dynamodb.hedge.enabled", "true"));
+
+        assertTrue(properties.dynamodb().hedge().enabled());
+        assertEquals(50, properties.dynamodb().hedge().initialDelayMs());
+        assertEquals(2000, properties.dynamodb().timeout().maxMs());
+        assertEquals(100, properties.circuitBreaker().slidingWindowSize());
+        assertEquals(3, properties.timeout().multiplier());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
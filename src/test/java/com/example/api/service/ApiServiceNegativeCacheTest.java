@@ -0,0 +1,145 @@
+package com.example.api.service;
+
+import com.example.api.blob.BlobStore;
+import com.example.api.cache.EarlyRefresh;
+import com.example.api.cache.HotKeyCache;
+import com.example.api.cache.NearCache;
+import com.example.api.cache.NegativeCache;
+import com.example.api.cache.RedisBatchExecutor;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.codec.BinaryApiRequestCodec;
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.resilience.DependencyGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Reads on this node of requests written on another, with the negative cache's Bloom
+ * filter built. Redis is unavailable throughout, so every read that is not answered in
+ * memory reaches DynamoDB.
+ */
+class ApiServiceNegativeCacheTest {
+
+    private ApiRequestRepository apiRequestRepository;
+
+    private NegativeCache negativeCache;
+
+    private RedisBatchExecutor redisBatch;
+
+    private ApiService apiService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        apiRequestRepository = mock(ApiRequestRepository.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(0).accept("stored-before-scan");
+            return null;
+        }).when(apiRequestRepository).scanIds(any(Consumer.class));
+        NearCache nearCache = mock(NearCache.class);
+        when(nearCache.broadcastsInvalidations()).thenReturn(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        negativeCache = new NegativeCache(apiRequestRepository, nearCache, registry,
+                true, 60000, 1000, true, 1000, 0.01, 3600000);
+        ReflectionTestUtils.invokeMethod(negativeCache, "rebuildBloomFilter");
+
+        // No Redis entry holds any version, so every stream change is evicted
+        redisBatch = mock(RedisBatchExecutor.class);
+        when(redisBatch.getPrefixes(anyList(), anyInt())).thenAnswer(invocation ->
+                Arrays.asList(new byte[invocation.<List<?>>getArgument(0).size()][]));
+
+        DependencyGuard guard = mock(DependencyGuard.class);
+        when(guard.tryRedis(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        when(guard.readDynamoDb(any())).thenAnswer(invocation ->
+                invocation.<Function<Duration, Object>>getArgument(0).apply(Duration.ofSeconds(1)));
+
+        apiService = new ApiService(apiRequestRepository, mock(KafkaTemplate.class), mock(RedisTemplate.class),
+                new BinaryApiRequestCodec(1024), redisBatch,
+                new RedisCachePolicy(registry, 60000, 0.1, 65536, false), nearCache, negativeCache,
+                mock(HotKeyCache.class), mock(EarlyRefresh.class), new DependencyMetrics(registry), guard,
+                mock(BlobStore.class), "api-requests", 0);
+    }
+
+    @Test
+    void testWriteWhoseInvalidationNeverArrivedIsRead() {
+        // Written on another node after this node's filter was built
+        when(apiRequestRepository.findById(eq("written-elsewhere"), any())).thenReturn(apiRequest("written-elsewhere"));
+
+        ApiRequest apiRequest = apiService.getRequest("written-elsewhere");
+
+        assertNotNull(apiRequest);
+        assertEquals("payload-written-elsewhere", apiRequest.getPayload());
+    }
+
+    @Test
+    void testLaggingReadOfKnownWriteIsNotCachedAsMissing() {
+        // The other node's invalidation arrived, but the first read hit a replica that had not seen the write
+        negativeCache.recordPresent("written-elsewhere");
+        when(apiRequestRepository.findById(eq("written-elsewhere"), any()))
+                .thenReturn(null)
+                .thenReturn(apiRequest("written-elsewhere"));
+
+        assertNull(apiService.getRequest("written-elsewhere"));
+        assertNotNull(apiService.getRequest("written-elsewhere"));
+    }
+
+    @Test
+    void testMissForIdNeverStoredIsCached() {
+        assertNull(apiService.getRequest("never-stored"));
+        assertNull(apiService.getRequest("never-stored"));
+
+        verify(apiRequestRepository, times(1)).findById(eq("never-stored"), any());
+    }
+
+    @Test
+    void testStreamedWriteClearsCachedMiss() {
+        // Written on another node whose invalidation never arrived, after this node cached the miss
+        assertNull(apiService.getRequest("written-elsewhere"));
+        when(apiRequestRepository.findById(eq("written-elsewhere"), any())).thenReturn(apiRequest("written-elsewhere"));
+
+        assertEquals(1, apiService.evictChanged(Map.of("written-elsewhere", 5L), Set.of()));
+
+        assertNotNull(apiService.getRequest("written-elsewhere"));
+    }
+
+    @Test
+    void testStreamedDeleteKeepsCachedMiss() {
+        assertNull(apiService.getRequest("deleted"));
+        Map<String, Long> changes = new HashMap<>();
+        changes.put("deleted", null);
+
+        assertEquals(1, apiService.evictChanged(changes, Set.of("deleted")));
+
+        assertNull(apiService.getRequest("deleted"));
+        verify(apiRequestRepository, times(1)).findById(eq("deleted"), any());
+    }
+
+    private static ApiRequest apiRequest(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload("payload-" + id);
+        return apiRequest;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.api.service;
+
+import com.example.api.blob.LocalBlobStore;
+import com.example.api.cache.EarlyRefresh;
+import com.example.api.cache.HotKeyCache;
+import com.example.api.cache.NearCache;
+import com.example.api.cache.NegativeCache;
+import com.example.api.cache.RedisBatchExecutor;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.codec.BinaryApiRequestCodec;
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.repository.VersionConflictException;
+import com.example.api.resilience.DependencyGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.Resource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Payloads above the offload threshold, kept in a {@link LocalBlobStore} under a temporary
+ * directory. Pins down that a stored request never points at a blob that is gone.
+ */
+class ApiServicePayloadTest {
+
+    private static final String TOPIC = "api-requests";
+
+    private static final String LARGE_PAYLOAD = "large payload ".repeat(10);
+
+    @TempDir
+    Path directory;
+
+    private ApiRequestRepository apiRequestRepository;
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private LocalBlobStore blobStore;
+
+    private ApiService apiService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() throws IOException {
+        apiRequestRepository = mock(ApiRequestRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+        blobStore = new LocalBlobStore(directory.toString(), 1000, 1 << 20);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        apiService = new ApiService(apiRequestRepository, kafkaTemplate, redisTemplate, new BinaryApiRequestCodec(1024),
+                mock(RedisBatchExecutor.class), new RedisCachePolicy(registry, 60000, 0.1, 65536, false),
+                mock(NearCache.class), mock(NegativeCache.class), mock(HotKeyCache.class), mock(EarlyRefresh.class),
+                new DependencyMetrics(registry), mock(DependencyGuard.class), blobStore, TOPIC, 64);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLargePayloadIsOffloaded() throws IOException {
+        ApiRequest apiRequest = apiRequest("123", LARGE_PAYLOAD);
+
+        apiService.saveRequest(apiRequest);
+
+        ArgumentCaptor<ApiRequest> saved = ArgumentCaptor.forClass(ApiRequest.class);
+        verify(apiRequestRepository).save(saved.capture());
+        assertNull(saved.getValue().getPayload());
+        assertNotNull(saved.getValue().getPayloadRef());
+        assertEquals(LARGE_PAYLOAD, content(apiService.openPayload(saved.getValue())));
+
+        ArgumentCaptor<ProducerRecord<String, String>> published = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(published.capture());
+        assertEquals(saved.getValue().getPayloadRef(), published.getValue().value());
+        assertNotNull(published.getValue().headers().lastHeader(RecordOrigin.PAYLOAD_REF_HEADER));
+    }
+
+    @Test
+    void testSmallPayloadStaysInline() throws IOException {
+        ApiRequest apiRequest = apiRequest("123", "small");
+
+        apiService.saveRequest(apiRequest);
+
+        assertEquals("small", apiRequest.getPayload());
+        assertNull(apiRequest.getPayloadRef());
+        assertEquals("small", content(apiService.openPayload(apiRequest)));
+        assertEquals(0, countFiles());
+    }
+
+    @Test
+    void testStreamedPayloadIsSavedAsReference() throws IOException {
+        ApiRequest saved = apiService.saveStreamed("123",
+                new ByteArrayInputStream("streamed".getBytes(StandardCharsets.UTF_8)));
+
+        verify(apiRequestRepository).save(saved);
+        assertNull(saved.getPayload());
+        assertEquals("streamed", content(apiService.openPayload(saved)));
+    }
+
+    @Test
+    void testOpenPayloadOfMissingBlobOrRequestIsNull() throws IOException {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId("123");
+        apiRequest.setPayloadRef("0".repeat(64));
+
+        assertNull(apiService.openPayload(apiRequest));
+        assertNull(apiService.openPayload(null));
+    }
+
+    @Test
+    void testReplacedPayloadIsDeletedOnlyAfterPut() throws IOException {
+        ApiRequest previous = storedWithPayload("123");
+        when(apiRequestRepository.save(any(), eq(3L))).thenAnswer(invocation -> {
+            // Readers of the stored request must still find its payload until the put
+            assertNotNull(blobStore.open(previous.getPayloadRef()));
+            return previous;
+        });
+        ApiRequest apiRequest = apiRequest("123", LARGE_PAYLOAD + "v2");
+
+        apiService.saveRequest(apiRequest, 3L);
+
+        assertNull(blobStore.open(previous.getPayloadRef()));
+        assertEquals(LARGE_PAYLOAD + "v2", content(apiService.openPayload(apiRequest)));
+        assertEquals(1, countFiles());
+    }
+
+    @Test
+    void testRejectedPutKeepsStoredPayload() throws IOException {
+        ApiRequest previous = storedWithPayload("123");
+        when(apiRequestRepository.save(any(), eq(3L)))
+                .thenThrow(new VersionConflictException("123 is no longer at version 3", null));
+
+        assertThrows(VersionConflictException.class,
+                () -> apiService.saveRequest(apiRequest("123", LARGE_PAYLOAD + "v2"), 3L));
+
+        // The stored request's payload stays, and the one written for the rejected put is gone
+        assertEquals(LARGE_PAYLOAD, content(blobStore.open(previous.getPayloadRef())));
+        assertEquals(1, countFiles());
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private ApiRequest storedWithPayload(String id) throws IOException {
+        ApiRequest stored = new ApiRequest();
+        stored.setId(id);
+        stored.setVersion(3L);
+        stored.setPayloadRef(blobStore.write(id, new ByteArrayInputStream(LARGE_PAYLOAD.getBytes(StandardCharsets.UTF_8))));
+        return stored;
+    }
+
+    private static ApiRequest apiRequest(String id, String payload) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+
+    private static String content(Resource resource) throws IOException {
+        return resource.getContentAsString(StandardCharsets.UTF_8);
+    }
+
+    private long countFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.example.api.service;
 import com.example.api.config.TestDynamoDBConfiguration;
 import com.example.api.config.TestRedisConfiguration;
 import com.example.api.model.ApiRequest;
+import com.example.api.repository.VersionConflictException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,10 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @Testcontainers
@@ -99,6 +104,51 @@ class ApiServiceTest {
         assertEquals(TEST_PAYLOAD, savedInCache.getPayload(), "The cached payload should match the saved request.");
     }
 
+    @Test
+    void testSaveRequestAssignsNewVersion() {
+        Long firstVersion = apiRequest.getVersion();
+        assertNotNull(firstVersion, "Saving should stamp a version.");
+
+        apiService.saveRequest(apiRequest);
+
+        assertTrue(apiRequest.getVersion() > firstVersion, "Every save should move the version forward.");
+        assertEquals(apiRequest.getVersion(), apiService.getCachedVersion(TEST_REQUEST_ID));
+    }
+
+    @Test
+    void testConditionalSaveRejectsStaleVersion() {
+        long staleVersion = apiRequest.getVersion();
+        apiService.saveRequest(apiRequest, staleVersion);
+
+        ApiRequest update = new ApiRequest();
+        update.setId(TEST_REQUEST_ID);
+        update.setPayload("Lost update");
+
+        assertThrows(VersionConflictException.class, () -> apiService.saveRequest(update, staleVersion));
+        assertEquals(TEST_PAYLOAD, apiService.getRequest(TEST_REQUEST_ID).getPayload());
+    }
+
+    @Test
+    void testEvictChangedKeepsEntriesAlreadyAtTheVersion() {
+        Map<String, Long> changes = new HashMap<>();
+        changes.put(TEST_REQUEST_ID, apiRequest.getVersion());
+        assertEquals(0, apiService.evictChanged(changes, Set.of()));
+        assertNotNull(redisTemplate.opsForValue().get(TEST_REQUEST_ID));
+
+        changes.put(TEST_REQUEST_ID, apiRequest.getVersion() + 1);
+        assertEquals(1, apiService.evictChanged(changes, Set.of()));
+        assertNull(redisTemplate.opsForValue().get(TEST_REQUEST_ID), "A newer version elsewhere should evict the entry.");
+    }
+
+    @Test
+    void testEvictChangedEvictsDeletedRequests() {
+        Map<String, Long> changes = new HashMap<>();
+        changes.put(TEST_REQUEST_ID, null);
+
+        assertEquals(1, apiService.evictChanged(changes, Set.of(TEST_REQUEST_ID)));
+        assertNull(redisTemplate.opsForValue().get(TEST_REQUEST_ID));
+    }
+
     @Test
     void testKafkaProducer() {
         kafkaTemplate.send("api-requests", "123", "Test Payload");
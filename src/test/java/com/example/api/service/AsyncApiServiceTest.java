@@ -0,0 +1,107 @@
+package com.example.api.service;
+
+import com.example.api.cache.NearCache;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.AsyncApiRequestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AsyncApiServiceTest {
+
+    private SimpleMeterRegistry registry;
+
+    private AsyncApiRequestRepository repository;
+
+    private ReactiveValueOperations<String, ApiRequest> valueOperations;
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private AsyncApiService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        registry = new SimpleMeterRegistry();
+        repository = mock(AsyncApiRequestRepository.class);
+        ReactiveRedisTemplate<String, ApiRequest> redisTemplate = mock(ReactiveRedisTemplate.class);
+        valueOperations = mock(ReactiveValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.set(any(), any(), any(Duration.class))).thenReturn(Mono.just(true));
+        kafkaTemplate = mock(KafkaTemplate.class);
+        service = new AsyncApiService(repository, redisTemplate, kafkaTemplate, mock(NearCache.class),
+                new RedisCachePolicy(registry, 60_000, 0.1, 65_536, false), new DependencyMetrics(registry), 0, false);
+        ReflectionTestUtils.setField(service, "topic", "api-requests");
+    }
+
+    @Test
+    void testRedisHitIsTimedAndCounted() {
+        when(valueOperations.get("123")).thenReturn(Mono.just(apiRequest("123")));
+
+        assertEquals("payload-123", service.getRequest("123").block().getPayload());
+
+        assertEquals(1, calls("redis", "get"));
+        assertEquals(0, calls("dynamodb", "get"));
+        assertEquals(1, lookups("hit"));
+    }
+
+    @Test
+    void testRedisMissIsReadFromDynamoDbAndCached() {
+        when(valueOperations.get("123")).thenReturn(Mono.empty());
+        when(repository.findById("123")).thenReturn(CompletableFuture.completedFuture(apiRequest("123")));
+
+        assertEquals("payload-123", service.getRequest("123").block().getPayload());
+
+        assertEquals(1, calls("redis", "get"));
+        assertEquals(1, calls("dynamodb", "get"));
+        assertEquals(1, calls("redis", "set"));
+        assertEquals(1, lookups("miss"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSaveTimesEveryDependency() {
+        when(repository.save(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        service.saveRequest(apiRequest("123")).block();
+
+        assertEquals(1, calls("dynamodb", "put"));
+        assertEquals(1, calls("kafka", "send"));
+        assertEquals(1, calls("redis", "set"));
+        verify(valueOperations).set(eq("123"), any(), any(Duration.class));
+    }
+
+    private long calls(String dependency, String operation) {
+        return registry.get(DependencyMetrics.CALLS).tag("dependency", dependency).tag("operation", operation).timer().count();
+    }
+
+    private double lookups(String result) {
+        return registry.get(DependencyMetrics.CACHE_LOOKUPS).tag("result", result).counter().count();
+    }
+
+    private static ApiRequest apiRequest(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload("payload-" + id);
+        return apiRequest;
+    }
+}
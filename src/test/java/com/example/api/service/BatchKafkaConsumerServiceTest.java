@@ -0,0 +1,118 @@
+package com.example.api.service;
+
+import com.example.api.model.ApiRequest;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchKafkaConsumerServiceTest {
+
+    @Mock
+    private ApiService apiService;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private BatchKafkaConsumerService consumerService;
+
+    @BeforeEach
+    void setup() {
+        consumerService = new BatchKafkaConsumerService(apiService, 1, false);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        consumerService.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testBatchIsDeduplicatedByKeyBeforeAck() {
+        List<ConsumerRecord<String, String>> records = List.of(
+                new ConsumerRecord<>("api-requests", 0, 0L, "123", "first"),
+                new ConsumerRecord<>("api-requests", 0, 1L, "456", "other"),
+                new ConsumerRecord<>("api-requests", 0, 2L, "123", "second"));
+
+        consumerService.consume(records, acknowledgment);
+
+        ArgumentCaptor<Collection<ApiRequest>> persisted = ArgumentCaptor.forClass(Collection.class);
+        var inOrder = inOrder(apiService, acknowledgment);
+        inOrder.verify(apiService).persistBatch(persisted.capture());
+        inOrder.verify(acknowledgment).acknowledge();
+
+        List<ApiRequest> requests = new ArrayList<>(persisted.getValue());
+        assertEquals(2, requests.size());
+        assertEquals("123", requests.get(0).getId());
+        assertEquals("second", requests.get(0).getPayload());
+        assertEquals("456", requests.get(1).getId());
+    }
+
+    @Test
+    void testFailedBatchIsNotAcknowledged() {
+        doThrow(new IllegalStateException("unprocessed items")).when(apiService).persistBatch(any());
+
+        assertThrows(IllegalStateException.class, () -> consumerService.consume(
+                List.of(new ConsumerRecord<>("api-requests", 0, 0L, "123", "payload")), acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testLanesPersistEveryKeyOnceBeforeAck() throws InterruptedException {
+        consumerService.shutdown();
+        consumerService = new BatchKafkaConsumerService(apiService, 4, false);
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(new ConsumerRecord<>("api-requests", 0, i, "key-" + i, "payload-" + i));
+        }
+
+        consumerService.consume(records, acknowledgment);
+
+        ArgumentCaptor<Collection<ApiRequest>> persisted = ArgumentCaptor.forClass(Collection.class);
+        verify(apiService, atLeast(2)).persistBatch(persisted.capture());
+        Set<String> ids = new HashSet<>();
+        int total = 0;
+        for (Collection<ApiRequest> lane : persisted.getAllValues()) {
+            for (ApiRequest request : lane) {
+                ids.add(request.getId());
+                total++;
+            }
+        }
+        assertEquals(20, ids.size());
+        assertEquals(20, total);
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void testFailedLaneIsNotAcknowledged() throws InterruptedException {
+        consumerService.shutdown();
+        consumerService = new BatchKafkaConsumerService(apiService, 4, false);
+        doThrow(new IllegalStateException("unprocessed items")).when(apiService).persistBatch(any());
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(new ConsumerRecord<>("api-requests", 0, i, "key-" + i, "payload-" + i));
+        }
+
+        assertThrows(IllegalStateException.class, () -> consumerService.consume(records, acknowledgment));
+
+        verify(acknowledgment, never()).acknowledge();
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.api.service;
+
+import com.example.api.blob.BlobStore;
+import com.example.api.cache.EarlyRefresh;
+import com.example.api.cache.NearCache;
+import com.example.api.cache.HotKeyCache;
+import com.example.api.cache.NegativeCache;
+import com.example.api.cache.RedisBatchExecutor;
+import com.example.api.cache.RedisCachePolicy;
+import com.example.api.codec.BinaryApiRequestCodec;
+import com.example.api.metrics.DependencyMetrics;
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.resilience.DependencyGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * The API publishes to the same topic the consumer listens on, so these tests pin down
+ * that a message is written to DynamoDB exactly once and is never re-published.
+ */
+class KafkaConsumerServiceTest {
+
+    private static final String TOPIC = "api-requests";
+
+    private ApiRequestRepository apiRequestRepository;
+
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private ApiService apiService;
+
+    private KafkaConsumerService consumerService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        apiRequestRepository = mock(ApiRequestRepository.class);
+        kafkaTemplate = mock(KafkaTemplate.class);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        when(redisTemplate.opsForValue()).thenReturn(mock(ValueOperations.class));
+
+        apiService = new ApiService(apiRequestRepository, kafkaTemplate, redisTemplate, new BinaryApiRequestCodec(1024),
+                mock(RedisBatchExecutor.class), new RedisCachePolicy(new SimpleMeterRegistry(), 60000, 0.1, 65536, false),
+                mock(NearCache.class), mock(NegativeCache.class), mock(HotKeyCache.class), mock(EarlyRefresh.class),
+                new DependencyMetrics(new SimpleMeterRegistry()), mock(DependencyGuard.class), mock(BlobStore.class),
+                TOPIC, 0);
+        consumerService = new KafkaConsumerService(apiService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testApiWriteIsPersistedOnceAcrossPublishAndConsume() {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId("123");
+        apiRequest.setPayload("Test Request");
+
+        apiService.saveRequest(apiRequest);
+
+        ArgumentCaptor<ProducerRecord<String, String>> published = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate).send(published.capture());
+
+        // Deliver the published record back to the consumer, as the broker would
+        consumerService.consume(delivered(published.getValue()));
+
+        verify(apiRequestRepository, times(1)).save(any());
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExternalRecordIsPersistedOnceAndNotRepublished() {
+        consumerService.consume(new ConsumerRecord<>(TOPIC, 0, 0L, "456", "External payload"));
+
+        ArgumentCaptor<ApiRequest> saved = ArgumentCaptor.forClass(ApiRequest.class);
+        verify(apiRequestRepository, times(1)).save(saved.capture());
+        assertEquals("456", saved.getValue().getId());
+        assertEquals("External payload", saved.getValue().getPayload());
+        verify(kafkaTemplate, never()).send(any(ProducerRecord.class));
+        verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testPayloadRefRecordIsPersistedAsReference() {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(TOPIC, 0, 0L, "789", "ab".repeat(32));
+        record.headers().add(RecordOrigin.PAYLOAD_REF_HEADER, new byte[0]);
+
+        consumerService.consume(record);
+
+        ArgumentCaptor<ApiRequest> saved = ArgumentCaptor.forClass(ApiRequest.class);
+        verify(apiRequestRepository).save(saved.capture());
+        assertEquals("ab".repeat(32), saved.getValue().getPayloadRef());
+        assertNull(saved.getValue().getPayload());
+    }
+
+    private static ConsumerRecord<String, String> delivered(ProducerRecord<String, String> published) {
+        ConsumerRecord<String, String> record = new ConsumerRecord<>(published.topic(), 0, 0L,
+                published.key(), published.value());
+        published.headers().forEach(header -> record.headers().add(header));
+        return record;
+    }
+}
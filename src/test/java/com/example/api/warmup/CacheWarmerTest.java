@@ -0,0 +1,139 @@
+package com.example.api.warmup;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.repository.ApiRequestRepository;
+import com.example.api.service.ApiService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CacheWarmerTest {
+
+    private ApiService apiService;
+
+    private ApiRequestRepository apiRequestRepository;
+
+    private HotKeySnapshot snapshot;
+
+    @BeforeEach
+    void setup() {
+        apiService = mock(ApiService.class);
+        apiRequestRepository = mock(ApiRequestRepository.class);
+        snapshot = mock(HotKeySnapshot.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSnapshotIdsAreLoadedInBatches() {
+        List<String> hotIds = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            hotIds.add("hot-" + i);
+        }
+        when(snapshot.read(100)).thenReturn(hotIds);
+        doAnswer(invocation -> {
+            Collection<String> requestIds = invocation.getArgument(0);
+            Consumer<ApiRequest> sink = invocation.getArgument(1);
+            requestIds.forEach(requestId -> sink.accept(request(requestId)));
+            return null;
+        }).when(apiService).streamRequests(anyCollection(), any(Consumer.class));
+        CacheWarmer cacheWarmer = cacheWarmer(false, 60000);
+
+        cacheWarmer.warmUp();
+
+        verify(apiService, times(3)).streamRequests(anyCollection(), any(Consumer.class));
+        verify(apiRequestRepository, never()).scanSegment(anyInt(), anyInt(), anyInt(), any(Predicate.class));
+        assertEquals(25, cacheWarmer.loaded());
+        assertTrue(cacheWarmer.isComplete());
+        assertEquals(Status.UP, new CacheWarmupHealthIndicator(cacheWarmer).health().getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testScanStopsAtMaxKeys() {
+        when(snapshot.read(100)).thenReturn(List.of());
+        doAnswer(invocation -> {
+            Predicate<List<ApiRequest>> sink = invocation.getArgument(3);
+            List<ApiRequest> page = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                page.add(request("scanned-" + i));
+            }
+            // Every segment offers far more pages than max-keys allows
+            for (int i = 0; i < 100; i++) {
+                if (!sink.test(page)) {
+                    break;
+                }
+            }
+            return null;
+        }).when(apiRequestRepository).scanSegment(anyInt(), eq(4), eq(10), any(Predicate.class));
+        CacheWarmer cacheWarmer = cacheWarmer(true, 60000);
+
+        cacheWarmer.warmUp();
+
+        verify(apiRequestRepository, times(4)).scanSegment(anyInt(), eq(4), eq(10), any(Predicate.class));
+        assertTrue(cacheWarmer.loaded() >= 100 && cacheWarmer.loaded() < 150, "Loaded " + cacheWarmer.loaded());
+        assertTrue(cacheWarmer.isComplete());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testNodeIsNotReadyUntilWarmUpEnds() throws InterruptedException {
+        when(snapshot.read(100)).thenReturn(List.of("hot"));
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return null;
+        }).when(apiService).streamRequests(anyCollection(), any(Consumer.class));
+        CacheWarmer cacheWarmer = cacheWarmer(false, 60000);
+        CacheWarmupHealthIndicator healthIndicator = new CacheWarmupHealthIndicator(cacheWarmer);
+        assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        Thread warmUp = new Thread(cacheWarmer::warmUp);
+        warmUp.start();
+        loading.await();
+        assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        release.countDown();
+        warmUp.join();
+        assertEquals(Status.UP, healthIndicator.health().getStatus());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSlowWarmUpGivesUpAtTimeout() {
+        when(snapshot.read(100)).thenReturn(List.of("hot"));
+        doAnswer(invocation -> {
+            Thread.sleep(10000);
+            return null;
+        }).when(apiService).streamRequests(anyCollection(), any(Consumer.class));
+        CacheWarmer cacheWarmer = cacheWarmer(false, 100);
+
+        cacheWarmer.warmUp();
+
+        assertEquals(CacheWarmer.State.TIMED_OUT, cacheWarmer.state());
+        assertTrue(cacheWarmer.isComplete());
+    }
+
+    private CacheWarmer cacheWarmer(boolean scanEnabled, long timeoutMs) {
+        return new CacheWarmer(apiService, apiRequestRepository, snapshot,
+                true, 100, 10, 2, timeoutMs, scanEnabled, 4);
+    }
+
+    private static ApiRequest request(String id) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        return apiRequest;
+    }
+}
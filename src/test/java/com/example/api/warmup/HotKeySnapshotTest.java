@@ -0,0 +1,71 @@
+package com.example.api.warmup;
+
+import com.example.api.cache.NearCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class HotKeySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private NearCache nearCache;
+
+    private Path file;
+
+    @BeforeEach
+    void setup() {
+        nearCache = mock(NearCache.class);
+        file = directory.resolve("snapshots").resolve("hot-keys.bin");
+    }
+
+    @Test
+    void testSnapshotRoundTripsHottestFirst() {
+        when(nearCache.hottestIds(3)).thenReturn(List.of("hot", "warm", "ключ"));
+        HotKeySnapshot snapshot = snapshot();
+
+        snapshot.write();
+
+        assertEquals(List.of("hot", "warm", "ключ"), snapshot.read(3));
+        assertEquals(List.of("hot", "warm"), snapshot.read(2));
+    }
+
+    @Test
+    void testEmptyNearCacheKeepsPreviousSnapshot() {
+        HotKeySnapshot snapshot = snapshot();
+        when(nearCache.hottestIds(3)).thenReturn(List.of("hot"));
+        snapshot.write();
+
+        when(nearCache.hottestIds(3)).thenReturn(List.of());
+        snapshot.write();
+
+        assertEquals(List.of("hot"), snapshot.read(3));
+    }
+
+    @Test
+    void testMissingOrCorruptSnapshotReadsAsEmpty() throws IOException {
+        HotKeySnapshot snapshot = snapshot();
+        assertEquals(List.of(), snapshot.read(3));
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertEquals(List.of(), snapshot.read(3));
+
+        // Right magic, but claims more IDs than the file holds
+        Files.write(file, new byte[] {0x48, 0x4B, 0x53, 0x31, 0, 0, 0, 5, 0, 1, 'a'});
+        assertEquals(List.of(), snapshot.read(3));
+    }
+
+    private HotKeySnapshot snapshot() {
+        return new HotKeySnapshot(nearCache, file.toString(), 0, 3, true);
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.api.writebehind;
+
+import com.example.api.model.ApiRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteBehindJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testUnflushedEntriesAreRecoveredInOrder() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            journal.append(request("123", "first"));
+            journal.rotate();
+            journal.append(request("456", null));
+            journal.append(request("123", "second"));
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(3, recovered.size());
+            assertEquals("first", recovered.get(0).getPayload());
+            assertEquals("456", recovered.get(1).getId());
+            assertNull(recovered.get(1).getPayload());
+            assertEquals("second", recovered.get(2).getPayload());
+        }
+    }
+
+    @Test
+    void testReleasedSegmentsAreNotReplayed() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            journal.append(request("123", "flushed"));
+            journal.rotate();
+            journal.append(request("456", "pending"));
+            journal.releaseRetained();
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(1, recovered.size());
+            assertEquals("456", recovered.get(0).getId());
+        }
+    }
+
+    @Test
+    void testTruncatedTrailingEntryIsIgnored() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            journal.append(request("123", "complete"));
+        }
+        try (var segments = Files.list(directory)) {
+            Path segment = segments.findFirst().orElseThrow();
+            // Simulate a crash halfway through the length prefix of the next entry
+            Files.write(segment, new byte[] {0, 0}, StandardOpenOption.APPEND);
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(1, recovered.size());
+            assertEquals("complete", recovered.get(0).getPayload());
+        }
+    }
+
+    @Test
+    void testImplausibleLengthEndsTheSegment() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            journal.append(request("123", "complete"));
+        }
+        try (var segments = Files.list(directory)) {
+            Path segment = segments.findFirst().orElseThrow();
+            // A torn write leaving a length prefix far beyond the end of the segment
+            Files.write(segment, new byte[] {0x7f, -1, -1, -1, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(1, recovered.size());
+            assertEquals("complete", recovered.get(0).getPayload());
+        }
+    }
+
+    @Test
+    void testMalformedEntryMidSegmentIsSkipped() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            journal.append(request("123", "before"));
+            journal.append(request(null, "no id"));
+        }
+        byte[] id = "456".getBytes(StandardCharsets.UTF_8);
+        byte[] payload = "after".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entries = ByteBuffer.allocate(4 + 4 + 4 + 4 + id.length + 4 + payload.length);
+        // A complete entry whose ID length overruns it, then a good entry
+        entries.putInt(4).putInt(Integer.MAX_VALUE);
+        entries.putInt(4 + id.length + 4 + payload.length).putInt(id.length).put(id).putInt(payload.length).put(payload);
+        try (var segments = Files.list(directory)) {
+            Path segment = segments.findFirst().orElseThrow();
+            Files.write(segment, entries.array(), StandardOpenOption.APPEND);
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(2, recovered.size());
+            assertEquals("before", recovered.get(0).getPayload());
+            assertEquals("456", recovered.get(1).getId());
+            assertEquals("after", recovered.get(1).getPayload());
+        }
+    }
+
+    @Test
+    void testVersionAndPayloadRefAreRecovered() throws IOException {
+        ApiRequest offloaded = request("123", null);
+        offloaded.setVersion(7L);
+        offloaded.setPayloadRef("blob-ref");
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            journal.append(offloaded);
+            journal.append(request("456", "inline"));
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(7L, recovered.get(0).getVersion());
+            assertEquals("blob-ref", recovered.get(0).getPayloadRef());
+            assertNull(recovered.get(1).getVersion());
+            assertNull(recovered.get(1).getPayloadRef());
+        }
+    }
+
+    @Test
+    void testEntriesWithoutVersionFieldsAreRecovered() throws IOException {
+        // An entry as written before version and payloadRef were journaled
+        byte[] id = "123".getBytes(StandardCharsets.UTF_8);
+        byte[] payload = "old".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer entry = ByteBuffer.allocate(4 + 4 + id.length + 4 + payload.length);
+        entry.putInt(entry.capacity() - 4).putInt(id.length).put(id).putInt(payload.length).put(payload);
+        Files.write(directory.resolve("segment-00000000000000000000.log"), entry.array());
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            List<ApiRequest> recovered = journal.recover();
+
+            assertEquals(1, recovered.size());
+            assertEquals("old", recovered.get(0).getPayload());
+            assertNull(recovered.get(0).getVersion());
+        }
+    }
+
+    @Test
+    void testAppendsAreDurableAcrossRotation() throws IOException {
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, true)) {
+            long first = journal.append(request("123", "first"));
+            journal.rotate();
+            long second = journal.append(request("456", "second"));
+
+            assertTrue(second > first);
+            journal.awaitDurable(first);
+            journal.awaitDurable(second);
+        }
+
+        try (WriteBehindJournal journal = new WriteBehindJournal(directory, false)) {
+            assertEquals(2, journal.recover().size());
+        }
+    }
+
+    private static ApiRequest request(String id, String payload) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}
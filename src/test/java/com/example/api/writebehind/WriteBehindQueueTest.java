@@ -0,0 +1,181 @@
+package com.example.api.writebehind;
+
+import com.example.api.model.ApiRequest;
+import com.example.api.service.ApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class WriteBehindQueueTest {
+
+    @TempDir
+    Path directory;
+
+    private ApiService apiService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    void setup() throws IOException {
+        apiService = mock(ApiService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        // Flushed by the tests, not on a schedule
+        queue = new WriteBehindQueue(apiService, meterRegistry, 100, 60_000, directory.toString(), true);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        queue.shutdown();
+    }
+
+    @Test
+    void testRequestStaysVisibleWhileItsBatchIsStored() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch stored = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            storing.countDown();
+            assertTrue(stored.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(apiService).saveBatch(any());
+        queue.enqueue(request("123", "value"));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(queue::flush);
+        assertTrue(storing.await(5, TimeUnit.SECONDS));
+
+        assertEquals("value", queue.getPending("123").getPayload());
+        stored.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertNull(queue.getPending("123"));
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void testNewerWriteDuringFlushWins() throws Exception {
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch stored = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            storing.countDown();
+            assertTrue(stored.await(5, TimeUnit.SECONDS));
+            throw new IllegalStateException("DynamoDB unavailable");
+        }).when(apiService).saveBatch(any());
+        queue.enqueue(request("123", "old"));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(queue::flush);
+        assertTrue(storing.await(5, TimeUnit.SECONDS));
+        queue.enqueue(request("123", "new"));
+
+        assertEquals("new", queue.getPending("123").getPayload());
+        stored.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        assertEquals("new", queue.getPending("123").getPayload());
+        assertEquals(1, queue.depth());
+    }
+
+    @Test
+    void testFailedFlushKeepsRequestsVisible() {
+        doThrow(new IllegalStateException("DynamoDB unavailable")).when(apiService).saveBatch(any());
+        queue.enqueue(request("123", "value"));
+
+        queue.flush();
+
+        assertEquals("value", queue.getPending("123").getPayload());
+    }
+
+    @Test
+    void testUnstorableRequestIsDroppedAndTheRestStored() {
+        List<String> stored = new ArrayList<>();
+        doAnswer(invocation -> {
+            Collection<ApiRequest> batch = invocation.getArgument(0);
+            if (batch.stream().anyMatch(apiRequest -> "bad".equals(apiRequest.getId()))) {
+                throw new IllegalArgumentException("Missing partition key");
+            }
+            batch.forEach(apiRequest -> stored.add(apiRequest.getId()));
+            return null;
+        }).when(apiService).saveBatch(any());
+        queue.enqueue(request("123", "first"));
+        queue.enqueue(request("bad", "value"));
+        queue.enqueue(request("456", "second"));
+
+        queue.flush();
+
+        assertEquals(List.of("123", "456"), stored);
+        assertEquals(0, queue.depth());
+        assertEquals(1, meterRegistry.get("api.write_behind.dropped").counter().count());
+    }
+
+    @Test
+    void testTransientFailureWhileStoringOneAtATimeRequeuesTheRest() {
+        doThrow(new IllegalArgumentException("Missing partition key"))
+                .doNothing()
+                .doThrow(new IllegalStateException("DynamoDB unavailable"))
+                .when(apiService).saveBatch(any());
+        queue.enqueue(request("123", "first"));
+        queue.enqueue(request("456", "second"));
+        queue.enqueue(request("789", "third"));
+
+        queue.flush();
+
+        assertNull(queue.getPending("123"));
+        assertEquals("second", queue.getPending("456").getPayload());
+        assertEquals("third", queue.getPending("789").getPayload());
+        assertEquals(0, meterRegistry.get("api.write_behind.dropped").counter().count());
+        verify(apiService, times(3)).saveBatch(any());
+    }
+
+    @Test
+    void testRequestWithoutIdIsNotEnqueued() {
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueue(request(null, "value")));
+        assertThrows(IllegalArgumentException.class, () -> queue.enqueue(request(" ", "value")));
+
+        assertEquals(0, queue.depth());
+    }
+
+    @Test
+    void testKeysBeingFlushedCountAgainstCapacity() throws Exception {
+        queue.shutdown();
+        queue = new WriteBehindQueue(apiService, new SimpleMeterRegistry(), 2, 60_000,
+                directory.resolve("small").toString(), true);
+        CountDownLatch storing = new CountDownLatch(1);
+        CountDownLatch stored = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            storing.countDown();
+            assertTrue(stored.await(5, TimeUnit.SECONDS));
+            return null;
+        }).when(apiService).saveBatch(any());
+        queue.enqueue(request("123", "value"));
+        queue.enqueue(request("456", "value"));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(queue::flush);
+        assertTrue(storing.await(5, TimeUnit.SECONDS));
+
+        assertThrows(WriteBehindFullException.class, () -> queue.enqueue(request("789", "value")));
+        stored.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        queue.enqueue(request("789", "value"));
+        assertEquals(1, queue.depth());
+    }
+
+    private static ApiRequest request(String id, String payload) {
+        ApiRequest apiRequest = new ApiRequest();
+        apiRequest.setId(id);
+        apiRequest.setPayload(payload);
+        return apiRequest;
+    }
+}